@@ -0,0 +1,114 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.CursorLibraryApplication;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.dto.CursorPage;
+import com.example.cursorlibrary.service.BorrowService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 借阅历史增长时未完成借阅的查询耗时：热表固定为 {@link #ACTIVE_ROWS} 条近期记录，
+ * 另外生成 history 条已结束的历史记录，archived=true 时历史位于归档表，false 时留在热表中（未归档的对照组）。
+ * 两张表的索引由实体定义生成，与生产环境的迁移脚本一致。更大的历史规模可通过 -p history=10000000 指定。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ArchiveBenchmark {
+
+    private static final int ACTIVE_ROWS = 20_000;
+    private static final int BATCH = 100_000;
+
+    @Param({"0", "1000000"})
+    public int history;
+
+    @Param({"true", "false"})
+    public boolean archived;
+
+    private ConfigurableApplicationContext context;
+    private BorrowService borrowService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CursorLibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .run("--logging.level.root=WARN",
+                        "--logging.level.com.example.cursorlibrary=WARN",
+                        "--stats.reconcile-initial-delay=3600000",
+                        "--borrow-archive.cron=-");
+        borrowService = context.getBean(BorrowService.class);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkFixtures.loadDataset(jdbc, ACTIVE_ROWS);
+
+        // 历史记录早于热表中的数据集（2020年起），分属全部用户和图书
+        int users = ACTIVE_ROWS / 100;
+        int books = ACTIVE_ROWS / 10;
+        String select = "SELECT MOD(r.n, " + users + ") + 1, MOD(r.n, " + books + ") + 1, "
+                + "DATEADD('MINUTE', r.n, TIMESTAMP '2010-01-01 00:00:00'), "
+                + "DATEADD('MINUTE', r.n + 43200, TIMESTAMP '2010-01-01 00:00:00'), "
+                + "CASE WHEN MOD(r.n, 2) = 0 THEN DATEADD('MINUTE', r.n + 10080, TIMESTAMP '2010-01-01 00:00:00') END, "
+                + "CASE WHEN MOD(r.n, 2) = 0 THEN 'RETURNED' ELSE 'REJECTED' END";
+        for (int start = 1; start <= history; start += BATCH) {
+            String range = " FROM SYSTEM_RANGE(" + start + ", " + Math.min(history, start + BATCH - 1) + ") r(n)";
+            if (archived) {
+                // 归档记录沿用原ID，这里取热表ID范围之外的值
+                jdbc.execute("INSERT INTO borrow_records_archive (user_id, book_id, borrow_date, due_date, return_date, "
+                        + "status, id, archived_at) " + select + ", r.n + 1000000000, CURRENT_TIMESTAMP" + range);
+            } else {
+                jdbc.execute("INSERT INTO borrow_records (user_id, book_id, borrow_date, due_date, return_date, status) "
+                        + select + range);
+            }
+        }
+        jdbc.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<BorrowRecordDTO> borrowedFirstPage() {
+        return borrowService.getAllBorrows("BORROWED", PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public CursorPage<BorrowRecordDTO> scrollPending() {
+        return borrowService.scrollAllBorrows("PENDING", null, 10);
+    }
+
+    @Benchmark
+    public Page<BorrowRecordDTO> userBorrowedFirstPage() {
+        return borrowService.getBorrows("reader1", "BORROWED", PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public CursorPage<BorrowRecordDTO> userHistoryFirstPage() {
+        return borrowService.scrollBorrows("reader1", null, null, 10);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.UserRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 基准测试共用的测试数据
+ */
+final class BenchmarkFixtures {
+
+    static final String JWT_SECRET = "SsGX3iYykKUxwp+jMgcuu0YzFOoampjZEgsp0HiIFiw=";
+    static final long JWT_EXPIRATION = 86400000L;
+
+    private static final String[] STATUSES = {"PENDING", "BORROWED", "RETURNED", "REJECTED"};
+    private static final int BATCH = 1000;
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("reader" + id);
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2oDHRrsmc2nJbE6jHI3VXIu");
+        user.setEmail("reader" + id + "@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        user.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        user.setLastLogin(LocalDateTime.of(2024, 6, 1, 8, 30));
+        return user;
+    }
+
+    static Book book(long id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("图书" + id);
+        book.setAuthor("作者" + (id % 100));
+        book.setIsbn(String.format("978%010d", id));
+        book.setPublisher("人民文学出版社");
+        book.setPublishDate(LocalDate.of(2020, 1, 1));
+        book.setCategory("文学");
+        book.setDescription("这是第" + id + "本图书的简介");
+        book.setStock(5);
+        book.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        book.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        return book;
+    }
+
+    static List<BorrowRecordDTO> borrowRecords(int count) {
+        List<BorrowRecordDTO> records = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            BorrowRecord record = new BorrowRecord();
+            record.setId((long) i + 1);
+            record.setUser(user(i % 50 + 1));
+            record.setBook(book(i % 200 + 1));
+            record.setBorrowDate(base.plusHours(i));
+            record.setDueDate(base.plusHours(i).plusDays(30));
+            record.setStatus(i % 2 == 0 ? "BORROWED" : "RETURNED");
+            if (i % 2 == 1) {
+                record.setReturnDate(base.plusHours(i).plusDays(7));
+            }
+            records.add(BorrowRecordDTO.fromRecord(record));
+        }
+        return records;
+    }
+
+    /**
+     * 用JDBC批量写入 rows 条借阅记录，图书数量为 rows/10，用户数量为 rows/100（至少各10个），
+     * 用户名为 reader1、reader2……
+     */
+    static void loadDataset(JdbcTemplate jdbcTemplate, int rows) {
+        int users = Math.max(10, rows / 100);
+        int books = Math.max(10, rows / 10);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (int i = 1; i <= users; i++) {
+            batch.add(new Object[]{"reader" + i, "password", "reader" + i + "@example.com", "USER", "ACTIVE", now, now});
+            flush(jdbcTemplate, "INSERT INTO users (username, password, email, role, status, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)", batch, i == users);
+        }
+        for (int i = 1; i <= books; i++) {
+            Book book = book(i);
+            batch.add(new Object[]{book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublisher(),
+                    Date.valueOf(book.getPublishDate()), book.getCategory(), book.getDescription(), book.getStock(),
+                    "AVAILABLE", now, now});
+            flush(jdbcTemplate, "INSERT INTO books (title, author, isbn, publisher, publish_date, category, description, "
+                    + "stock, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch, i == books);
+        }
+        LocalDateTime base = LocalDate.of(2020, 1, 1).atStartOfDay();
+        for (int i = 1; i <= rows; i++) {
+            LocalDateTime borrowDate = base.plusMinutes(i * 17L);
+            String status = STATUSES[i % STATUSES.length];
+            batch.add(new Object[]{i % users + 1, i % books + 1, Timestamp.valueOf(borrowDate),
+                    Timestamp.valueOf(borrowDate.plusDays(30)),
+                    status.equals("RETURNED") ? Timestamp.valueOf(borrowDate.plusDays(7)) : null, status});
+            flush(jdbcTemplate, "INSERT INTO borrow_records (user_id, book_id, borrow_date, due_date, return_date, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", batch, i == rows);
+        }
+    }
+
+    private static void flush(JdbcTemplate jdbcTemplate, String sql, List<Object[]> batch, boolean last) {
+        if (batch.size() >= BATCH || (last && !batch.isEmpty())) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 只实现 findByUsername 的内存用户仓库，排除数据库开销
+     */
+    static UserRepository inMemoryUserRepository(User user) {
+        return (UserRepository) Proxy.newProxyInstance(
+                BenchmarkFixtures.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUsername")) {
+                        return args[0].equals(user.getUsername()) ? Optional.of(user) : Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.UserDTO;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到DTO的转换
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DtoMappingBenchmark {
+
+    private Book book;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        book = BenchmarkFixtures.book(1);
+        user = BenchmarkFixtures.user(1);
+    }
+
+    @Benchmark
+    public BookDTO bookFromEntity() {
+        return BookDTO.fromBook(book);
+    }
+
+    @Benchmark
+    public UserDTO userFromEntity() {
+        return UserDTO.fromUser(user);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.CursorLibraryApplication;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.util.JwtUtil;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * 借阅记录与图书检索接口的HTTP压测：在随机端口启动完整应用（H2，MySQL模式），按 load.rows 生成数据集，
+ * 由 load.clients 个并发客户端各自循环发送请求，先预热 load.warmup 秒，再统计 load.seconds 秒内的吞吐量和延迟分布。
+ * <p>
+ * 命令行参数原样传给应用，用于对比不同的线程模型，例如：
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec@load-test -Dload.args="--load.clients=400"
+ * mvn -Pbenchmarks test-compile exec:exec@load-test -Dload.args="--datasource.limiter.enabled=true"
+ * mvn -Pbenchmarks,java21 test-compile exec:exec@load-test -Dload.args="--spring.profiles.include=virtual-threads"
+ * </pre>
+ * 连接池默认按生产配置设为10个连接。
+ */
+public final class EndpointLoadTest {
+
+    private static final String[] DEFAULT_ARGS = {
+            "--server.port=0",
+            "--spring.datasource.hikari.maximum-pool-size=10",
+            "--logging.level.root=WARN",
+            "--logging.level.com.example.cursorlibrary=WARN",
+            "--stats.reconcile-initial-delay=3600000"
+    };
+
+    private EndpointLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] runArgs = Stream.concat(Arrays.stream(DEFAULT_ARGS), Arrays.stream(args)).toArray(String[]::new);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CursorLibraryApplication.class)
+                .profiles("h2")
+                .run(runArgs)) {
+            Environment environment = context.getEnvironment();
+            int rows = environment.getProperty("load.rows", Integer.class, 100_000);
+            int clients = environment.getProperty("load.clients", Integer.class, 200);
+            int warmupSeconds = environment.getProperty("load.warmup", Integer.class, 5);
+            int seconds = environment.getProperty("load.seconds", Integer.class, 20);
+
+            BenchmarkFixtures.loadDataset(context.getBean(JdbcTemplate.class), rows);
+            context.getBean(BookSearchIndex.class).rebuild();
+            context.getBean(StatisticsService.class).reconcile();
+
+            int users = Math.max(10, rows / 100);
+            int books = Math.max(10, rows / 10);
+            JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+            String[] tokens = new String[Math.min(users, 100)];
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = jwtUtil.generateToken("reader" + (i + 1));
+            }
+            String baseUrl = "http://localhost:" + environment.getProperty("local.server.port");
+
+            System.out.printf("线程模型: %s, 数据源并发限制: %s, 连接池: %s, 并发客户端: %d, 借阅记录: %d 条%n",
+                    Threading.VIRTUAL.isActive(environment) ? "虚拟线程" : "平台线程",
+                    environment.getProperty("datasource.limiter.enabled", "false"),
+                    environment.getProperty("spring.datasource.hikari.maximum-pool-size"), clients, rows);
+
+            Map<String, IntFunction<String>> endpoints = new LinkedHashMap<>();
+            endpoints.put("借阅记录", n -> "/api/borrows?page=0&size=10");
+            endpoints.put("图书检索", n -> "/api/books?page=0&size=10&keyword="
+                    + URLEncoder.encode("图书" + (n % books + 1), StandardCharsets.UTF_8));
+            for (Map.Entry<String, IntFunction<String>> endpoint : endpoints.entrySet()) {
+                run(baseUrl, tokens, endpoint.getValue(), clients, warmupSeconds);
+                Result result = run(baseUrl, tokens, endpoint.getValue(), clients, seconds);
+                System.out.printf("%s: 请求 %d 次, 吞吐量 %.0f 次/秒, p50 %.1f ms, p99 %.1f ms, 最大 %.1f ms, 失败 %d 次%n",
+                        endpoint.getKey(), result.latencies.length, result.latencies.length / (double) seconds,
+                        result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors);
+            }
+        }
+    }
+
+    private static Result run(String baseUrl, String[] tokens, IntFunction<String> path, int clients, int seconds)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                futures.add(workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    int errors = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path.apply(random.nextInt(1 << 20))))
+                                .header("Authorization", "Bearer " + tokens[random.nextInt(tokens.length)])
+                                .timeout(Duration.ofSeconds(60))
+                                .GET()
+                                .build();
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors++;
+                            }
+                        } catch (Exception e) {
+                            errors++;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - begin;
+                    }
+                    return new Result(Arrays.copyOf(latencies, count), errors);
+                }));
+            }
+            Result total = new Result(new long[0], 0);
+            for (Future<Result> future : futures) {
+                total = total.merge(future.get());
+            }
+            Arrays.sort(total.latencies);
+            return total;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private record Result(long[] latencies, int errors) {
+
+        Result merge(Result other) {
+            long[] merged = Arrays.copyOf(latencies, latencies.length + other.latencies.length);
+            System.arraycopy(other.latencies, 0, merged, latencies.length, other.latencies.length);
+            return new Result(merged, errors + other.errors);
+        }
+
+        /**
+         * 已排序延迟的百分位（毫秒）
+         */
+        double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1);
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
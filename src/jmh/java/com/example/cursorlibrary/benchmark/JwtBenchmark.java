@@ -0,0 +1,65 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.util.JwtKeyring;
+import com.example.cursorlibrary.util.JwtUtil;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT生成、验证与解析用户名，按签名算法对比签发和验证的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtBenchmark {
+
+    @Param({"HS256", "RS256", "ES256"})
+    public String algorithm;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyring keyring;
+        if ("HS256".equals(algorithm)) {
+            keyring = JwtKeyring.hmac("k1", BenchmarkFixtures.JWT_SECRET);
+        } else {
+            keyring = new JwtKeyring();
+            keyring.generate("k1", SignatureAlgorithm.forName(algorithm));
+            keyring.activate("k1");
+        }
+        jwtUtil = new JwtUtil(keyring, BenchmarkFixtures.JWT_EXPIRATION);
+        token = jwtUtil.generateToken("reader1", "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("reader1", "USER");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+}
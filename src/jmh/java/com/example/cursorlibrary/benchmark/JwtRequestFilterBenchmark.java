@@ -0,0 +1,93 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.config.JwtRequestFilter;
+import com.example.cursorlibrary.config.PrincipalCache;
+import com.example.cursorlibrary.config.RouteClassifier;
+import com.example.cursorlibrary.config.UserDetailsServiceImpl;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.service.impl.TokenRevocationServiceImpl;
+import com.example.cursorlibrary.util.JwtKeyring;
+import com.example.cursorlibrary.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT过滤器完整处理一次带令牌的请求：解析令牌、加载用户、设置认证信息。
+ * cachePrincipal=false 时关闭认证主体缓存，每次请求都解析令牌；roleClaim=true 时令牌带角色声明，
+ * 直接由声明构造用户详情，否则每次查询用户。
+ * publicRequest 为公开路径的请求，只判断路径后直接放行。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtRequestFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cachePrincipal;
+
+    @Param({"true", "false"})
+    public boolean roleClaim;
+
+    private JwtRequestFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        User user = BenchmarkFixtures.user(1);
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyring.hmac("k1", BenchmarkFixtures.JWT_SECRET),
+                BenchmarkFixtures.JWT_EXPIRATION);
+        UserDetailsServiceImpl userDetailsService =
+                new UserDetailsServiceImpl(BenchmarkFixtures.inMemoryUserRepository(user));
+        PrincipalCache principalCache = new PrincipalCache(cachePrincipal ? 10000 : 0, 300000);
+        // 撤销名单为空时的检查开销；不访问数据库，不需要仓库和事务管理器
+        TokenRevocationServiceImpl tokenRevocationService =
+                new TokenRevocationServiceImpl(null, principalCache, null, BenchmarkFixtures.JWT_EXPIRATION, 100000);
+        filter = new JwtRequestFilter(jwtUtil, userDetailsService, principalCache, new RouteClassifier(),
+                tokenRevocationService);
+        authorization = "Bearer " + (roleClaim
+                ? jwtUtil.generateToken(user.getUsername(), user.getRole())
+                : jwtUtil.generateToken(user.getUsername()));
+    }
+
+    @Benchmark
+    public Authentication authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/borrows");
+        request.setServletPath("/api/borrows");
+        request.addHeader("Authorization", authorization);
+        request.addHeader("Accept", "application/json");
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Authentication publicRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stats/summary");
+        request.setServletPath("/api/stats/summary");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
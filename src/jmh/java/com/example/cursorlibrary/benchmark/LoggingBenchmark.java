@@ -0,0 +1,245 @@
+package com.example.cursorlibrary.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.example.cursorlibrary.config.JwtRequestFilter;
+import com.example.cursorlibrary.config.PrincipalCache;
+import com.example.cursorlibrary.config.RouteClassifier;
+import com.example.cursorlibrary.config.UserDetailsServiceImpl;
+import com.example.cursorlibrary.controller.BorrowController;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.logging.SamplingTurboFilter;
+import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.service.impl.TokenRevocationServiceImpl;
+import com.example.cursorlibrary.util.JwtKeyring;
+import com.example.cursorlibrary.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志开销：JWT过滤器加借阅记录列表接口（服务层为内存桩）处理一次请求，日志经异步队列写入文件。
+ * logging=INFO 为线上默认级别；DEBUG 打开本项目的DEBUG日志；DEBUG_SAMPLED 同时按 1/100 采样。
+ * STDOUT 为改用日志框架之前的基线：日志级别同 INFO，另外按原来的过滤器和控制器代码逐行
+ * System.out.println 同样的内容（认证主体缓存命中，不包括加载用户时的输出），标准输出重定向到 target/jmh-stdout.log。
+ * 结束时输出写入的字节数，日志文件为 target/jmh-logging.log。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoggingBenchmark {
+
+    private static final String LOG_FILE = "target/jmh-logging.log";
+    private static final String STDOUT_FILE = "target/jmh-stdout.log";
+    private static final String APP_LOGGER = "com.example.cursorlibrary";
+
+    @Param({"STDOUT", "INFO", "DEBUG", "DEBUG_SAMPLED"})
+    public String logging;
+
+    private JwtRequestFilter filter;
+    private BorrowController controller;
+    private String authorization;
+    private Page<BorrowRecordDTO> page;
+    private boolean stdout;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws IOException {
+        configureLogging();
+        stdout = logging.equals("STDOUT");
+        if (stdout) {
+            // 与JVM的标准输出相同：带缓冲的输出流，每次 println 后刷新
+            originalOut = System.out;
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(STDOUT_FILE)), true,
+                    StandardCharsets.UTF_8));
+        }
+
+        User user = BenchmarkFixtures.user(1);
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyring.hmac("k1", BenchmarkFixtures.JWT_SECRET),
+                BenchmarkFixtures.JWT_EXPIRATION);
+        PrincipalCache principalCache = new PrincipalCache(10000, 300000);
+        filter = new JwtRequestFilter(jwtUtil,
+                new UserDetailsServiceImpl(BenchmarkFixtures.inMemoryUserRepository(user)), principalCache,
+                new RouteClassifier(),
+                new TokenRevocationServiceImpl(null, principalCache, null, BenchmarkFixtures.JWT_EXPIRATION, 100000));
+        List<BorrowRecordDTO> records = BenchmarkFixtures.borrowRecords(10);
+        page = new PageImpl<>(records, PageRequest.of(0, records.size()), 1000);
+        controller = new BorrowController(borrowService(page), null);
+        authorization = "Bearer " + jwtUtil.generateToken(user.getUsername(), user.getRole());
+    }
+
+    @TearDown
+    public void tearDown() {
+        // 停止异步队列，等待剩余日志写完
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        if (stdout) {
+            System.out.close();
+            System.setOut(originalOut);
+            System.out.println("标准输出写入: " + new File(STDOUT_FILE).length() + " 字节");
+        }
+        System.out.println("日志写入: " + new File(LOG_FILE).length() + " 字节");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResponseEntity<?> request() throws Exception {
+        return handle();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResponseEntity<?> concurrentRequests() throws Exception {
+        return handle();
+    }
+
+    private ResponseEntity<?> handle() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/borrows");
+        request.setServletPath("/api/borrows");
+        request.addHeader("Authorization", authorization);
+        try {
+            if (stdout) {
+                printFilterTrace(request);
+            }
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            });
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            ResponseEntity<?> response = controller.getBorrows(null, 0, 10, authentication);
+            if (stdout) {
+                printControllerTrace(authentication);
+            }
+            return response;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * 原 JwtRequestFilter 对每个需要验证的请求输出的内容
+     */
+    private static void printFilterTrace(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        System.out.println("请求方法: " + request.getMethod() + ", 请求路径: " + path);
+        System.out.println("JWT过滤器处理: 需要验证 - " + path);
+        System.out.println("请求头信息:");
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            System.out.println("  " + headerName + ": " + request.getHeader(headerName));
+        }
+        String authHeader = request.getHeader("Authorization");
+        System.out.println("Authorization头: " + (authHeader != null ? "存在" : "不存在"));
+    }
+
+    /**
+     * 原 JwtRequestFilter 验证成功后和原 BorrowController.getBorrows 输出的内容
+     */
+    private void printControllerTrace(Authentication authentication) {
+        System.out.println("从JWT提取的用户名: " + authentication.getName());
+        System.out.println("JWT验证成功，已设置认证信息");
+        System.out.println("获取借阅记录请求 - 用户: " + authentication.getName() + ", 状态: " + null
+                + ", 页码: " + 0 + ", 大小: " + 10);
+        System.out.println("未提供状态过滤条件，将返回所有状态的记录");
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        System.out.println("用户角色是否为管理员: " + isAdmin);
+        System.out.println("普通用户获取个人借阅记录, 总数: " + page.getTotalElements()
+                + ", 当前页数据量: " + page.getContent().size());
+        System.out.println("首条记录示例: " + page.getContent().get(0));
+        System.out.println("记录状态: " + page.getContent().get(0).getStatus());
+    }
+
+    /**
+     * 与 logback-spring.xml 相同的结构：文件输出外包一层异步队列（队列满时丢弃，不阻塞请求线程）
+     */
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSS} %5p [%X{requestId:-}] [%X{user:-}] [%t] %logger{39} : %m%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(LOG_FILE);
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.addAppender(file);
+        async.start();
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(async);
+        if (!logging.equals("INFO")) {
+            context.getLogger(APP_LOGGER).setLevel(Level.DEBUG);
+        }
+        if (logging.equals("DEBUG_SAMPLED")) {
+            SamplingTurboFilter sampling = new SamplingTurboFilter();
+            sampling.setContext(context);
+            sampling.setLoggers(APP_LOGGER);
+            sampling.setRate(100);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+    }
+
+    private static BorrowService borrowService(Page<BorrowRecordDTO> page) {
+        return (BorrowService) Proxy.newProxyInstance(
+                LoggingBenchmark.class.getClassLoader(),
+                new Class<?>[]{BorrowService.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getBorrows") || method.getName().equals("getAllBorrows")) {
+                        return page;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.config.SecurityConfig;
+import com.example.cursorlibrary.config.UserDetailsServiceImpl;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.service.impl.LoginServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录高峰：16 个客户端并发登录，密码校验在登录线程池（CPU核数个线程）中执行。
+ * 同时输出吞吐量（次/秒）和延迟分布（含排队时间），strength 为 bcrypt 强度，
+ * 例如 -p strength=12 查看调高强度后的登录容量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "123456";
+
+    @Param({"10"})
+    public int strength;
+
+    private ThreadPoolTaskExecutor executor;
+    private LoginServiceImpl loginService;
+    private String username;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder encoder = SecurityConfig.delegatingPasswordEncoder(strength);
+        User user = BenchmarkFixtures.user(1);
+        user.setPassword(encoder.encode(PASSWORD));
+        username = user.getUsername();
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+        provider.setUserDetailsService(new UserDetailsServiceImpl(BenchmarkFixtures.inMemoryUserRepository(user)));
+
+        executor = new ThreadPoolTaskExecutor();
+        int threads = Runtime.getRuntime().availableProcessors();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("login-");
+        executor.initialize();
+        loginService = new LoginServiceImpl(new ProviderManager(provider), executor, 60000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Authentication login() {
+        return loginService.authenticate(username, PASSWORD).join();
+    }
+}
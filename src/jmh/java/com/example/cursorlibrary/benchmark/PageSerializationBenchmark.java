@@ -0,0 +1,51 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 借阅记录分页结果的JSON序列化（与 GET /api/borrows 的响应体相同）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PageSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<BorrowRecordDTO> page;
+
+    @Setup
+    public void setUp() {
+        // 与Spring Boot默认配置一致（注册JavaTimeModule等模块）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = new PageImpl<>(BenchmarkFixtures.borrowRecords(pageSize), PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializeBorrowPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.config.RouteClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求判断访问级别的开销：前缀树一次匹配，对比原来过滤器按前缀逐个比较排除列表、
+ * 授权规则再按路径模式逐条匹配的做法。加 -prof gc 可查看每次判断分配的内存。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RouteClassifierBenchmark {
+
+    private static final List<String> EXCLUDED_PATHS = List.of(
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/public",
+            "/api/stats",
+            "/api/statistics",
+            "/api/admin/maintenance/test");
+
+    @Param({"/api/auth/login", "/api/borrows/scroll", "/api/admin/maintenance/jobs"})
+    public String path;
+
+    private RouteClassifier classifier;
+    private List<RequestMatcher> permitRules;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        classifier = new RouteClassifier();
+        permitRules = List.of(
+                new AntPathRequestMatcher("/api/auth/**"),
+                new AntPathRequestMatcher("/api/public/**"),
+                new AntPathRequestMatcher("/api/stats/**"),
+                new AntPathRequestMatcher("/api/statistics/**"),
+                new AntPathRequestMatcher("/api/admin/maintenance/test"));
+        request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+    }
+
+    @Benchmark
+    public RouteClassifier.Access routeClassifier() {
+        return classifier.classify(request);
+    }
+
+    @Benchmark
+    public boolean excludedPathsAndPermitRules() {
+        String uri = request.getRequestURI();
+        boolean excluded = EXCLUDED_PATHS.stream().anyMatch(uri::startsWith);
+        for (RequestMatcher rule : permitRules) {
+            if (rule.matches(request)) {
+                return true;
+            }
+        }
+        return excluded;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.cursorlibrary.benchmark;
+
+import com.example.cursorlibrary.CursorLibraryApplication;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.dto.CursorPage;
+import com.example.cursorlibrary.dto.UserDTO;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务层查询：在嵌入式H2（MySQL模式）上启动完整的应用上下文，按 rows 生成借阅记录数据集
+ * （见 {@link BenchmarkFixtures#loadDataset}）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BorrowService borrowService;
+    private UserService userService;
+    private StatisticsService statisticsService;
+    private int deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CursorLibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .run("--logging.level.root=WARN",
+                        "--logging.level.com.example.cursorlibrary=WARN",
+                        "--stats.reconcile-initial-delay=3600000");
+        bookService = context.getBean(BookService.class);
+        borrowService = context.getBean(BorrowService.class);
+        userService = context.getBean(UserService.class);
+        statisticsService = context.getBean(StatisticsService.class);
+
+        BenchmarkFixtures.loadDataset(context.getBean(JdbcTemplate.class), rows);
+        // 数据直接写入数据库，需要重建检索索引并校准统计计数
+        context.getBean(BookSearchIndex.class).rebuild();
+        statisticsService.reconcile();
+        deepPage = rows / 20;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findBooksByKeyword() {
+        return bookService.findBooks("图书12", 0, 10);
+    }
+
+    @Benchmark
+    public Page<BorrowRecordDTO> getAllBorrowsFirstPage() {
+        return borrowService.getAllBorrows(null, PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<BorrowRecordDTO> getAllBorrowsDeepPage() {
+        return borrowService.getAllBorrows(null, PageRequest.of(deepPage, 10));
+    }
+
+    @Benchmark
+    public CursorPage<BorrowRecordDTO> scrollAllBorrows() {
+        return borrowService.scrollAllBorrows("BORROWED", null, 10);
+    }
+
+    @Benchmark
+    public Page<BorrowRecordDTO> getUserBorrows() {
+        return borrowService.getBorrows("reader1", null, PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<UserDTO> findUsersWithBorrowCounts() {
+        return userService.findUsersWithBorrowCounts(null, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Map<String, Object> getStatistics() {
+        return statisticsService.getStatistics();
+    }
+}
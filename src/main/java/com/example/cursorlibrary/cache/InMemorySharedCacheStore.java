@@ -0,0 +1,49 @@
+package com.example.cursorlibrary.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的共享缓存替身：单机部署或本地开发时代替 Redis 等外部存储。
+ * 与真正的共享存储一样只保存字节副本，读取时重新反序列化，调用方拿到的对象互不影响。
+ */
+public class InMemorySharedCacheStore implements SharedCacheStore {
+
+    private record Entry(byte[] value, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public void evict(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void evictByPrefix(String prefix) {
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
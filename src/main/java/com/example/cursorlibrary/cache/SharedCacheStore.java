@@ -0,0 +1,24 @@
+package com.example.cursorlibrary.cache;
+
+import java.time.Duration;
+
+/**
+ * 二级（共享）缓存存储，多个应用实例共用同一份数据。
+ * 值以序列化后的字节保存，接口与 Redis 的 GET/SET PX/DEL 语义对应，便于替换为真正的共享存储。
+ */
+public interface SharedCacheStore {
+
+    /**
+     * 读取缓存值，不存在或已过期时返回 null
+     */
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void evict(String key);
+
+    /**
+     * 删除指定前缀的全部键（清空某个缓存时使用）
+     */
+    void evictByPrefix(String prefix);
+}
@@ -0,0 +1,174 @@
+package com.example.cursorlibrary.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存：一级为进程内的 Caffeine 缓存（按容量和TTL淘汰），二级为可选的共享存储。
+ * <p>
+ * 读取时依次查一级、二级缓存，都未命中才加载。{@link #get(Object, Callable)}（对应 @Cacheable(sync = true)）
+ * 在一级缓存中按键合并并发加载，同一个键过期后只有一个线程访问二级缓存和数据库，其余线程等待其结果。
+ * 写入和失效同时作用于两级；其他实例的一级缓存只能等TTL到期，因此一级TTL应明显短于二级。
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final SharedCacheStore shared;
+    private final Duration sharedTtl;
+    private final String keyPrefix;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedMisses = new LongAdder();
+
+    /**
+     * @param local     一级缓存，需开启 recordStats 才有命中率统计
+     * @param shared    二级缓存，为 null 时只使用一级缓存
+     * @param sharedTtl 二级缓存中条目的有效期
+     */
+    public TwoLevelCache(String name, Cache<Object, Object> local, SharedCacheStore shared, Duration sharedTtl) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.sharedTtl = sharedTtl;
+        this.keyPrefix = name + "::";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = readShared(key);
+        if (value != null) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(local.get(key, k -> {
+            Object value = readShared(k);
+            if (value != null) {
+                return value;
+            }
+            try {
+                value = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+            writeShared(k, value);
+            return value;
+        }));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        local.put(key, storeValue);
+        writeShared(key, storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        if (shared != null) {
+            shared.evict(sharedKey(key));
+        }
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (shared != null) {
+            shared.evictByPrefix(keyPrefix);
+        }
+    }
+
+    /**
+     * 命中率等统计数据，一级缓存的统计来自 Caffeine
+     */
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = local.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", local.estimatedSize());
+        result.put("localHits", stats.hitCount());
+        result.put("localMisses", stats.missCount());
+        result.put("localHitRatio", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("loads", stats.loadCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        result.put("sharedEnabled", shared != null);
+        if (shared != null) {
+            long hits = sharedHits.sum();
+            long misses = sharedMisses.sum();
+            result.put("sharedHits", hits);
+            result.put("sharedMisses", misses);
+            result.put("sharedHitRatio", hits + misses == 0 ? 1.0 : (double) hits / (hits + misses));
+        }
+        // 任一级命中都不需要访问数据库
+        long requests = stats.requestCount();
+        long sharedHitCount = sharedHits.sum();
+        result.put("hitRatio", requests == 0 ? 1.0 : (double) (stats.hitCount() + sharedHitCount) / requests);
+        return result;
+    }
+
+    private Object readShared(Object key) {
+        if (shared == null) {
+            return null;
+        }
+        try {
+            byte[] bytes = shared.get(sharedKey(key));
+            if (bytes != null) {
+                sharedHits.increment();
+                return deserializer.convert(bytes);
+            }
+        } catch (RuntimeException e) {
+            // 共享存储不可用时退化为只使用一级缓存
+            log.warn("读取共享缓存 {} 失败: {}", sharedKey(key), e.getMessage());
+        }
+        sharedMisses.increment();
+        return null;
+    }
+
+    private void writeShared(Object key, Object value) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.put(sharedKey(key), serializer.convert(value), sharedTtl);
+        } catch (RuntimeException e) {
+            log.warn("写入共享缓存 {} 失败: {}", sharedKey(key), e.getMessage());
+        }
+    }
+
+    private String sharedKey(Object key) {
+        return keyPrefix + key;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cursorlibrary.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 两级缓存管理器，只提供预先配置的缓存。
+ * 开启事务感知，事务中的写入和失效在提交后才执行，避免回滚的数据进入缓存、或提交前被其他请求重新加载旧数据。
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    /**
+     * 单个缓存的配置
+     *
+     * @param maxSize   一级缓存最大条目数
+     * @param localTtl  一级缓存写入后的有效期
+     * @param sharedTtl 二级缓存中条目的有效期
+     */
+    public record Spec(long maxSize, Duration localTtl, Duration sharedTtl) {
+    }
+
+    private final Map<String, Spec> specs;
+    private final SharedCacheStore shared;
+
+    /**
+     * @param shared 二级缓存，为 null 时只使用一级缓存
+     */
+    public TwoLevelCacheManager(Map<String, Spec> specs, SharedCacheStore shared) {
+        this.specs = new LinkedHashMap<>(specs);
+        this.shared = shared;
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>(specs.size());
+        specs.forEach((name, spec) -> caches.add(new TwoLevelCache(name,
+                Caffeine.newBuilder()
+                        .maximumSize(spec.maxSize())
+                        .expireAfterWrite(spec.localTtl())
+                        .recordStats()
+                        .build(),
+                shared, spec.sharedTtl())));
+        return caches;
+    }
+
+    /**
+     * 各缓存的命中率统计，按缓存名称排列
+     */
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String name : getCacheNames()) {
+            Cache cache = getCache(name);
+            if (cache instanceof TransactionAwareCacheDecorator decorator) {
+                cache = decorator.getTargetCache();
+            }
+            if (cache instanceof TwoLevelCache twoLevelCache) {
+                result.put(name, twoLevelCache.getStatistics());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.cursorlibrary.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 后台任务线程池配置
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * 图书批量导入线程池，同时运行的导入任务数有限，超出的任务排队等待。
+     * 开启虚拟线程（Java 21 且 spring.threads.virtual.enabled=true）时工作线程改为虚拟线程，并发数和队列限制不变。
+     */
+    @Bean(name = "bookImportExecutor")
+    public ThreadPoolTaskExecutor bookImportExecutor(
+            @Value("${book-import.concurrency:1}") int concurrency,
+            @Value("${book-import.queue-capacity:10}") int queueCapacity,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("book-import-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("book-import-").getVirtualThreadFactory());
+        }
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 后台维护任务线程池（如异步删除大量借阅历史），同样限制并发数，避免维护任务挤占数据库连接
+     */
+    @Bean(name = "maintenanceExecutor")
+    public ThreadPoolTaskExecutor maintenanceExecutor(
+            @Value("${maintenance.concurrency:1}") int concurrency,
+            @Value("${maintenance.queue-capacity:100}") int queueCapacity,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("maintenance-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("maintenance-").getVirtualThreadFactory());
+        }
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 登录密码校验线程池。bcrypt 校验是纯CPU计算，线程数默认等于CPU核数，更多线程只会互相争抢CPU；
+     * 队列有界，队列满时立即拒绝，登录高峰时不占满请求线程、不拖慢其他接口。
+     * 计算密集型任务不使用虚拟线程。
+     */
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${security.login.concurrency:0}") int concurrency,
+            @Value("${security.login.queue-capacity:200}") int queueCapacity) {
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,10 +1,63 @@
 package com.example.cursorlibrary.config;
 
+import com.example.cursorlibrary.cache.InMemorySharedCacheStore;
+import com.example.cursorlibrary.cache.SharedCacheStore;
+import com.example.cursorlibrary.cache.TwoLevelCacheManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 图书目录缓存配置：一级为进程内缓存，二级为可选的共享缓存（cache.shared.enabled=true）。
+ * 未配置外部共享存储时使用进程内的替身实现。
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    // 如果需要可以添加自定义缓存配置
-} 
\ No newline at end of file
+
+    /**
+     * 按ID缓存的图书详情
+     */
+    public static final String BOOKS = "books";
+
+    /**
+     * 图书列表/检索结果的前几页（首页列表和热门关键词）
+     */
+    public static final String BOOK_PAGES = "bookPages";
+
+    /**
+     * 只缓存前几页，更深的翻页访问频率低，直接查询
+     */
+    public static final int HOT_PAGES = 3;
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(
+            ObjectProvider<SharedCacheStore> sharedCacheStore,
+            @Value("${cache.books.max-size:10000}") long booksMaxSize,
+            @Value("${cache.books.ttl:300000}") long booksTtl,
+            @Value("${cache.book-pages.max-size:1000}") long pagesMaxSize,
+            @Value("${cache.book-pages.ttl:60000}") long pagesTtl,
+            @Value("${cache.shared.ttl-multiplier:4}") int sharedTtlMultiplier) {
+        return new TwoLevelCacheManager(Map.of(
+                BOOKS, spec(booksMaxSize, booksTtl, sharedTtlMultiplier),
+                BOOK_PAGES, spec(pagesMaxSize, pagesTtl, sharedTtlMultiplier)),
+                sharedCacheStore.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.shared.enabled", havingValue = "true")
+    public SharedCacheStore sharedCacheStore() {
+        return new InMemorySharedCacheStore();
+    }
+
+    private static TwoLevelCacheManager.Spec spec(long maxSize, long ttlMillis, int sharedTtlMultiplier) {
+        return new TwoLevelCacheManager.Spec(maxSize, Duration.ofMillis(ttlMillis),
+                Duration.ofMillis(ttlMillis * Math.max(sharedTtlMultiplier, 1)));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.cursorlibrary.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源并发限制（datasource.limiter.enabled=true 时启用，virtual-threads 配置文件默认开启）
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfig {
+
+    /**
+     * 用 ConcurrencyLimitedDataSource 包装容器中的数据源。
+     * 许可数默认等于连接池大小，等待许可的超时时间默认与连接池的 connection-timeout 一致。
+     */
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int maxConcurrency = environment.getProperty("datasource.limiter.max-concurrency", Integer.class, poolSize);
+                long acquireTimeout = environment.getProperty("datasource.limiter.acquire-timeout", Long.class,
+                        environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L));
+                log.info("数据源 {} 启用并发限制: 最多 {} 个线程同时持有连接，等待超时 {} ms",
+                        beanName, maxConcurrency, acquireTimeout);
+                return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, acquireTimeout);
+            }
+        };
+    }
+}
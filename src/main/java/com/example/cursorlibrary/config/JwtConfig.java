@@ -0,0 +1,91 @@
+package com.example.cursorlibrary.config;
+
+import com.example.cursorlibrary.util.JwtKeyring;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JWT签名密钥配置。
+ * <p>
+ * HS256 使用共享密钥 jwt.secret，所有节点都能签发和验证令牌；RS256/ES256 使用公私钥对，
+ * 只有配置了私钥的节点能签发令牌，其他节点配置公钥即可验证。轮换密钥时配置新的 jwt.key-id 和密钥，
+ * 旧公钥移到 jwt.verification-keys 中，保留到旧令牌全部过期。
+ */
+@Slf4j
+@Configuration
+public class JwtConfig {
+
+    @Bean
+    public JwtKeyring jwtKeyring(
+            @Value("${jwt.secret:5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437}") String secret,
+            @Value("${jwt.algorithm:HS256}") String algorithmName,
+            @Value("${jwt.key-id:k1}") String keyId,
+            @Value("${jwt.private-key:}") String privateKey,
+            @Value("${jwt.public-key:}") String publicKey,
+            @Value("${jwt.verification-keys:}") String verificationKeys) {
+        SignatureAlgorithm algorithm = algorithm(algorithmName);
+        JwtKeyring keyring;
+        if (algorithm == SignatureAlgorithm.HS256) {
+            // 启用密钥环之前签发的令牌没有 kid，按共享密钥验证
+            keyring = JwtKeyring.hmac(keyId, secret);
+        } else {
+            keyring = new JwtKeyring();
+            if (privateKey.isBlank() && publicKey.isBlank()) {
+                keyring.generate(keyId, algorithm);
+                keyring.activate(keyId);
+                log.warn("未配置 {} 密钥，已生成临时密钥对，重启后此前签发的令牌全部失效", algorithm);
+            } else if (publicKey.isBlank()) {
+                throw new RuntimeException("jwt.private-key 需要同时配置对应的 jwt.public-key");
+            } else {
+                keyring.add(new JwtKeyring.SigningKey(keyId, algorithm,
+                        privateKey.isBlank() ? null : JwtKeyring.decodePrivateKey(algorithm, privateKey),
+                        JwtKeyring.decodePublicKey(algorithm, publicKey)));
+                if (privateKey.isBlank()) {
+                    log.info("JWT密钥 {} 只有公钥，本节点只验证令牌、不签发令牌", keyId);
+                } else {
+                    keyring.activate(keyId);
+                }
+            }
+        }
+        addVerificationKeys(keyring, verificationKeys);
+        log.info("JWT签名算法: {}，当前密钥: {}，可验证的密钥: {}", algorithm, keyId, keyring.keyIds());
+        return keyring;
+    }
+
+    /**
+     * 解析 kid:算法:Base64公钥，多个之间用逗号分隔
+     */
+    private static void addVerificationKeys(JwtKeyring keyring, String verificationKeys) {
+        for (String entry : verificationKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":", 3);
+            if (parts.length != 3) {
+                throw new RuntimeException("jwt.verification-keys 格式应为 kid:算法:公钥，实际为: " + entry);
+            }
+            SignatureAlgorithm algorithm = algorithm(parts[1]);
+            if (algorithm.isHmac()) {
+                throw new RuntimeException("jwt.verification-keys 只能配置公钥，不支持 " + algorithm);
+            }
+            keyring.add(new JwtKeyring.SigningKey(parts[0], algorithm, null,
+                    JwtKeyring.decodePublicKey(algorithm, parts[2])));
+        }
+    }
+
+    private static SignatureAlgorithm algorithm(String name) {
+        try {
+            SignatureAlgorithm algorithm = SignatureAlgorithm.forName(name.trim());
+            if (algorithm == SignatureAlgorithm.HS256 || algorithm == SignatureAlgorithm.RS256
+                    || algorithm == SignatureAlgorithm.ES256) {
+                return algorithm;
+            }
+        } catch (RuntimeException e) {
+            // 统一报错
+        }
+        throw new RuntimeException("不支持的JWT签名算法: " + name + "，可选: HS256, RS256, ES256");
+    }
+}
@@ -1,65 +1,52 @@
 package com.example.cursorlibrary.config;
 
+import com.example.cursorlibrary.service.TokenRevocationService;
 import com.example.cursorlibrary.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
-    
-    // 不需要验证的路径
-    private final List<String> excludedPaths = Arrays.asList(
-        "/api/auth/login", 
-        "/api/auth/register",
-        "/api/public",
-        "/api/stats",
-        "/api/statistics",
-        "/api/admin/maintenance/test"  // 添加系统维护测试接口
-    );
+    private final PrincipalCache principalCache;
+    private final RouteClassifier routeClassifier;
+    private final TokenRevocationService tokenRevocationService;
 
+    /**
+     * 预检请求和公开路径不解析令牌；公开路径与授权规则使用同一个 {@link RouteClassifier}
+     */
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
-        String path = request.getRequestURI();
-        String method = request.getMethod();
-        System.out.println("请求方法: " + method + ", 请求路径: " + path);
-        
-        // 检查是否是OPTIONS请求（预检请求）
-        if (method.equals("OPTIONS")) {
-            System.out.println("这是OPTIONS预检请求，不进行JWT验证");
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
             return true;
         }
-        
-        boolean shouldExclude = excludedPaths.stream()
-            .anyMatch(excludedPath -> path.startsWith(excludedPath));
-            
-        // 添加调试信息
-        System.out.println("JWT过滤器处理: " + (shouldExclude ? "排除" : "需要验证") + " - " + path);
-        
-        // 打印请求头信息，帮助调试
-        System.out.println("请求头信息:");
-        java.util.Enumeration<String> headerNames = request.getHeaderNames();
-        while (headerNames.hasMoreElements()) {
-            String headerName = headerNames.nextElement();
-            System.out.println("  " + headerName + ": " + request.getHeader(headerName));
+        boolean shouldExclude = routeClassifier.classify(request) == RouteClassifier.Access.PUBLIC;
+        if (log.isTraceEnabled()) {
+            log.trace("JWT过滤器处理: {} {} - {}", request.getMethod(), request.getRequestURI(),
+                    shouldExclude ? "排除" : "需要验证");
         }
-        
         return shouldExclude;
     }
 
@@ -67,39 +54,53 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        System.out.println("Authorization头: " + (authHeader != null ? "存在" : "不存在"));
 
-        String username = null;
-        String jwt = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
-                System.out.println("从JWT提取的用户名: " + username);
-            } catch (Exception e) {
-                System.out.println("JWT解析失败: " + e.getMessage());
-            }
-        }
-
-        // 如果找到token且security上下文中没有认证信息
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(jwt)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    System.out.println("JWT验证成功，已设置认证信息");
-                } else {
-                    System.out.println("JWT验证失败");
+                // 缓存命中：令牌此前已验证通过，直接使用缓存的用户详情
+                UserDetails userDetails = principalCache.get(jwt);
+                if (userDetails == null) {
+                    // 未命中：解析一次令牌（验证签名和过期时间），再得到用户详情
+                    long generation = principalCache.currentGeneration();
+                    Claims claims = jwtUtil.extractAllClaims(jwt);
+                    // 撤销名单只在内存中检查；撤销生效时会移出缓存，缓存命中的令牌无需再检查。
+                    // 角色、状态变更都会按用户撤销此前签发的令牌，通过检查的令牌签发于最近一次变更之后
+                    if (tokenRevocationService.isRevoked(claims.getId(), claims.getSubject(), JwtUtil.issuedAt(claims))) {
+                        throw new RuntimeException("令牌已撤销");
+                    }
+                    userDetails = loadPrincipal(claims);
+                    if (!userDetails.isEnabled()) {
+                        throw new RuntimeException("用户已禁用");
+                    }
+                    principalCache.put(jwt, userDetails, claims.getExpiration(), generation);
                 }
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                MDC.put(RequestIdFilter.MDC_USER, userDetails.getUsername());
+                log.trace("JWT验证成功: {}", userDetails.getUsername());
             } catch (Exception e) {
-                System.out.println("用户详情加载失败: " + e.getMessage());
+                log.debug("JWT验证失败: {} {}, 原因: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
             }
         }
         
         chain.doFilter(request, response);
     }
+
+    /**
+     * 令牌带有角色声明时直接由声明构造用户详情，不查询数据库；没有角色声明的旧令牌按用户名加载。
+     * 调用前令牌已通过撤销检查：按用户撤销的截止时间持久化在 revoked_tokens 表中，重启后和其他节点同样生效，
+     * 签发后用户的角色或状态不可能再变更过，声明中的角色就是当前角色
+     */
+    private UserDetails loadPrincipal(Claims claims) {
+        String username = claims.getSubject();
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        if (role != null) {
+            return new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+        return userDetailsService.loadUserByUsername(username);
+    }
 } 
\ No newline at end of file
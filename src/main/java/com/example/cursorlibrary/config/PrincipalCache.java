@@ -0,0 +1,126 @@
+package com.example.cursorlibrary.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已认证主体缓存
+ * 以JWT字符串为键缓存已验证通过的用户详情和权限，命中时无需再解析签名或查询数据库。
+ * 基于 Caffeine：超出容量时按访问频率淘汰，条目在令牌过期或TTL到期时失效，令牌被撤销时按用户名主动移除。
+ * 角色声明是否可信由持久化的撤销名单决定（见 TokenRevocationService），这里不记录失效时间。
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(String username, UserDetails userDetails, long expiresAt) {
+    }
+
+    private final Cache<String, Entry> entries;
+    // 每次失效操作递增，用于丢弃失效前开始加载、失效后才写入的旧数据
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxSize;
+    private final long ttlMillis;
+
+    @Autowired
+    public PrincipalCache(
+            @Value("${security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${security.principal-cache.ttl:300000}") long ttlMillis) {
+        this(maxSize, ttlMillis, Ticker.systemTicker());
+    }
+
+    PrincipalCache(int maxSize, long ttlMillis, Ticker ticker) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // 每个条目的存活时间在写入时按令牌过期时间计算
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * 查询缓存，过期条目视为未命中
+     */
+    public UserDetails get(String token) {
+        Entry entry = entries.getIfPresent(token);
+        return entry == null ? null : entry.userDetails();
+    }
+
+    /**
+     * 加载用户前获取当前代数，写入时用于判断期间是否发生过失效
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 写入缓存，有效期取令牌过期时间与TTL中较早者
+     */
+    public void put(String token, UserDetails userDetails, Date tokenExpiration, long loadedGeneration) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        // 缓存中不保留密码
+        if (userDetails instanceof CredentialsContainer credentials) {
+            credentials.eraseCredentials();
+        }
+        entries.put(token, new Entry(userDetails.getUsername(), userDetails, expiresAt));
+        if (generation.get() != loadedGeneration) {
+            // 加载期间有用户被失效，保守起见丢弃本次写入
+            entries.invalidate(token);
+        }
+    }
+
+    /**
+     * 移除某个用户的全部缓存条目（令牌被撤销时调用，包括角色、状态变更和删除用户）
+     */
+    public void evictUser(String username) {
+        generation.incrementAndGet();
+        entries.asMap().values().removeIf(entry -> entry.username().equals(username));
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+    }
+
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.cursorlibrary.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 按请求路径判断访问级别。
+ * <p>
+ * JWT过滤器（公开路径不解析令牌）和 Spring Security 的授权规则共用这里的规则，两边不会不一致。
+ * 规则在启动时编译成按路径段索引的前缀树，匹配时在原路径字符串上逐段比较，不截取子串、不创建对象。
+ * <p>
+ * 规则写法：/a/b 精确匹配；/a/** 匹配 /a 及其下的所有路径。多条规则都能匹配时，匹配的路径段越多越优先，
+ * 同一路径上精确匹配优先于 /**；没有规则匹配的路径需要登录。
+ */
+@Component
+public class RouteClassifier {
+
+    public enum Access {
+        // 不需要登录，也不解析令牌
+        PUBLIC,
+        // 不需要登录，携带令牌时解析，由接口自行处理未登录的情况
+        OPTIONAL,
+        AUTHENTICATED,
+        ADMIN
+    }
+
+    private static final String SUBTREE = "/**";
+
+    private final Node root = new Node();
+
+    public RouteClassifier() {
+        // 允许所有人访问的路径
+        add("/api/auth/**", Access.PUBLIC);
+        add("/api/auth/user-info", Access.OPTIONAL);
+        add("/api/public/**", Access.PUBLIC);
+        add("/api/stats/**", Access.PUBLIC);
+        add("/api/statistics/**", Access.PUBLIC);
+        // 特别允许系统维护测试接口无需认证
+        add("/api/admin/maintenance/test", Access.PUBLIC);
+        // 管理接口只允许管理员访问（控制器上的 @PreAuthorize 仍然保留）
+        add("/api/admin/**", Access.ADMIN);
+    }
+
+    /**
+     * 以应用内路径（servletPath + pathInfo，已解码）判断，与 Spring Security 的路径匹配保持一致
+     */
+    public Access classify(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null) {
+            return classify(servletPath);
+        }
+        return classify(servletPath.isEmpty() ? pathInfo : servletPath + pathInfo);
+    }
+
+    public Access classify(String path) {
+        Node node = root;
+        Access matched = Access.AUTHENTICATED;
+        int length = path.length();
+        int start = 0;
+        while (true) {
+            if (node.subtree != null) {
+                matched = node.subtree;
+            }
+            if (start == length) {
+                return node.exact != null ? node.exact : matched;
+            }
+            if (path.charAt(start) != '/') {
+                return matched;
+            }
+            int end = path.indexOf('/', start + 1);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.child(path, start + 1, end - start - 1);
+            if (node == null) {
+                return matched;
+            }
+            start = end;
+        }
+    }
+
+    void add(String pattern, Access access) {
+        boolean subtree = pattern.endsWith(SUBTREE);
+        String path = subtree ? pattern.substring(0, pattern.length() - SUBTREE.length()) : pattern;
+        if ((!path.isEmpty() && !path.startsWith("/")) || path.contains("*")) {
+            throw new IllegalArgumentException("不支持的路径规则: " + pattern);
+        }
+        Node node = root;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.childOrCreate(segment);
+            }
+        }
+        if (subtree) {
+            node.subtree = access;
+        } else {
+            node.exact = access;
+        }
+    }
+
+    /**
+     * 前缀树节点：子节点很少（每层几个路径段），按数组顺序比较即可
+     */
+    private static final class Node {
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private Access exact;
+        private Access subtree;
+
+        Node child(String path, int offset, int length) {
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.length() == length && path.regionMatches(offset, segment, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(String segment) {
+            Node child = child(segment, 0, segment.length());
+            if (child == null) {
+                child = new Node();
+                segments = Arrays.copyOf(segments, segments.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                segments[segments.length - 1] = segment;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
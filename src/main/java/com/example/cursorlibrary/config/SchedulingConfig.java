@@ -0,0 +1,10 @@
+package com.example.cursorlibrary.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // 启用定时任务（统计计数校准、借阅记录归档、逾期检查、令牌撤销名单同步、最后登录时间批量写入等）
+}
@@ -0,0 +1,168 @@
+package com.example.cursorlibrary.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 版本化的数据库迁移：启动时按版本号顺序执行 db/migration 下尚未执行过的 V{版本}__{说明}.sql，
+ * 执行结果记录在 schema_version 表中，已执行的版本不会重复执行。
+ * <p>
+ * init.sql 是全新数据库的基线结构和初始数据，只在库中还没有 users 表时先执行一次（spring.sql.init.mode=never，
+ * 不再每次启动执行）；已有数据的数据库不执行 init.sql，只执行新增的迁移脚本。
+ * 已执行的脚本不要再修改，结构变更一律新增版本。
+ * H2 测试库按实体定义建表，不执行迁移（schema.migration.enabled=false）。
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(name = "schema.migration.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrator {
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String locations;
+    private final Resource baseline;
+
+    private record Migration(int version, String description, Resource script) {
+    }
+
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${schema.migration.locations:classpath:db/migration}") String locations,
+                          @Value("${schema.baseline.location:classpath:init.sql}") Resource baseline) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.locations = locations;
+        this.baseline = baseline;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        applyBaselineIfEmpty();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "checksum BIGINT NOT NULL, " +
+                "execution_millis BIGINT NOT NULL, " +
+                "installed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM schema_version",
+                rs -> { applied.put(rs.getInt("version"), rs.getLong("checksum")); });
+
+        int executed = 0;
+        for (Migration migration : findMigrations()) {
+            long checksum = checksum(migration.script());
+            Long appliedChecksum = applied.get(migration.version());
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    log.warn("迁移脚本 V{} 在执行后被修改过，修改不会生效，请新增版本", migration.version());
+                }
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            log.info("执行数据库迁移 V{}: {}", migration.version(), migration.description());
+            // MySQL 的 DDL 会隐式提交，脚本中途失败时需要人工处理后再重启，因此失败时立即中止启动
+            try (Connection connection = dataSource.getConnection()) {
+                ScriptUtils.executeSqlScript(connection, migration.script());
+            } catch (SQLException | RuntimeException e) {
+                throw new RuntimeException("数据库迁移 V" + migration.version() + " 执行失败: " + e.getMessage(), e);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            jdbcTemplate.update("INSERT INTO schema_version (version, description, checksum, execution_millis) " +
+                    "VALUES (?, ?, ?, ?)", migration.version(), migration.description(), checksum, elapsed);
+            log.info("数据库迁移 V{} 完成，耗时 {} ms", migration.version(), elapsed);
+            executed++;
+        }
+        log.info("数据库结构检查完成，本次执行 {} 个迁移脚本", executed);
+    }
+
+    /**
+     * 库中还没有 users 表时执行基线脚本建表并写入初始数据，之后由迁移脚本升级到最新结构
+     */
+    private void applyBaselineIfEmpty() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (tableExists(connection, "users")) {
+                return;
+            }
+            log.info("数据库为空，执行基线脚本: {}", baseline.getFilename());
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(baseline, StandardCharsets.UTF_8),
+                    false, true, ScriptUtils.DEFAULT_COMMENT_PREFIX, ScriptUtils.DEFAULT_STATEMENT_SEPARATOR,
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+        } catch (SQLException | RuntimeException e) {
+            throw new RuntimeException("执行基线脚本 " + baseline.getFilename() + " 失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        // 只查当前库（H2 的 INFORMATION_SCHEMA 中也有 USERS 表）
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), name,
+                new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private List<Migration> findMigrations() {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(locations + "/V*__*.sql");
+        } catch (IOException e) {
+            throw new RuntimeException("读取迁移脚本失败: " + e.getMessage(), e);
+        }
+        List<Migration> migrations = new ArrayList<>();
+        Map<Integer, String> names = new HashMap<>();
+        for (Resource resource : resources) {
+            Matcher matcher = SCRIPT_NAME.matcher(String.valueOf(resource.getFilename()));
+            if (!matcher.matches()) {
+                throw new RuntimeException("迁移脚本命名不符合 V{版本}__{说明}.sql: " + resource.getFilename());
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String previous = names.put(version, resource.getFilename());
+            if (previous != null) {
+                throw new RuntimeException("迁移脚本版本重复: " + previous + ", " + resource.getFilename());
+            }
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), resource));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private static long checksum(Resource script) {
+        CRC32 crc = new CRC32();
+        try (InputStream in = script.getInputStream()) {
+            crc.update(in.readAllBytes());
+        } catch (IOException e) {
+            throw new RuntimeException("读取迁移脚本失败: " + script.getFilename(), e);
+        }
+        return crc.getValue();
+    }
+}
@@ -1,35 +1,55 @@
 package com.example.cursorlibrary.config;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
+@Slf4j
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
     private final JwtRequestFilter jwtRequestFilter;
+    private final RouteClassifier routeClassifier;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        System.out.println("配置安全过滤链");
-        
+        log.debug("配置安全过滤链");
+
         http
             // 禁用CSRF保护
             .csrf(csrf -> csrf.disable())
@@ -38,26 +58,37 @@ public class SecurityConfig {
             // 配置会话管理 - 使用无状态会话（不使用session）
             .sessionManagement(session -> 
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            // 配置请求授权
-            .authorizeHttpRequests(auth -> {
-                System.out.println("配置请求授权规则");
-                auth
-                    // 允许所有人访问的路径
-                    .requestMatchers("/api/auth/**").permitAll()
-                    .requestMatchers("/api/public/**").permitAll()
-                    .requestMatchers("/api/stats/**").permitAll()
-                    .requestMatchers("/api/statistics/**").permitAll()
-                    // 特别允许系统维护测试接口无需认证
-                    .requestMatchers("/api/admin/maintenance/test").permitAll()
-                    // 其余请求需要认证
-                    .anyRequest().authenticated();
-            })
+            // 配置请求授权：路径规则见 RouteClassifier，与JWT过滤器共用
+            .authorizeHttpRequests(auth -> auth.anyRequest().access(this::authorize))
             // 添加JWT过滤器 - 在用户名密码认证过滤器之前
             .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
 
+    /**
+     * 按路径的访问级别授权，一次前缀树匹配即可得到结果
+     */
+    private AuthorizationDecision authorize(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        RouteClassifier.Access access = routeClassifier.classify(context.getRequest());
+        if (access == RouteClassifier.Access.PUBLIC || access == RouteClassifier.Access.OPTIONAL) {
+            return GRANTED;
+        }
+        Authentication current = authentication.get();
+        if (!trustResolver.isAuthenticated(current)) {
+            return DENIED;
+        }
+        if (access == RouteClassifier.Access.AUTHENTICATED) {
+            return GRANTED;
+        }
+        for (GrantedAuthority authority : current.getAuthorities()) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+                return GRANTED;
+            }
+        }
+        return DENIED;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -66,11 +97,11 @@ public class SecurityConfig {
         // 允许的HTTP方法
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         // 允许的HTTP头
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "If-None-Match"));
         // 允许发送凭证
         configuration.setAllowCredentials(true);
         // 暴露的响应头
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition", "ETag", RequestIdFilter.HEADER));
         // 缓存时间
         configuration.setMaxAge(3600L);
         
@@ -80,8 +111,21 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return org.springframework.security.crypto.password.NoOpPasswordEncoder.getInstance();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        return delegatingPasswordEncoder(strength);
+    }
+
+    /**
+     * 新密码使用 bcrypt（{bcrypt} 前缀）；没有前缀的旧密码按明文比较，登录成功后自动升级为 bcrypt，
+     * 调高强度后，较低强度的哈希同样在登录时升级
+     */
+    public static PasswordEncoder delegatingPasswordEncoder(int strength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(strength));
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", encoders);
+        encoder.setDefaultPasswordEncoderForMatches(NoOpPasswordEncoder.getInstance());
+        return encoder;
     }
 
     @Bean
@@ -3,17 +3,21 @@ package com.example.cursorlibrary.config;
 import com.example.cursorlibrary.entity.User;
 import com.example.cursorlibrary.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -23,29 +27,34 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
 
-            System.out.println("找到用户: " + user.getUsername() + ", 角色: " + user.getRole());
-            System.out.println("用户ID: " + user.getId() + ", 状态: " + user.getStatus());
-            
+            log.debug("加载用户: {}, ID: {}, 角色: {}, 状态: {}", user.getUsername(), user.getId(), user.getRole(), user.getStatus());
+
             // 确保角色名称正确(加上ROLE_前缀)
             String roleWithPrefix = "ROLE_" + user.getRole();
-            System.out.println("授予用户的完整角色: " + roleWithPrefix);
-            
             SimpleGrantedAuthority authority = new SimpleGrantedAuthority(roleWithPrefix);
-            System.out.println("创建权限对象: " + authority);
-            
-            var userDetails = new org.springframework.security.core.userdetails.User(
-                    user.getUsername(),
-                    user.getPassword(),
-                    Collections.singletonList(authority)
-            );
-            
-            System.out.println("用户详情已创建，权限列表: " + userDetails.getAuthorities());
-            
-            return userDetails;
+
+            // 非 ACTIVE 状态的用户标记为禁用：登录时认证器直接拒绝，不会签发新令牌
+            return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                    .password(user.getPassword())
+                    .authorities(Collections.singletonList(authority))
+                    .disabled(!"ACTIVE".equals(user.getStatus()))
+                    .build();
         } catch (Exception e) {
-            System.out.println("加载用户时出错: " + e.getMessage());
-            e.printStackTrace();
+            log.debug("加载用户 {} 时出错: {}", username, e.getMessage());
             throw e;
         }
     }
+
+    /**
+     * 登录成功后，如果密码仍是旧格式（明文或较低的哈希强度），由认证器用原密码重新计算哈希后调用
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        log.info("用户 {} 的密码哈希已升级", user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 } 
\ No newline at end of file
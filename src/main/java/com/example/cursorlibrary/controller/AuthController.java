@@ -6,64 +6,100 @@ import com.example.cursorlibrary.dto.LoginDTO;
 import com.example.cursorlibrary.dto.RegisterRequest;
 import com.example.cursorlibrary.dto.UserDTO;
 import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.exception.LoginOverloadedException;
 import com.example.cursorlibrary.exception.UserAlreadyExistsException;
+import com.example.cursorlibrary.service.LoginService;
+import com.example.cursorlibrary.service.TokenRevocationService;
 import com.example.cursorlibrary.service.UserService;
 import com.example.cursorlibrary.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginService loginService;
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
+    /**
+     * 密码校验在登录线程池中执行，请求线程不等待；线程池已满时返回503，客户端稍后重试
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginDTO loginDTO) {
-        try {
-            // 记录请求
-            System.out.println("接收到登录请求: " + loginDTO.getUsername());
-            
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                    loginDTO.getUsername(),
-                    loginDTO.getPassword()
-                )
-            );
-            
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtil.generateToken(loginDTO.getUsername());
-            
-            // 更新最后登录时间
-            userService.updateLastLogin(loginDTO.getUsername());
-            
-            // 返回token
-            AuthResponseDTO response = new AuthResponseDTO(jwt);
-            System.out.println("登录成功，返回token: " + jwt);
-            return ResponseEntity.ok(response);
-        } catch (AuthenticationException e) {
-            System.out.println("登录失败: " + e.getMessage());
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginDTO loginDTO) {
+        log.debug("接收到登录请求: {}", loginDTO.getUsername());
+        return loginService.authenticate(loginDTO.getUsername(), loginDTO.getPassword())
+                .<ResponseEntity<?>>thenApply(authentication -> {
+                    String jwt = jwtUtil.generateToken(loginDTO.getUsername(), role(authentication));
+
+                    // 更新最后登录时间
+                    userService.updateLastLogin(loginDTO.getUsername());
+
+                    // 返回token
+                    AuthResponseDTO response = new AuthResponseDTO(jwt);
+                    log.info("用户登录成功: {}", loginDTO.getUsername());
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> loginFailed(loginDTO.getUsername(), e));
+    }
+
+    private ResponseEntity<?> loginFailed(String username, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof LoginOverloadedException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse(false, cause.getMessage()));
+        }
+        if (cause instanceof AuthenticationException) {
+            log.info("用户登录失败: {}, 原因: {}", username, cause.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new ApiResponse(false, "用户名或密码错误"));
         }
+        // 其他异常交给全局异常处理
+        throw e instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
+
+    /**
+     * 退出登录：撤销当前令牌。/api/auth 下的路径不经过JWT过滤器，这里自行验证令牌
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "未提供令牌"));
+        }
+        try {
+            Claims claims = jwtUtil.extractAllClaims(authHeader.substring(7));
+            tokenRevocationService.revokeToken(claims.getId(), claims.getSubject(), claims.getExpiration());
+            log.info("用户退出登录: {}", claims.getSubject());
+        } catch (JwtException e) {
+            // 令牌无效或已过期，本来就无法再使用
+            log.debug("退出登录时令牌无效: {}", e.getMessage());
+        }
+        return ResponseEntity.ok(new ApiResponse(true, "已退出登录"));
     }
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
         try {
-            System.out.println("接收到注册请求: " + request.getUsername());
+            log.debug("接收到注册请求: {}", request.getUsername());
             userService.register(request);
             return ResponseEntity.ok(new ApiResponse(true, "注册成功"));
         } catch (UserAlreadyExistsException e) {
@@ -83,4 +119,16 @@ public class AuthController {
         User user = userService.findByUsername(userDetails.getUsername());
         return ResponseEntity.ok(UserDTO.fromUser(user));
     }
-} 
\ No newline at end of file
+
+    /**
+     * 认证结果中的角色（去掉 ROLE_ 前缀），写入令牌的角色声明
+     */
+    private static String role(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("ROLE_"))
+                .map(authority -> authority.substring("ROLE_".length()))
+                .findFirst()
+                .orElse(null);
+    }
+} 
@@ -1,26 +1,33 @@
 package com.example.cursorlibrary.controller;
 
 import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
 import com.example.cursorlibrary.entity.Book;
-import com.example.cursorlibrary.entity.BorrowRecord;
 import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.service.BookImportService;
 import com.example.cursorlibrary.service.BookService;
 import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.util.ETags;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/books")
 @RequiredArgsConstructor
 public class BookController {
     
     private final BookService bookService;
+    private final BookImportService bookImportService;
     private final BorrowService borrowService;
     private final BorrowRecordRepository borrowRecordRepository;
 
@@ -29,21 +36,51 @@ public class BookController {
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(bookService.findBooks(keyword, page, size));
+        Page<Book> books = bookService.findBooks(keyword, page, size);
+        return ETags.ok(pageETag(keyword, books), books);
+    }
+
+    /**
+     * 游标分页获取图书列表，不执行 OFFSET 扫描和总数统计
+     * 带关键词时由检索索引按ID升序返回命中，命中规则与列表检索相同
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollBooks(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(bookService.scrollBooks(keyword, after, size));
     }
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> addBook(@RequestBody BookDTO bookDTO) {
-        System.out.println("接收到添加图书请求: " + bookDTO.getTitle());
+        log.debug("接收到添加图书请求: {}", bookDTO.getTitle());
         Book book = bookService.addBook(bookDTO);
         return ResponseEntity.ok(book);
     }
 
+    /**
+     * 批量导入图书（CSV 或 JSON Lines），导入在后台执行，返回任务ID用于查询进度
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importBooks(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        return ResponseEntity.accepted().body(bookImportService.startImport(file, format));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getImportProgress(@PathVariable String jobId) {
+        return ResponseEntity.ok(bookImportService.getProgress(jobId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getBook(@PathVariable Long id) {
         Book book = bookService.findById(id);
-        return ResponseEntity.ok(BookDTO.fromBook(book));
+        return ETags.ok(ETags.strong("book", id, book.getVersion()), BookDTO.fromBook(book));
     }
 
     @PutMapping("/{id}")
@@ -55,19 +92,22 @@ public class BookController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> deleteBook(@PathVariable Long id) {
-        System.out.println("接收到删除图书请求，ID: " + id);
-        
+    public ResponseEntity<?> deleteBook(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "false") boolean async) {
+        log.debug("接收到删除图书请求，ID: {}", id);
         try {
+            if (async) {
+                // 借阅历史较多时后台分块删除，通过 /api/admin/maintenance/purge-jobs/{jobId} 查询进度
+                return ResponseEntity.accepted().body(bookService.deleteBookAsync(id));
+            }
             bookService.deleteBook(id);
-            System.out.println("图书删除成功，ID: " + id);
+            log.debug("图书删除成功，ID: {}", id);
             return ResponseEntity.ok().body(
                 java.util.Map.of("message", "图书删除成功", "id", id)
             );
         } catch (Exception e) {
-            System.err.println("删除图书失败，ID: " + id + ", 错误: " + e.getMessage());
-            e.printStackTrace();
-            
+            log.warn("删除图书失败，ID: {}, 错误: {}", id, e.getMessage());
+
             // 提取更友好的错误信息
             String errorMessage = e.getMessage();
             if (errorMessage.contains("foreign key constraint")) {
@@ -86,14 +126,26 @@ public class BookController {
 
     @PostMapping("/{id}/borrow")
     public ResponseEntity<?> borrowBook(@PathVariable Long id, Authentication authentication) {
-        BorrowRecord record = borrowService.borrowBook(authentication.getName(), id);
+        BorrowRecordDTO record = borrowService.borrowBook(authentication.getName(), id);
         return ResponseEntity.ok(record);
     }
 
     @GetMapping("/{id}/borrow-records")
     public ResponseEntity<?> getBookBorrowRecords(@PathVariable Long id) {
         Book book = bookService.findById(id);
-        List<BorrowRecord> records = borrowRecordRepository.findByBookId(id);
+        List<BorrowRecordDTO> records = borrowRecordRepository.findHistorySummariesByBookId(id);
         return ResponseEntity.ok(records);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 列表页的ETag：由检索条件、总数和本页各图书的ID与版本号计算，
+     * 本页图书被修改（包括库存变化）、增删导致翻页内容变化时都会改变
+     */
+    private static String pageETag(String keyword, Page<Book> books) {
+        StringBuilder versions = new StringBuilder();
+        for (Book book : books.getContent()) {
+            versions.append(book.getId()).append(':').append(book.getVersion()).append(',');
+        }
+        return ETags.weak("books", keyword, books.getNumber(), books.getSize(), books.getTotalElements(), versions);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.cursorlibrary.controller;
+
+import com.example.cursorlibrary.dto.BookHoldDTO;
+import com.example.cursorlibrary.dto.BorrowDTO;
+import com.example.cursorlibrary.service.BookHoldService;
+import com.example.cursorlibrary.util.ETags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * 图书预约：库存不足时排队，图书释放后自动生成借阅申请。
+ * 客户端轮询预约状态时带上 If-None-Match，排队位置未变化时返回 304。
+ * 304 只省去响应体，每次轮询仍要计数排在前面的预约（开销与排队位置成正比），客户端应控制轮询间隔。
+ */
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+public class BookHoldController {
+
+    private final BookHoldService bookHoldService;
+
+    @PostMapping
+    public ResponseEntity<?> placeHold(@RequestBody BorrowDTO borrowDTO, Authentication authentication) {
+        return ResponseEntity.ok(bookHoldService.placeHold(authentication.getName(), borrowDTO.getBookId()));
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getHolds(Authentication authentication) {
+        return ResponseEntity.ok(bookHoldService.getUserHolds(authentication.getName()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getHold(@PathVariable Long id, Authentication authentication, WebRequest webRequest) {
+        BookHoldDTO hold = bookHoldService.getHold(id, authentication.getName());
+        String etag = ETags.weak("hold", id, hold.getStatus(), hold.getPosition(), hold.getBorrowRecordId());
+        if (webRequest.checkNotModified(etag)) {
+            return ETags.notModified(etag);
+        }
+        return ETags.ok(etag, hold);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelHold(@PathVariable Long id, Authentication authentication) {
+        return ResponseEntity.ok(bookHoldService.cancelHold(id, authentication.getName()));
+    }
+}
@@ -1,26 +1,40 @@
 package com.example.cursorlibrary.controller;
 
 import com.example.cursorlibrary.dto.BorrowDTO;
-import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.dto.BorrowExportFilter;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.service.BorrowExportService;
 import com.example.cursorlibrary.service.BorrowService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/borrows")
 @RequiredArgsConstructor
 public class BorrowController {
-    
+
+    private static final List<String> VALID_STATUSES = List.of("PENDING", "BORROWED", "RETURNED", "REJECTED");
+
     private final BorrowService borrowService;
+    private final BorrowExportService borrowExportService;
 
     @PostMapping
     public ResponseEntity<?> borrowBook(@RequestBody BorrowDTO borrowDTO, Authentication authentication) {
@@ -39,51 +53,95 @@ public class BorrowController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             Authentication authentication) {
-        System.out.println("获取借阅记录请求 - 用户: " + authentication.getName() + ", 状态: " + status + ", 页码: " + page + ", 大小: " + size);
-        
-        if (status != null && !status.isEmpty()) {
-            System.out.println("状态过滤条件: " + status);
-            if (!Arrays.asList("PENDING", "BORROWED", "RETURNED", "REJECTED").contains(status)) {
-                System.out.println("警告: 无效的状态值: " + status);
-            }
-        } else {
-            System.out.println("未提供状态过滤条件，将返回所有状态的记录");
+        log.debug("获取借阅记录请求 - 用户: {}, 状态: {}, 页码: {}, 大小: {}", authentication.getName(), status, page, size);
+        if (status != null && !status.isEmpty() && !VALID_STATUSES.contains(status)) {
+            log.warn("无效的借阅状态过滤条件: {}", status);
         }
-        
+
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-        
-        System.out.println("用户角色是否为管理员: " + isAdmin);
-        
-        Page<BorrowRecord> result;
+
+        Page<BorrowRecordDTO> result;
         try {
             if (isAdmin) {
                 result = borrowService.getAllBorrows(status, PageRequest.of(page, size));
-                System.out.println("管理员获取所有借阅记录, 总数: " + result.getTotalElements() + ", 当前页数据量: " + result.getContent().size());
             } else {
                 result = borrowService.getBorrows(authentication.getName(), status, PageRequest.of(page, size));
-                System.out.println("普通用户获取个人借阅记录, 总数: " + result.getTotalElements() + ", 当前页数据量: " + result.getContent().size());
             }
-            
-            if (!result.getContent().isEmpty()) {
-                System.out.println("首条记录示例: " + result.getContent().get(0));
-                System.out.println("记录状态: " + result.getContent().get(0).getStatus());
-            } else {
-                System.out.println("没有找到符合条件的借阅记录");
-                if (status != null && !status.isEmpty()) {
-                    System.out.println("可能原因: 没有状态为 " + status + " 的记录");
-                }
-            }
-            
+            log.debug("借阅记录查询完成 - 管理员: {}, 总数: {}, 当前页数据量: {}",
+                    isAdmin, result.getTotalElements(), result.getNumberOfElements());
             return ResponseEntity.ok(result);
-            
         } catch (Exception e) {
-            System.err.println("获取借阅记录时发生错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("获取借阅记录时发生错误 - 用户: {}, 状态: {}", authentication.getName(), status, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("获取借阅记录失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 游标分页获取借阅记录（按借阅时间倒序），不执行 OFFSET 扫描和总数统计
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollBorrows(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            Authentication authentication) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (isAdmin) {
+            return ResponseEntity.ok(borrowService.scrollAllBorrows(status, after, size));
+        }
+        return ResponseEntity.ok(borrowService.scrollBorrows(authentication.getName(), status, after, size));
+    }
+
+    /**
+     * 流式导出借阅记录（管理员审计用），边查询边写出，支持CSV/NDJSON和gzip压缩
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportBorrows(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long bookId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        BorrowExportService.Format exportFormat;
+        try {
+            exportFormat = BorrowExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的导出格式: " + format);
+        }
+        BorrowExportFilter filter = BorrowExportFilter.builder()
+                .status(status)
+                .from(from)
+                .to(to)
+                .userId(userId)
+                .bookId(bookId)
+                .build();
+
+        String fileName = "borrow-records." + (exportFormat == BorrowExportService.Format.CSV ? "csv" : "ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentType(exportFormat == BorrowExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        if (gzip) {
+            fileName += ".gz";
+            response.setContentType("application/gzip");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+            borrowExportService.export(filter, exportFormat, gzipOut);
+            gzipOut.finish();
+        } else {
+            borrowExportService.export(filter, exportFormat, out);
+        }
+        out.flush();
+    }
+
     @PutMapping("/{id}/approve")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> approveBorrow(@PathVariable Long id) {
@@ -98,32 +156,23 @@ public class BorrowController {
 
     @PutMapping("/{id}/return")
     public ResponseEntity<?> returnBook(@PathVariable Long id, Authentication authentication) {
-        System.out.println("接收图书归还请求 - ID: " + id + ", 用户: " + authentication.getName());
-        
-        System.out.println("用户详情: " + authentication.getPrincipal());
-        System.out.println("用户权限: " + authentication.getAuthorities());
-        
+        log.debug("接收图书归还请求 - ID: {}, 用户: {}", id, authentication.getName());
         try {
             String username = authentication.getName();
-            System.out.println("提交归还操作，用户: " + username);
-            
             boolean isAdmin = authentication.getAuthorities().stream()
                     .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-            
-            BorrowRecord result;
+
+            BorrowRecordDTO result;
             if (isAdmin) {
-                System.out.println("使用管理员权限归还图书");
                 result = borrowService.adminReturnBook(id);
             } else {
-                System.out.println("使用普通用户权限归还图书");
                 result = borrowService.returnBook(id, username);
             }
-            
-            System.out.println("归还成功，记录更新为: " + result);
+
+            log.info("图书归还成功 - 记录ID: {}, 操作用户: {}, 管理员: {}", id, username, isAdmin);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            System.err.println("归还图书时发生错误: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("归还图书失败 - 记录ID: {}, 用户: {}, 原因: {}", id, authentication.getName(), e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
@@ -131,16 +180,13 @@ public class BorrowController {
     @PutMapping("/admin/{id}/return")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> adminReturnBook(@PathVariable Long id) {
-        System.out.println("管理员专用API：接收图书归还请求 - ID: " + id);
-        System.out.println("请求路径: /api/borrows/admin/" + id + "/return");
-        
+        log.debug("管理员归还图书请求 - ID: {}", id);
         try {
-            BorrowRecord result = borrowService.adminReturnBook(id);
-            System.out.println("管理员归还成功，记录更新为: " + result);
+            BorrowRecordDTO result = borrowService.adminReturnBook(id);
+            log.info("管理员归还图书成功 - 记录ID: {}", id);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            System.err.println("管理员归还图书时发生错误: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("管理员归还图书失败 - 记录ID: {}, 原因: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
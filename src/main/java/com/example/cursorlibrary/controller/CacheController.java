@@ -0,0 +1,41 @@
+package com.example.cursorlibrary.controller;
+
+import com.example.cursorlibrary.cache.TwoLevelCacheManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 缓存监控：各缓存的命中率、容量和淘汰统计，以及手动清空缓存
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final TwoLevelCacheManager cacheManager;
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStatistics() {
+        return ResponseEntity.ok(cacheManager.getStatistics());
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<?> clear(@PathVariable String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new RuntimeException("缓存不存在: " + name);
+        }
+        cache.clear();
+        return ResponseEntity.ok(Map.of("message", "缓存已清空", "name", name));
+    }
+}
@@ -1,12 +1,9 @@
 package com.example.cursorlibrary.controller;
 
-import com.example.cursorlibrary.entity.BorrowRecord;
-import com.example.cursorlibrary.repository.BookRepository;
-import com.example.cursorlibrary.repository.BorrowRecordRepository;
-import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.util.ETags;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,57 +16,27 @@ import java.util.Map;
  * 统计数据控制器
  * 提供图书、借阅、用户等统计数据
  */
+@Slf4j
 @RestController
-@RequestMapping({"/api/statistics", "/api/stats"})
+@RequestMapping("/api/statistics")
 @RequiredArgsConstructor
 public class StatisticsController {
 
-    private final BookRepository bookRepository;
-    private final UserRepository userRepository;
-    private final BorrowRecordRepository borrowRecordRepository;
+    private final StatisticsService statisticsService;
 
     /**
      * 获取统计数据
-     * 支持多种路径: /api/statistics, /api/statistics/, /api/stats, /api/stats/
+     * 支持路径: /api/statistics, /api/statistics/（/api/stats 由 StatsController 处理）
      */
     @GetMapping({"", "/"})
     public ResponseEntity<?> getStatistics() {
         try {
-            System.out.println("收到获取统计数据请求");
-            Map<String, Object> statistics = new HashMap<>();
-            
-            // 图书总数
-            long totalBooks = bookRepository.count();
-            statistics.put("totalBooks", totalBooks);
-            System.out.println("图书总数: " + totalBooks);
-            
-            // 借阅总数
-            long totalBorrows = borrowRecordRepository.count();
-            statistics.put("totalBorrows", totalBorrows);
-            System.out.println("借阅总数: " + totalBorrows);
-            
-            // 用户总数
-            long totalUsers = userRepository.count();
-            statistics.put("totalUsers", totalUsers);
-            System.out.println("用户总数: " + totalUsers);
-            
-            // 待处理的借阅请求
-            try {
-                // 尝试通过分页查询获取
-                Page<BorrowRecord> pendingPage = borrowRecordRepository.findByStatus("PENDING", PageRequest.of(0, 1));
-                long pendingRequests = pendingPage.getTotalElements();
-                statistics.put("pendingRequests", pendingRequests);
-                System.out.println("待处理请求数: " + pendingRequests);
-            } catch (Exception e) {
-                System.err.println("获取待处理请求数量失败: " + e.getMessage());
-                statistics.put("pendingRequests", 0);
-            }
-            
-            System.out.println("统计数据获取成功: " + statistics);
-            return ResponseEntity.ok(statistics);
+            // 统计值来自内存计数器，不再逐次查询数据库
+            Map<String, Object> statistics = statisticsService.getStatistics();
+            // 计数未变化时返回304，不重复序列化
+            return ETags.ok(ETags.weak("stats", statistics), statistics);
         } catch (Exception e) {
-            System.err.println("获取统计数据失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("获取统计数据失败", e);
             Map<String, Object> defaultStats = new HashMap<>();
             defaultStats.put("totalBooks", 0);
             defaultStats.put("totalBorrows", 0);
@@ -84,7 +51,7 @@ public class StatisticsController {
      */
     @GetMapping("/test")
     public ResponseEntity<?> testStatistics() {
-        System.out.println("测试统计API可访问性");
+        log.debug("测试统计API可访问性");
         return ResponseEntity.ok(Map.of(
             "status", "ok", 
             "message", "统计API可访问", 
@@ -1,16 +1,19 @@
 package com.example.cursorlibrary.controller;
 
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
 import com.example.cursorlibrary.dto.PasswordUpdateDTO;
 import com.example.cursorlibrary.dto.UserDTO;
-import com.example.cursorlibrary.entity.BorrowRecord;
 import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.ProfileVersion;
 import com.example.cursorlibrary.service.BorrowService;
 import com.example.cursorlibrary.service.UserService;
+import com.example.cursorlibrary.util.ETags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -23,10 +26,20 @@ public class UserProfileController {
     private final UserService userService;
     private final BorrowService borrowService;
     
+    /**
+     * 先只查询版本号和最后登录时间，客户端缓存仍然有效时直接返回304，不加载整行。
+     * 最后登录时间由写缓冲写入，不递增版本号，所以单独计入ETag
+     */
     @GetMapping("/profile")
-    public ResponseEntity<?> getUserProfile(Authentication authentication) {
+    public ResponseEntity<?> getUserProfile(Authentication authentication, WebRequest webRequest) {
+        ProfileVersion current = userService.findProfileVersionByUsername(authentication.getName());
+        String etag = ETags.strong("profile", authentication.getName(), current.getVersion(), current.getLastLogin());
+        if (webRequest.checkNotModified(etag)) {
+            return ETags.notModified(etag);
+        }
         User user = userService.findByUsername(authentication.getName());
-        return ResponseEntity.ok(UserDTO.fromUser(user));
+        return ETags.ok(ETags.strong("profile", user.getUsername(), user.getVersion(), user.getLastLogin()),
+                UserDTO.fromUser(user));
     }
     
     @PutMapping("/profile")
@@ -55,10 +68,18 @@ public class UserProfileController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             Authentication authentication) {
-        Page<BorrowRecord> records = borrowService.getUserBorrowRecords(
+        Page<BorrowRecordDTO> records = borrowService.getUserBorrowRecords(
                 authentication.getName(),
                 PageRequest.of(page, size)
         );
         return ResponseEntity.ok(records);
     }
+
+    @GetMapping("/borrow-records/scroll")
+    public ResponseEntity<?> scrollBorrowRecords(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            Authentication authentication) {
+        return ResponseEntity.ok(borrowService.scrollBorrows(authentication.getName(), null, after, size));
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.cursorlibrary.dto;
+
+import com.example.cursorlibrary.entity.BookHold;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图书预约状态；等待中的预约附带排队位置（1 表示下一本归还的图书分配给该预约）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookHoldDTO {
+    private Long id;
+    private Long bookId;
+    private Long userId;
+    private String status;      // WAITING, FULFILLED, CANCELLED
+    private Long position;
+    private Long borrowRecordId;
+    private LocalDateTime createdAt;
+    private LocalDateTime closedAt;
+
+    public static BookHoldDTO fromHold(BookHold hold) {
+        return BookHoldDTO.builder()
+                .id(hold.getId())
+                .bookId(hold.getBookId())
+                .userId(hold.getUserId())
+                .status(hold.getStatus())
+                .borrowRecordId(hold.getBorrowRecordId())
+                .createdAt(hold.getCreatedAt())
+                .closedAt(hold.getClosedAt())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.cursorlibrary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 图书批量导入任务的进度
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportProgress {
+    private String jobId;
+    private String fileName;
+    private String format;
+    private String status;      // QUEUED, RUNNING, COMPLETED, FAILED
+    private long processed;     // 已读取的数据行数
+    private long imported;      // 成功导入数
+    private long duplicates;    // ISBN重复而跳过的行数
+    private long failed;        // 校验或写入失败的行数
+    private List<RowError> errors;  // 失败行明细（最多保留 book-import.max-errors 条）
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String isbn;
+        private String message;
+    }
+}
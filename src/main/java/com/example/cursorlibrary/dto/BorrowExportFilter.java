@@ -0,0 +1,23 @@
+package com.example.cursorlibrary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 借阅记录导出的过滤条件，字段为空表示不过滤
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BorrowExportFilter {
+    private String status;
+    private LocalDate from;  // 借阅日期起（含）
+    private LocalDate to;    // 借阅日期止（含）
+    private Long userId;
+    private Long bookId;
+}
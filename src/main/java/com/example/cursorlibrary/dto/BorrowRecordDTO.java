@@ -0,0 +1,70 @@
+package com.example.cursorlibrary.dto;
+
+import com.example.cursorlibrary.entity.BorrowRecord;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 借阅记录的列表视图：只包含图书标题、用户名、日期和状态，
+ * 不携带用户密码、图书简介等字段，也不依赖打开的持久化会话
+ */
+@Data
+@NoArgsConstructor
+public class BorrowRecordDTO {
+    private Long id;
+    private BookSummary book;
+    private UserSummary user;
+    private LocalDateTime borrowDate;
+    private LocalDateTime dueDate;
+    private LocalDateTime returnDate;
+    private String status;
+
+    /**
+     * 供JPQL构造器表达式使用，由一次连接查询直接生成
+     */
+    public BorrowRecordDTO(Long id, Long bookId, String bookTitle, Long userId, String username,
+                           LocalDateTime borrowDate, LocalDateTime dueDate, LocalDateTime returnDate, String status) {
+        this.id = id;
+        this.book = new BookSummary(bookId, bookTitle);
+        this.user = new UserSummary(userId, username);
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.status = status;
+    }
+
+    /**
+     * 由已加载图书和用户的借阅记录实体转换
+     */
+    public static BorrowRecordDTO fromRecord(BorrowRecord record) {
+        return new BorrowRecordDTO(
+                record.getId(),
+                record.getBook().getId(),
+                record.getBook().getTitle(),
+                record.getUser().getId(),
+                record.getUser().getUsername(),
+                record.getBorrowDate(),
+                record.getDueDate(),
+                record.getReturnDate(),
+                record.getStatus());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BookSummary {
+        private Long id;
+        private String title;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserSummary {
+        private Long id;
+        private String username;
+    }
+}
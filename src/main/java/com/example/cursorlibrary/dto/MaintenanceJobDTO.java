@@ -0,0 +1,53 @@
+package com.example.cursorlibrary.dto;
+
+import com.example.cursorlibrary.entity.MaintenanceJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台数据库维护任务的进度；提交任务时作为请求体，只需 type、target，
+ * chunkSize、pauseMillis 不填时使用默认限速配置
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaintenanceJobDTO {
+    private String jobId;
+    private String type;        // FIX_FOREIGN_KEYS, REBUILD_TABLE
+    private String target;
+    private String status;      // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private String phase;
+    private Long checkpoint;
+    private long processed;
+    private long total;
+    private Integer chunkSize;  // 每块处理的行数
+    private Long pauseMillis;   // 每块之间的停顿
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public static MaintenanceJobDTO fromJob(MaintenanceJob job) {
+        return MaintenanceJobDTO.builder()
+                .jobId(job.getId())
+                .type(job.getType())
+                .target(job.getTarget())
+                .status(job.getStatus())
+                .phase(job.getPhase())
+                .checkpoint(job.getCheckpoint())
+                .processed(job.getProcessed())
+                .total(job.getTotal())
+                .chunkSize(job.getChunkSize())
+                .pauseMillis(job.getPauseMillis())
+                .message(job.getMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
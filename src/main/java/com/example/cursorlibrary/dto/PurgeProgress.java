@@ -0,0 +1,26 @@
+package com.example.cursorlibrary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台删除图书/用户（连同其借阅历史）任务的进度
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurgeProgress {
+    private String jobId;
+    private String target;      // BOOK, USER
+    private Long targetId;
+    private String status;      // QUEUED, RUNNING, COMPLETED, FAILED
+    private long deleted;       // 已删除的借阅记录数
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -23,6 +24,7 @@ public class UserDTO {
     private LocalDateTime updatedAt;
     private LocalDateTime lastLogin;
     private Long borrowCount; // 借阅记录数量
+    private Map<String, Long> borrowCountsByStatus; // 按状态分组的借阅记录数量
 
     public static UserDTO fromUser(User user) {
         return UserDTO.builder()
@@ -0,0 +1,43 @@
+package com.example.cursorlibrary.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图书预约（book_holds）：库存不足时排队等待，归还或拒绝释放的图书按预约ID先后（先到先得）分配给队首，
+ * 直接生成待审批的借阅申请。队首查找走 (book_id, status, id) 索引的第一条，与队列长度无关；
+ * 排队位置在同一索引上计数排在前面的等待中预约，开销与该预约的位置成正比。
+ */
+@Data
+@Entity
+@Table(name = "book_holds", indexes = {
+        @Index(name = "idx_hold_book_status", columnList = "book_id, status, id"),
+        @Index(name = "idx_hold_user", columnList = "user_id, id")
+})
+public class BookHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String status; // WAITING, FULFILLED, CANCELLED
+
+    // 分配图书后生成的借阅申请
+    @Column(name = "borrow_record_id")
+    private Long borrowRecordId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // 分配或取消的时间
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+}
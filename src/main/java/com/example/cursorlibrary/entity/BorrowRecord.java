@@ -2,22 +2,37 @@ package com.example.cursorlibrary.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 
+// 索引与 db/migration 下的迁移脚本保持一致，H2 测试库按这里的定义建表
 @Data
 @Entity
-@Table(name = "borrow_records")
+@Table(name = "borrow_records", indexes = {
+        @Index(name = "idx_book_status", columnList = "book_id, status"),
+        @Index(name = "idx_user_status_borrow_date", columnList = "user_id, status, borrow_date, id"),
+        @Index(name = "idx_user_borrow_date", columnList = "user_id, borrow_date, id"),
+        @Index(name = "idx_status_borrow_date", columnList = "status, borrow_date, id"),
+        @Index(name = "idx_status_overdue_due_date", columnList = "status, overdue_since, due_date"),
+        @Index(name = "idx_borrow_date", columnList = "borrow_date, id")
+})
 public class BorrowRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    // 关联按需加载：列表使用投影查询，单条记录需要关联时使用实体图
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Book book;
     
     @Column(name = "borrow_date")
@@ -28,6 +43,10 @@ public class BorrowRecord {
     
     @Column(name = "return_date")
     private LocalDateTime returnDate;
+
+    // 逾期标记：由逾期检查任务写入（取应还日期），未逾期为 null，归还后保留
+    @Column(name = "overdue_since")
+    private LocalDateTime overdueSince;
     
     private String status; // PENDING, BORROWED, RETURNED, REJECTED
 } 
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.cursorlibrary.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已归档的借阅记录（borrow_records_archive）：只保存已归还或已拒绝、且超过保留期限的记录，
+ * 沿用原表中的ID，归档后不再修改。关联只保存ID，按需与图书、用户表连接查询。
+ */
+@Data
+@Entity
+@Table(name = "borrow_records_archive", indexes = {
+        @Index(name = "idx_archive_book_status", columnList = "book_id, status"),
+        @Index(name = "idx_archive_user_status_borrow_date", columnList = "user_id, status, borrow_date, id"),
+        @Index(name = "idx_archive_user_borrow_date", columnList = "user_id, borrow_date, id"),
+        @Index(name = "idx_archive_status_borrow_date", columnList = "status, borrow_date, id"),
+        @Index(name = "idx_archive_borrow_date", columnList = "borrow_date, id")
+})
+public class BorrowRecordArchive {
+    @Id
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "borrow_date", nullable = false)
+    private LocalDateTime borrowDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDateTime dueDate;
+
+    @Column(name = "return_date")
+    private LocalDateTime returnDate;
+
+    @Column(name = "overdue_since")
+    private LocalDateTime overdueSince;
+
+    @Column(nullable = false)
+    private String status; // RETURNED, REJECTED
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
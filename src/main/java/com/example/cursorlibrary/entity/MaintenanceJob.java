@@ -0,0 +1,60 @@
+package com.example.cursorlibrary.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台数据库维护任务（maintenance_jobs）：记录执行阶段、断点和进度，
+ * 任务失败或服务重启后可以从断点继续执行
+ */
+@Data
+@Entity
+@Table(name = "maintenance_jobs", indexes = {
+        @Index(name = "idx_maintenance_created_at", columnList = "created_at")
+})
+public class MaintenanceJob {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false, length = 50)
+    private String type;        // FIX_FOREIGN_KEYS, REBUILD_TABLE
+
+    @Column(nullable = false, length = 64)
+    private String target;      // 目标表
+
+    @Column(nullable = false, length = 20)
+    private String status;      // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+
+    @Column(length = 20)
+    private String phase;       // 任务内部的执行阶段，如 PREPARE、COPY、SWAP
+
+    // 已处理到的位置（如已复制的最大ID），继续执行时从这里开始
+    private Long checkpoint;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "pause_millis", nullable = false)
+    private long pauseMillis;
+
+    @Column(length = 1000)
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
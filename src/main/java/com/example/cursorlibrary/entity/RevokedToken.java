@@ -0,0 +1,40 @@
+package com.example.cursorlibrary.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已撤销的令牌（revoked_tokens）：退出登录撤销单个令牌（按 jti），修改密码、变更角色或状态、删除用户时
+ * 撤销该用户此前签发的全部令牌（jti 为空）。过期时间与令牌有效期相同，过期后清理。
+ * 各节点启动时加载未过期的记录，运行中按 revoked_at 增量拉取其他节点新增的记录。
+ */
+@Data
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_at", columnList = "revoked_at"),
+        @Index(name = "idx_revoked_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 为空表示撤销该用户在 revoked_at 之前签发的全部令牌
+    @Column(length = 64)
+    private String jti;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(nullable = false, length = 20)
+    private String reason; // LOGOUT, PASSWORD, AUTHORITY, DELETED
+
+    // 毫秒精度（DATETIME(3)），按用户撤销时作为截止时间
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -38,9 +39,16 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "last_login")
+    // 只由 LastLoginBuffer 批量写入，实体更新时不覆盖（加载后才写入的登录时间不会被改回旧值）
+    @Column(name = "last_login", updatable = false)
     private LocalDateTime lastLogin;
 
+    // 每次修改递增，与最后登录时间一起用作个人信息接口的ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public void setStatus(String status) {
         this.status = status;
     }
@@ -0,0 +1,10 @@
+package com.example.cursorlibrary.exception;
+
+/**
+ * 登录线程池已满或排队超时，请求被快速拒绝，客户端稍后重试
+ */
+public class LoginOverloadedException extends RuntimeException {
+    public LoginOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.cursorlibrary.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 日志采样过滤器：对指定前缀的日志器，级别不高于阈值（默认DEBUG）的日志只按 1/rate 的比例输出。
+ * 用于在线上临时打开高频路径（如每个请求都会经过的JWT过滤器）的DEBUG日志时控制日志量。
+ * 在 logback-spring.xml 中配置，由 logging.sampling.* 属性控制。
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    private Level threshold = Level.DEBUG;
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format 为空表示 isDebugEnabled() 之类的级别判断，不参与采样
+        if (rate <= 1 || format == null || level.levelInt > threshold.levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        // 本身就不会输出的日志交给正常的级别判断
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel()) || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 需要采样的日志器名称前缀，多个用逗号分隔
+     */
+    public void setLoggers(String loggers) {
+        loggerPrefixes.clear();
+        for (String prefix : loggers.split(",")) {
+            if (!prefix.isBlank()) {
+                loggerPrefixes.add(prefix.trim());
+            }
+        }
+    }
+
+    public void setThreshold(String threshold) {
+        this.threshold = Level.toLevel(threshold, Level.DEBUG);
+    }
+
+    public void setRate(int rate) {
+        this.rate = Math.max(rate, 1);
+    }
+}
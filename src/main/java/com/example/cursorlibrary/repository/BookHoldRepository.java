@@ -0,0 +1,41 @@
+package com.example.cursorlibrary.repository;
+
+import com.example.cursorlibrary.entity.BookHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookHoldRepository extends JpaRepository<BookHold, Long> {
+
+    // 锁定队首的等待中预约，分配期间同一预约的取消请求等待分配完成
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<BookHold> findFirstByBookIdAndStatusOrderByIdAsc(Long bookId, String status);
+
+    // 排在该预约之前的等待人数：(book_id, status) 前缀下 id 更小的一段索引范围计数，开销与位置成正比
+    long countByBookIdAndStatusAndIdLessThan(Long bookId, String status, Long id);
+
+    boolean existsByBookIdAndUserIdAndStatus(Long bookId, Long userId, String status);
+
+    List<BookHold> findTop50ByUserIdOrderByIdDesc(Long userId);
+
+    // 条件更新：只有等待中的预约才能分配或取消，分配和取消并发时只有一个成功
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookHold h SET h.status = 'FULFILLED', h.borrowRecordId = :borrowRecordId, h.closedAt = :closedAt "
+            + "WHERE h.id = :id AND h.status = 'WAITING'")
+    int markFulfilled(@Param("id") Long id, @Param("borrowRecordId") Long borrowRecordId,
+                      @Param("closedAt") LocalDateTime closedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookHold h SET h.status = 'CANCELLED', h.closedAt = :closedAt "
+            + "WHERE h.id = :id AND h.userId = :userId AND h.status = 'WAITING'")
+    int markCancelled(@Param("id") Long id, @Param("userId") Long userId, @Param("closedAt") LocalDateTime closedAt);
+}
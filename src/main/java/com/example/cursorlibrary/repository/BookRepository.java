@@ -1,11 +1,40 @@
 package com.example.cursorlibrary.repository;
 
 import com.example.cursorlibrary.entity.Book;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
     Page<Book> findByTitleContainingOrAuthorContaining(String title, String author, Pageable pageable);
     boolean existsByIsbn(String isbn);
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    // 游标分页：按id升序，从上一页最后一条之后继续读取
+    Slice<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // 条件扣减库存：库存为0时不更新，返回0表示库存不足（或图书不存在）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.stock = b.stock - 1, b.version = b.version + 1 WHERE b.id = :id AND b.stock > 0")
+    int decrementStock(@Param("id") Long id);
+
+    // 锁定图书行并读取库存：预约入队与释放库存（incrementStock）按同一行锁串行，入队时不会错过刚释放的库存
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.stock FROM Book b WHERE b.id = :id")
+    Optional<Integer> lockStock(@Param("id") Long id);
+
+    // 归还或拒绝借阅时释放库存
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.stock = b.stock + 1, b.version = b.version + 1 WHERE b.id = :id")
+    int incrementStock(@Param("id") Long id);
 } 
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.cursorlibrary.repository;
+
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 借阅历史查询：合并热表 borrow_records 和归档表 borrow_records_archive 的结果。
+ * 只在需要已结束记录的视图中使用，未完成借阅的查询只访问热表。
+ */
+public interface BorrowRecordHistoryRepository {
+
+    /**
+     * 按ID排序分页，userId、status 为 null 时不过滤
+     */
+    Page<BorrowRecordDTO> findHistorySummaries(Long userId, String status, Pageable pageable);
+
+    /**
+     * 游标分页：按 (borrowDate, id) 倒序，从上一页最后一条之后继续读取
+     */
+    Slice<BorrowRecordDTO> scrollHistorySummaries(Long userId, String status, LocalDateTime borrowDate, Long id,
+                                                  Pageable pageable);
+
+    List<BorrowRecordDTO> findHistorySummariesByBookId(Long bookId);
+}
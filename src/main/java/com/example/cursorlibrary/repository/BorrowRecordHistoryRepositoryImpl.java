@@ -0,0 +1,129 @@
+package com.example.cursorlibrary.repository;
+
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用 UNION ALL 合并两张表后再连接图书和用户表取出标题、用户名。
+ * 分页时每张表先按同样的顺序各取 offset+size（游标分页为 size+1）条，合并后再截取，
+ * 两张表都能利用各自的 (user_id/status, borrow_date, id) 索引，不需要对全部历史排序。
+ */
+public class BorrowRecordHistoryRepositoryImpl implements BorrowRecordHistoryRepository {
+
+    private static final String COLUMNS = "id, book_id, user_id, borrow_date, due_date, return_date, status";
+    private static final String[] TABLES = {"borrow_records", "borrow_records_archive"};
+
+    private static final RowMapper<BorrowRecordDTO> SUMMARY_MAPPER = (rs, rowNum) -> new BorrowRecordDTO(
+            rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getString(5),
+            toLocalDateTime(rs.getTimestamp(6)), toLocalDateTime(rs.getTimestamp(7)),
+            toLocalDateTime(rs.getTimestamp(8)), rs.getString(9));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BorrowRecordHistoryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> findHistorySummaries(Long userId, String status, Pageable pageable) {
+        List<Object> filterArgs = new ArrayList<>();
+        String where = where(userId, status, filterArgs);
+        long branchLimit = pageable.getOffset() + pageable.getPageSize();
+
+        List<Object> args = new ArrayList<>();
+        String union = union(where, "id", branchLimit, filterArgs, args);
+        args.add(pageable.getPageSize());
+        args.add(pageable.getOffset());
+        List<BorrowRecordDTO> content = jdbcTemplate.query(
+                select(union) + " ORDER BY r.id LIMIT ? OFFSET ?", SUMMARY_MAPPER, args.toArray());
+
+        List<Object> countArgs = new ArrayList<>(filterArgs);
+        countArgs.addAll(filterArgs);
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM borrow_records" + where + ") + "
+                        + "(SELECT COUNT(*) FROM borrow_records_archive" + where + ")",
+                Long.class, countArgs.toArray());
+        return new PageImpl<>(content, pageable, total == null ? 0 : total);
+    }
+
+    @Override
+    public Slice<BorrowRecordDTO> scrollHistorySummaries(Long userId, String status, LocalDateTime borrowDate, Long id,
+                                                         Pageable pageable) {
+        List<Object> filterArgs = new ArrayList<>();
+        String where = where(userId, status, filterArgs)
+                + (filterArgs.isEmpty() ? " WHERE " : " AND ") + "(borrow_date < ? OR (borrow_date = ? AND id < ?))";
+        Timestamp cursorDate = Timestamp.valueOf(borrowDate);
+        filterArgs.add(cursorDate);
+        filterArgs.add(cursorDate);
+        filterArgs.add(id);
+        int size = pageable.getPageSize();
+
+        List<Object> args = new ArrayList<>();
+        String union = union(where, "borrow_date DESC, id DESC", size + 1, filterArgs, args);
+        args.add(size + 1);
+        List<BorrowRecordDTO> content = jdbcTemplate.query(
+                select(union) + " ORDER BY r.borrow_date DESC, r.id DESC LIMIT ?", SUMMARY_MAPPER, args.toArray());
+
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, pageable, hasNext);
+    }
+
+    @Override
+    public List<BorrowRecordDTO> findHistorySummariesByBookId(Long bookId) {
+        String union = "SELECT " + COLUMNS + " FROM borrow_records WHERE book_id = ? "
+                + "UNION ALL SELECT " + COLUMNS + " FROM borrow_records_archive WHERE book_id = ?";
+        return jdbcTemplate.query(select("(" + union + ")") + " ORDER BY r.id", SUMMARY_MAPPER, bookId, bookId);
+    }
+
+    /**
+     * 两张表使用相同的过滤条件，userId、status 为 null 时不过滤
+     */
+    private static String where(Long userId, String status, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (userId != null) {
+            conditions.add("user_id = ?");
+            args.add(userId);
+        }
+        if (status != null) {
+            conditions.add("status = ?");
+            args.add(status);
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * 每个分支的 LIMIT 直接写入由分页参数算出的数值：H2 对带参数 LIMIT 的派生表会复用上一次执行的结果
+     */
+    private static String union(String where, String orderBy, long limit, List<Object> filterArgs, List<Object> args) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < TABLES.length; i++) {
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("(SELECT ").append(COLUMNS).append(" FROM ").append(TABLES[i]).append(where)
+                    .append(" ORDER BY ").append(orderBy).append(" LIMIT ").append(limit).append(")");
+            args.addAll(filterArgs);
+        }
+        return sql.append(")").toString();
+    }
+
+    private static String select(String union) {
+        return "SELECT r.id, r.book_id, b.title, r.user_id, u.username, r.borrow_date, r.due_date, r.return_date, r.status "
+                + "FROM " + union + " r JOIN books b ON b.id = r.book_id JOIN users u ON u.id = r.user_id";
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
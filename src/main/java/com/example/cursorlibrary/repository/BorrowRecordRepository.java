@@ -1,29 +1,101 @@
 package com.example.cursorlibrary.repository;
 
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
 import com.example.cursorlibrary.entity.BorrowRecord;
-import com.example.cursorlibrary.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
-    Page<BorrowRecord> findByUser(User user, Pageable pageable);
-    Page<BorrowRecord> findByUserAndStatus(User user, String status, Pageable pageable);
-    Page<BorrowRecord> findByStatus(String status, Pageable pageable);
+public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long>, BorrowRecordHistoryRepository {
+    // 待审核和借出中的记录不会被归档，按这两种状态查询时只访问热表，其余视图合并归档表
+    List<String> ACTIVE_STATUSES = List.of("PENDING", "BORROWED");
+
+    // 列表查询直接投影为 BorrowRecordDTO：一次连接查询取出图书标题和用户名，不加载完整的用户和图书实体
+    String SUMMARY_SELECT = "SELECT new com.example.cursorlibrary.dto.BorrowRecordDTO(br.id, b.id, b.title, u.id, u.username, " +
+            "br.borrowDate, br.dueDate, br.returnDate, br.status) FROM BorrowRecord br JOIN br.book b JOIN br.user u ";
+
+    @Query(value = SUMMARY_SELECT + "WHERE br.status = :status ORDER BY br.id",
+           countQuery = "SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = :status")
+    Page<BorrowRecordDTO> findSummariesByStatus(@Param("status") String status, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE br.user.id = :userId AND br.status = :status ORDER BY br.id",
+           countQuery = "SELECT COUNT(br) FROM BorrowRecord br WHERE br.user.id = :userId AND br.status = :status")
+    Page<BorrowRecordDTO> findSummariesByUserIdAndStatus(@Param("userId") Long userId, @Param("status") String status,
+                                                         Pageable pageable);
+
+    /**
+     * 借阅记录列表（按ID排序），userId、status 为 null 时不过滤
+     */
+    default Page<BorrowRecordDTO> findBorrowSummaries(Long userId, String status, Pageable pageable) {
+        if (status == null || !ACTIVE_STATUSES.contains(status)) {
+            return findHistorySummaries(userId, status, pageable);
+        }
+        return userId == null ? findSummariesByStatus(status, pageable)
+                : findSummariesByUserIdAndStatus(userId, status, pageable);
+    }
+
+    /**
+     * 借阅记录游标分页（按借阅时间倒序），userId、status 为 null 时不过滤
+     */
+    default Slice<BorrowRecordDTO> scrollBorrowSummaries(Long userId, String status, LocalDateTime borrowDate, Long id,
+                                                         Pageable pageable) {
+        if (status == null || !ACTIVE_STATUSES.contains(status)) {
+            return scrollHistorySummaries(userId, status, borrowDate, id, pageable);
+        }
+        return userId == null ? scrollByStatus(status, borrowDate, id, pageable)
+                : scrollByUserAndStatus(userId, status, borrowDate, id, pageable);
+    }
+
+    // 单条记录需要图书和用户时（如状态变更后返回给前端），用实体图一次连接查询加载
+    @EntityGraph(attributePaths = {"book", "user"})
+    Optional<BorrowRecord> findWithBookAndUserById(Long id);
+
+    // 游标分页：按 (borrowDate, id) 倒序，从上一页最后一条之后继续读取，不执行 OFFSET 和 COUNT
+    @Query(SUMMARY_SELECT + "WHERE br.status = :status AND (br.borrowDate < :borrowDate " +
+           "OR (br.borrowDate = :borrowDate AND br.id < :id)) ORDER BY br.borrowDate DESC, br.id DESC")
+    Slice<BorrowRecordDTO> scrollByStatus(@Param("status") String status, @Param("borrowDate") LocalDateTime borrowDate,
+                                          @Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE br.user.id = :userId AND br.status = :status " +
+           "AND (br.borrowDate < :borrowDate OR (br.borrowDate = :borrowDate AND br.id < :id)) " +
+           "ORDER BY br.borrowDate DESC, br.id DESC")
+    Slice<BorrowRecordDTO> scrollByUserAndStatus(@Param("userId") Long userId, @Param("status") String status,
+                                                 @Param("borrowDate") LocalDateTime borrowDate, @Param("id") Long id,
+                                                 Pageable pageable);
     
     // 统计特定状态的借阅记录数量
     @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = :status")
     long countByStatus(@Param("status") String status);
     
-    // 添加通过图书ID查询借阅记录的方法
-    @Query("SELECT br FROM BorrowRecord br WHERE br.book.id = :bookId")
-    List<BorrowRecord> findByBookId(@Param("bookId") Long bookId);
+    // 热表和归档表分别按状态分组统计，用于校准内存计数器。
+    // 两部分在同一条语句中读取同一个快照，归档事务把记录从热表移到归档表时不会漏计或重复计入
+    @Query("SELECT br.status AS status, COUNT(br) AS count FROM BorrowRecord br GROUP BY br.status " +
+           "UNION ALL " +
+           "SELECT a.status AS status, COUNT(a) AS count FROM BorrowRecordArchive a GROUP BY a.status")
+    List<StatusCount> countAllGroupByStatus();
+
+    // 借阅中且已标记逾期的记录数，按 (status, overdue_since, due_date) 索引只扫描逾期部分
+    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = 'BORROWED' AND br.overdueSince IS NOT NULL")
+    long countOverdue();
+
+    // 一次查询统计一批用户的借阅记录（按用户和状态分组），避免逐个用户计数
+    @Query("SELECT br.user.id AS userId, br.status AS status, COUNT(br) AS count FROM BorrowRecord br " +
+           "WHERE br.user.id IN :userIds GROUP BY br.user.id, br.status")
+    List<UserStatusCount> countGroupByUserAndStatus(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT a.userId AS userId, a.status AS status, COUNT(a) AS count FROM BorrowRecordArchive a " +
+           "WHERE a.userId IN :userIds GROUP BY a.userId, a.status")
+    List<UserStatusCount> countArchivedGroupByUserAndStatus(@Param("userIds") Collection<Long> userIds);
     
     // 统计图书相关的借阅记录数量
     @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.book.id = :bookId")
@@ -33,16 +105,6 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
     
-    // 统计用户特定状态的借阅记录数量
-    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.user.id = :userId AND br.status IN :statusList")
-    long countByUserIdAndStatusIn(@Param("userId") Long userId, @Param("statusList") List<String> statusList);
-    
-    // 删除用户特定状态的借阅记录
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM BorrowRecord br WHERE br.user.id = :userId AND br.status IN :statusList")
-    int deleteByUserIdAndStatusIn(@Param("userId") Long userId, @Param("statusList") List<String> statusList);
-
     // 添加一个简单的直接计数方法，不需要分页
     @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = :status")
     long directCountByStatus(@Param("status") String status);
@@ -50,10 +112,13 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     // 统计图书特定状态的借阅记录数量
     @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.book.id = :bookId AND br.status IN :statusList")
     long countByBookIdAndStatusIn(@Param("bookId") Long bookId, @Param("statusList") List<String> statusList);
+    // 条件状态流转：只有当前状态符合预期时才更新，返回0表示状态已被其他请求修改
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BorrowRecord br SET br.status = :toStatus WHERE br.id = :id AND br.status = :fromStatus")
+    int transitionStatus(@Param("id") Long id, @Param("fromStatus") String fromStatus, @Param("toStatus") String toStatus);
 
-    // 删除图书的所有已完成借阅记录（已归还或已拒绝）
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM BorrowRecord br WHERE br.book.id = :bookId AND br.status IN :statusList")
-    int deleteByBookIdAndStatusIn(@Param("bookId") Long bookId, @Param("statusList") List<String> statusList);
-} 
\ No newline at end of file
+    // 条件归还：只有借阅中的记录才能标记为已归还
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BorrowRecord br SET br.status = 'RETURNED', br.returnDate = :returnDate WHERE br.id = :id AND br.status = 'BORROWED'")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDateTime returnDate);
+}
@@ -0,0 +1,14 @@
+package com.example.cursorlibrary.repository;
+
+import com.example.cursorlibrary.entity.MaintenanceJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MaintenanceJobRepository extends JpaRepository<MaintenanceJob, String> {
+
+    List<MaintenanceJob> findTop50ByOrderByCreatedAtDesc();
+
+    List<MaintenanceJob> findByStatusIn(Collection<String> statuses);
+}
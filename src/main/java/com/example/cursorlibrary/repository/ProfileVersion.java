@@ -0,0 +1,11 @@
+package com.example.cursorlibrary.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 个人信息的版本水位投影：版本号只随用户修改递增，最后登录时间由写缓冲单独写入
+ */
+public interface ProfileVersion {
+    Long getVersion();
+    LocalDateTime getLastLogin();
+}
@@ -0,0 +1,25 @@
+package com.example.cursorlibrary.repository;
+
+import com.example.cursorlibrary.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // 启动时加载仍在有效期内的撤销记录
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    // 增量拉取其他节点新增的撤销记录
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package com.example.cursorlibrary.repository;
+
+/**
+ * 按状态分组计数的查询结果投影
+ */
+public interface StatusCount {
+    String getStatus();
+    long getCount();
+}
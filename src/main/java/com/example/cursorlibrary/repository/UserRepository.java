@@ -4,6 +4,9 @@ import com.example.cursorlibrary.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,6 +14,15 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // 只查询版本号和最后登录时间，用于条件请求判断个人信息是否变化
+    @Query("SELECT u.version AS version, u.lastLogin AS lastLogin FROM User u WHERE u.username = :username")
+    Optional<ProfileVersion> findProfileVersionByUsername(@Param("username") String username);
+
+    // 只替换密码哈希（登录时升级哈希算法或强度），密码本身没有变化，不修改版本号和更新时间
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordHash(@Param("username") String username, @Param("password") String password);
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
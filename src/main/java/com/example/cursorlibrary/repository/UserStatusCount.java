@@ -0,0 +1,10 @@
+package com.example.cursorlibrary.repository;
+
+/**
+ * 按用户和状态分组计数的查询结果投影
+ */
+public interface UserStatusCount {
+    Long getUserId();
+    String getStatus();
+    long getCount();
+}
@@ -0,0 +1,368 @@
+package com.example.cursorlibrary.search;
+
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书目录的内存倒排索引
+ * 覆盖标题、作者、出版社、ISBN和简介，按字段加权的TF-IDF排序。
+ * 启动后从数据库全量构建，之后由BookService的增删改增量维护；
+ * 构建完成前isReady()返回false，调用方应回退到数据库查询。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float ISBN_WEIGHT = 4.0f;
+    private static final float PUBLISHER_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 0.5f;
+
+    // 前缀匹配时最多展开的词项数，防止单字母查询展开整个词典
+    private static final int MAX_PREFIX_EXPANSION = 256;
+    private static final int BUILD_PAGE_SIZE = 500;
+
+    private final BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    private List<PendingChange> pendingChanges;
+    private volatile boolean ready = false;
+
+    /**
+     * 检索结果：命中总数和当前页的图书ID（已按相关度排序）
+     */
+    public record SearchResult(long total, List<Long> ids) {
+    }
+
+    private record PendingChange(Long id, Map<String, Float> terms) {
+    }
+
+    private static class IndexData {
+        // 词项 -> (图书ID -> 加权词频)，TreeMap支持前缀范围查找
+        final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        // 图书ID -> 该图书的全部词项，用于更新和删除
+        final Map<Long, Map<String, Float>> docTerms = new HashMap<>();
+
+        void put(Long id, Map<String, Float> terms) {
+            remove(id);
+            for (Map.Entry<String, Float> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(id, entry.getValue());
+            }
+            docTerms.put(id, terms);
+        }
+
+        void remove(Long id) {
+            Map<String, Float> old = docTerms.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.keySet()) {
+                Map<Long, Float> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(id);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("图书检索索引构建失败，将继续使用数据库查询", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.docTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引
+     * 重建期间的增量变更会同时记录下来，在切换前重放到新索引上
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexData fresh = new IndexData();
+        try {
+            int page = 0;
+            Page<Book> books;
+            do {
+                books = bookRepository.findAll(PageRequest.of(page++, BUILD_PAGE_SIZE, Sort.by("id")));
+                for (Book book : books) {
+                    fresh.put(book.getId(), analyze(book));
+                }
+            } while (books.hasNext());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (PendingChange change : pendingChanges) {
+                if (change.terms() == null) {
+                    fresh.remove(change.id());
+                } else {
+                    fresh.put(change.id(), change.terms());
+                }
+            }
+            pendingChanges = null;
+            data = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("图书检索索引构建完成，共索引图书: {}", fresh.docTerms.size());
+    }
+
+    /**
+     * 新增或更新图书的索引
+     */
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        Map<String, Float> terms = analyze(book);
+        lock.writeLock().lock();
+        try {
+            data.put(book.getId(), terms);
+            if (pendingChanges != null) {
+                pendingChanges.add(new PendingChange(book.getId(), terms));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除图书
+     */
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            data.remove(id);
+            if (pendingChanges != null) {
+                pendingChanges.add(new PendingChange(id, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 关键词检索
+     * 所有查询词元都必须命中（AND语义），结果按相关度降序、ID升序排列
+     */
+    public SearchResult search(String keyword, int offset, int limit) {
+        List<SearchTokenizer.QueryToken> tokens = queryTokens(keyword);
+        if (tokens.isEmpty()) {
+            return new SearchResult(0, Collections.emptyList());
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = scores(tokens);
+            return new SearchResult(scores.size(), topIds(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 游标分页用的关键词检索
+     * 命中规则与 {@link #search} 相同，结果按ID升序，只返回ID大于 afterId 的前 limit 条
+     */
+    public SearchResult searchAfter(String keyword, long afterId, int limit) {
+        List<SearchTokenizer.QueryToken> tokens = queryTokens(keyword);
+        if (tokens.isEmpty()) {
+            return new SearchResult(0, Collections.emptyList());
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = scores(tokens);
+            return new SearchResult(scores.size(), idsAfter(scores.keySet(), afterId, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<SearchTokenizer.QueryToken> queryTokens(String keyword) {
+        if (SearchTokenizer.looksLikeIsbn(keyword)) {
+            return List.of(new SearchTokenizer.QueryToken(SearchTokenizer.normalizeIsbn(keyword), true));
+        }
+        return SearchTokenizer.tokenizeForQuery(keyword);
+    }
+
+    /**
+     * 计算同时命中全部词元的图书及其相关度，调用方需持有读锁
+     */
+    private Map<Long, Float> scores(List<SearchTokenizer.QueryToken> tokens) {
+        int docCount = Math.max(1, data.docTerms.size());
+        List<Map<Long, Float>> matches = new ArrayList<>(tokens.size());
+        for (SearchTokenizer.QueryToken token : tokens) {
+            Map<Long, Float> match = match(token, docCount);
+            if (match.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            matches.add(match);
+        }
+        // 从命中最少的词元开始求交集
+        matches.sort(Comparator.comparingInt(Map::size));
+        Map<Long, Float> scores = new HashMap<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !scores.isEmpty(); i++) {
+            Map<Long, Float> next = matches.get(i);
+            scores.entrySet().removeIf(entry -> !next.containsKey(entry.getKey()));
+            for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                entry.setValue(entry.getValue() + next.get(entry.getKey()));
+            }
+        }
+        return scores;
+    }
+
+    private Map<Long, Float> match(SearchTokenizer.QueryToken token, int docCount) {
+        Map<Long, Float> result = new HashMap<>();
+        if (!token.prefix()) {
+            addTermScores(token.text(), 1.0f, docCount, result);
+            return result;
+        }
+        NavigableMap<String, Map<Long, Float>> range =
+                data.postings.subMap(token.text(), true, token.text() + Character.MAX_VALUE, true);
+        int expanded = 0;
+        for (String term : range.keySet()) {
+            if (expanded++ >= MAX_PREFIX_EXPANSION) {
+                break;
+            }
+            // 完全匹配的词项比仅前缀匹配的得分更高
+            addTermScores(term, term.equals(token.text()) ? 1.0f : 0.8f, docCount, result);
+        }
+        return result;
+    }
+
+    private void addTermScores(String term, float boost, int docCount, Map<Long, Float> result) {
+        Map<Long, Float> docs = data.postings.get(term);
+        if (docs == null) {
+            return;
+        }
+        float idf = (float) Math.log(1.0 + (double) docCount / docs.size());
+        for (Map.Entry<Long, Float> entry : docs.entrySet()) {
+            float score = (float) Math.sqrt(entry.getValue()) * idf * boost;
+            // 同一词元展开出的多个词项只取最高分，避免前缀越短得分越高
+            result.merge(entry.getKey(), score, Math::max);
+        }
+    }
+
+    private static List<Long> topIds(Map<Long, Float> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        if (limit <= 0 || offset >= scores.size()) {
+            return Collections.emptyList();
+        }
+        Comparator<Map.Entry<Long, Float>> ranking = Map.Entry.<Long, Float>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        // 只保留前offset+limit条，避免对全部命中排序
+        PriorityQueue<Map.Entry<Long, Float>> heap = new PriorityQueue<>(wanted + 1, ranking.reversed());
+        for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Float>> top = new ArrayList<>(heap);
+        top.sort(ranking);
+        List<Long> ids = new ArrayList<>(limit);
+        for (int i = offset; i < top.size(); i++) {
+            ids.add(top.get(i).getKey());
+        }
+        return ids;
+    }
+
+    private static List<Long> idsAfter(Collection<Long> ids, long afterId, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        // 只保留ID最小的limit条，避免对全部命中排序
+        PriorityQueue<Long> heap = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+        for (Long id : ids) {
+            if (id > afterId) {
+                heap.offer(id);
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        }
+        List<Long> result = new ArrayList<>(heap);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static Map<String, Float> analyze(Book book) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, book.getTitle(), TITLE_WEIGHT);
+        addField(terms, book.getAuthor(), AUTHOR_WEIGHT);
+        addField(terms, book.getPublisher(), PUBLISHER_WEIGHT);
+        addField(terms, book.getDescription(), DESCRIPTION_WEIGHT);
+        addField(terms, book.getIsbn(), ISBN_WEIGHT);
+        String isbn = SearchTokenizer.normalizeIsbn(book.getIsbn());
+        if (isbn != null && !isbn.isEmpty()) {
+            terms.merge(isbn, ISBN_WEIGHT, Float::sum);
+        }
+        return terms;
+    }
+
+    private static void addField(Map<String, Float> terms, String value, float weight) {
+        for (String token : SearchTokenizer.tokenizeForIndex(value)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.cursorlibrary.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 图书检索分词器
+ * 拉丁字母/数字按连续字符切词，中日韩文字按单字+二元组（bigram）切分，
+ * 这样无需词典也能让中文标题按任意连续片段命中。
+ */
+public class SearchTokenizer {
+
+    /**
+     * 查询词元
+     * prefix为true时按前缀匹配（拉丁单词，支持边输入边搜索）
+     */
+    public record QueryToken(String text, boolean prefix) {
+    }
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 索引时分词：中文同时产生单字和二元组，保证单字查询也能命中
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int i = 0;
+        int length = normalized.length();
+        while (i < length) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = scanCjk(normalized, i);
+                emitCjk(normalized, i, end, true, tokens);
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = scanWord(normalized, i);
+                tokens.add(normalized.substring(i, end));
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 查询时分词：中文只使用二元组（单字查询除外），拉丁单词按前缀匹配
+     */
+    public static List<QueryToken> tokenizeForQuery(String text) {
+        List<QueryToken> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int i = 0;
+        int length = normalized.length();
+        List<String> cjkTokens = new ArrayList<>();
+        while (i < length) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = scanCjk(normalized, i);
+                cjkTokens.clear();
+                emitCjk(normalized, i, end, false, cjkTokens);
+                for (String token : cjkTokens) {
+                    tokens.add(new QueryToken(token, false));
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = scanWord(normalized, i);
+                tokens.add(new QueryToken(normalized.substring(i, end), true));
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * ISBN归一化：去掉连字符和空格，便于"978-7-111-64124-7"与"9787111641247"互相匹配
+     */
+    public static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 判断查询串是否像ISBN（只包含数字、连字符、空格和X，且至少10位数字）
+     */
+    public static boolean looksLikeIsbn(String text) {
+        if (text == null) {
+            return false;
+        }
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isDigit(c)) {
+                digits++;
+            } else if (c != '-' && c != ' ' && c != 'x' && c != 'X') {
+                return false;
+            }
+        }
+        return digits >= 10;
+    }
+
+    private static String normalize(String text) {
+        // NFKC把全角字母数字转换为半角，例如"（第５版）"
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private static int scanCjk(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (!isCjk(cp)) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        return i;
+    }
+
+    private static int scanWord(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp) || !Character.isLetterOrDigit(cp)) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        return i;
+    }
+
+    private static void emitCjk(String text, int start, int end, boolean withUnigrams, List<String> out) {
+        int[] codePoints = text.substring(start, end).codePoints().toArray();
+        if (codePoints.length == 1) {
+            out.add(new String(codePoints, 0, 1));
+            return;
+        }
+        for (int j = 0; j < codePoints.length; j++) {
+            if (withUnigrams) {
+                out.add(new String(codePoints, j, 1));
+            }
+            if (j + 1 < codePoints.length) {
+                out.add(new String(codePoints, j, 2));
+            }
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
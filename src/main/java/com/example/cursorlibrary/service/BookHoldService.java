@@ -0,0 +1,22 @@
+package com.example.cursorlibrary.service;
+
+import com.example.cursorlibrary.dto.BookHoldDTO;
+
+import java.util.List;
+
+/**
+ * 图书预约服务
+ * 库存不足时排队预约，归还或拒绝释放图书时按先后顺序自动分配给队首，生成待审批的借阅申请；
+ * 客户端查询预约状态和排队位置，不需要反复重试借阅。
+ */
+public interface BookHoldService {
+    // 预约图书；有库存时直接借阅，预约立即完成
+    BookHoldDTO placeHold(String username, Long bookId);
+
+    BookHoldDTO getHold(Long id, String username);
+
+    // 用户最近的预约
+    List<BookHoldDTO> getUserHolds(String username);
+
+    BookHoldDTO cancelHold(Long id, String username);
+}
@@ -0,0 +1,21 @@
+package com.example.cursorlibrary.service;
+
+import com.example.cursorlibrary.dto.BookImportProgress;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 图书批量导入服务
+ * 上传的CSV或JSON Lines文件在后台逐行解析、校验、按ISBN去重，并以JDBC批量插入写入数据库。
+ */
+public interface BookImportService {
+
+    enum Format {
+        CSV, NDJSON
+    }
+
+    // 提交导入任务，返回任务的初始进度（包含任务ID）
+    BookImportProgress startImport(MultipartFile file, String format);
+
+    // 查询导入任务进度
+    BookImportProgress getProgress(String jobId);
+}
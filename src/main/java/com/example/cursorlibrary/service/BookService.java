@@ -1,13 +1,19 @@
 package com.example.cursorlibrary.service;
 
 import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.CursorPage;
+import com.example.cursorlibrary.dto.PurgeProgress;
 import com.example.cursorlibrary.entity.Book;
 import org.springframework.data.domain.Page;
 
 public interface BookService {
     Page<Book> findBooks(String keyword, int page, int size);
+    // 游标分页（按id升序），after 为上一页返回的 nextCursor
+    CursorPage<Book> scrollBooks(String keyword, String after, int size);
     Book addBook(BookDTO bookDTO);
     Book findById(Long id);
     Book updateBook(Long id, BookDTO bookDTO);
     void deleteBook(Long id);
+    // 借阅历史较多时在后台分块删除，返回任务进度
+    PurgeProgress deleteBookAsync(Long id);
 } 
\ No newline at end of file
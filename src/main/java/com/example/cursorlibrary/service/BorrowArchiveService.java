@@ -0,0 +1,11 @@
+package com.example.cursorlibrary.service;
+
+/**
+ * 借阅记录归档服务
+ * 把超过保留期限的已归还、已拒绝记录从 borrow_records 移到 borrow_records_archive，
+ * 热表只保留未完成和近期的记录，日常查询的数据量不随历史增长。
+ */
+public interface BorrowArchiveService {
+    // 分批归档到期的已结束记录，返回本次归档的记录数
+    long archiveClosedRecords();
+}
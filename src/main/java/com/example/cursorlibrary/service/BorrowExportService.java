@@ -0,0 +1,20 @@
+package com.example.cursorlibrary.service;
+
+import com.example.cursorlibrary.dto.BorrowExportFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 借阅记录流式导出
+ * 边读边写，内存占用与导出的记录数无关
+ */
+public interface BorrowExportService {
+
+    enum Format {
+        CSV, NDJSON
+    }
+
+    // 按条件导出借阅记录到输出流，返回导出的记录数
+    long export(BorrowExportFilter filter, Format format, OutputStream out) throws IOException;
+}
@@ -1,16 +1,23 @@
 package com.example.cursorlibrary.service;
 
-import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.dto.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface BorrowService {
-    BorrowRecord borrowBook(String username, Long bookId);
-    Page<BorrowRecord> getBorrows(String username, String status, Pageable pageable);
-    Page<BorrowRecord> getAllBorrows(String status, Pageable pageable);
-    BorrowRecord approveBorrow(Long id);
-    BorrowRecord rejectBorrow(Long id);
-    BorrowRecord returnBook(Long id, String username);
-    BorrowRecord adminReturnBook(Long id);
-    Page<BorrowRecord> getUserBorrowRecords(String username, Pageable pageable);
-} 
\ No newline at end of file
+    BorrowRecordDTO borrowBook(String username, Long bookId);
+    Page<BorrowRecordDTO> getBorrows(String username, String status, Pageable pageable);
+    Page<BorrowRecordDTO> getAllBorrows(String status, Pageable pageable);
+    BorrowRecordDTO approveBorrow(Long id);
+    BorrowRecordDTO rejectBorrow(Long id);
+    BorrowRecordDTO returnBook(Long id, String username);
+    BorrowRecordDTO adminReturnBook(Long id);
+    // 图书增加库存后，把新增的副本按排队顺序分配给等待中的预约，返回分配的数量（调用方已锁定图书行）
+    int assignHolds(Long bookId, int copies);
+    Page<BorrowRecordDTO> getUserBorrowRecords(String username, Pageable pageable);
+
+    // 游标分页（按借阅时间倒序），after 为上一页返回的 nextCursor
+    CursorPage<BorrowRecordDTO> scrollBorrows(String username, String status, String after, int size);
+    CursorPage<BorrowRecordDTO> scrollAllBorrows(String status, String after, int size);
+}
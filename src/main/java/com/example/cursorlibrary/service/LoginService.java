@@ -0,0 +1,15 @@
+package com.example.cursorlibrary.service;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 登录认证服务
+ * 密码校验（bcrypt）在有界的登录线程池中执行，不占用请求线程；线程池已满时立即以
+ * LoginOverloadedException 结束，认证失败时以 AuthenticationException 结束。
+ */
+public interface LoginService {
+    // 校验用户名和密码，结果的回调在登录线程中执行
+    CompletableFuture<Authentication> authenticate(String username, String password);
+}
@@ -0,0 +1,39 @@
+package com.example.cursorlibrary.service;
+
+import com.example.cursorlibrary.dto.MaintenanceJobDTO;
+
+import java.util.List;
+
+/**
+ * 后台数据库维护任务：结构变更和数据迁移按块在后台执行，不阻塞在线请求。
+ * 支持查询进度、调整限速、取消，失败或服务重启中断后可以从断点继续执行。
+ */
+public interface MaintenanceService {
+
+    /**
+     * 提交维护任务，同一张表同时只能有一个进行中的任务
+     */
+    MaintenanceJobDTO start(MaintenanceJobDTO request);
+
+    MaintenanceJobDTO getJob(String jobId);
+
+    /**
+     * 最近提交的任务（最多50个），按提交时间倒序
+     */
+    List<MaintenanceJobDTO> listJobs();
+
+    /**
+     * 取消任务：执行中的任务在当前块完成后停止，并清理中间结果；失败的任务直接清理
+     */
+    MaintenanceJobDTO cancel(String jobId);
+
+    /**
+     * 从断点继续执行失败（含服务重启中断）的任务
+     */
+    MaintenanceJobDTO resume(String jobId);
+
+    /**
+     * 调整限速：chunkSize、pauseMillis 为 null 时保持不变，执行中的任务从下一块开始生效
+     */
+    MaintenanceJobDTO updateThrottle(String jobId, Integer chunkSize, Long pauseMillis);
+}
@@ -0,0 +1,11 @@
+package com.example.cursorlibrary.service;
+
+/**
+ * 借阅逾期检查服务
+ * 定期把应还日期已过的借阅中记录标记为逾期（overdue_since），逾期数量由统计服务的计数器提供，
+ * 查询统计时不需要逐条计算。
+ */
+public interface OverdueService {
+    // 分批标记新到期的借阅记录，返回本次标记的记录数
+    long markOverdue();
+}
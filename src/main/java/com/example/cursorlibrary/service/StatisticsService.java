@@ -0,0 +1,34 @@
+package com.example.cursorlibrary.service;
+
+import com.example.cursorlibrary.repository.StatusCount;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仪表盘统计服务
+ * 统计值保存在内存计数器中，并定期与数据库校准。
+ * 各业务服务在修改数据的事务内调用 on* 方法登记变更，计数器在事务提交后更新，回滚则不变。
+ */
+public interface StatisticsService {
+    // 获取统计数据（常数时间，不查询数据库）
+    Map<String, Object> getStatistics();
+
+    // 以数据库为准重新校准全部计数器
+    void reconcile();
+
+    void onBooksAdded(long count);
+    void onBooksRemoved(long count);
+    void onUsersAdded(long count);
+    void onUsersRemoved(long count);
+
+    // 借阅记录变更
+    void onBorrowCreated(String status);
+    void onBorrowStatusChanged(String fromStatus, String toStatus);
+    void onBorrowsRemoved(List<StatusCount> removedByStatus);
+    void onBorrowsRemoved(String status, long count);
+
+    // 借阅逾期标记、逾期借阅归还
+    void onBorrowsOverdue(long count);
+    void onOverdueReturned();
+}
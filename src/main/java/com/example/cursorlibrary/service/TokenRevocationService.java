@@ -0,0 +1,19 @@
+package com.example.cursorlibrary.service;
+
+import java.util.Date;
+
+/**
+ * 令牌撤销服务
+ * 退出登录时撤销单个令牌，修改密码、变更角色或状态、删除用户时撤销该用户此前签发的全部令牌。
+ * 撤销记录持久化，重启后仍然有效；请求路径上的检查只访问内存，不查询数据库。
+ */
+public interface TokenRevocationService {
+    // 撤销单个令牌，直到令牌过期；没有 jti 的旧令牌无法单独撤销
+    void revokeToken(String jti, String username, Date expiresAt);
+
+    // 撤销该用户在此刻（毫秒精度）之前签发的全部令牌，在调用方事务提交后生效
+    void revokeUser(String username, String reason);
+
+    // 令牌是否已被撤销
+    boolean isRevoked(String jti, String username, Date issuedAt);
+}
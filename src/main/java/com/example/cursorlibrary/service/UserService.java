@@ -1,20 +1,28 @@
 package com.example.cursorlibrary.service;
 
+import com.example.cursorlibrary.dto.PurgeProgress;
 import com.example.cursorlibrary.dto.RegisterRequest;
 import com.example.cursorlibrary.dto.UserDTO;
 import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.ProfileVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface UserService {
     // 用户管理相关方法
     Page<User> findUsers(String keyword, Pageable pageable);
+    // 查询用户列表并附带借阅记录统计（整页只额外执行一次聚合查询）
+    Page<UserDTO> findUsersWithBorrowCounts(String keyword, Pageable pageable);
     User register(RegisterRequest request);
     User updateUser(Long id, UserDTO userDTO);
     void deleteUser(Long id);
+    // 借阅历史较多时在后台分块删除，返回任务进度
+    PurgeProgress deleteUserAsync(Long id);
     
     // 其他必要的方法
     User findByUsername(String username);
+    // 用户当前的版本号（每次修改递增）和最后登录时间，不加载整行
+    ProfileVersion findProfileVersionByUsername(String username);
     User findById(Long id);
     void updateLastLogin(String username);
     void updatePassword(String username, String currentPassword, String newPassword);
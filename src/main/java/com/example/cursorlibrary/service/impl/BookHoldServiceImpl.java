@@ -0,0 +1,112 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.BookHoldDTO;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.entity.BookHold;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookHoldRepository;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.service.BookHoldService;
+import com.example.cursorlibrary.service.BorrowService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 预约入队时锁定图书行再检查库存，与释放库存的事务（先增加库存再查找队首预约）按同一行锁串行：
+ * 入队时看到库存为0，则释放库存的事务一定能看到这条预约，不会出现有库存而预约一直等待的情况。
+ * 管理员增加库存时同样先锁定图书行，新增的副本先分配给队首（{@link BorrowServiceImpl#assignHolds}）。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookHoldServiceImpl implements BookHoldService {
+
+    private final BookHoldRepository bookHoldRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final BorrowService borrowService;
+
+    @Override
+    @Transactional
+    public BookHoldDTO placeHold(String username, Long bookId) {
+        User user = findUser(username);
+        int stock = bookRepository.lockStock(bookId)
+                .orElseThrow(() -> new RuntimeException("图书不存在"));
+        if (bookHoldRepository.existsByBookIdAndUserIdAndStatus(bookId, user.getId(), "WAITING")) {
+            throw new RuntimeException("已在该图书的预约队列中");
+        }
+
+        BookHold hold = new BookHold();
+        hold.setBookId(bookId);
+        hold.setUserId(user.getId());
+        hold.setCreatedAt(LocalDateTime.now());
+        if (stock > 0) {
+            // 有库存时没有人在排队，直接借阅
+            BorrowRecordDTO borrow = borrowService.borrowBook(username, bookId);
+            hold.setStatus("FULFILLED");
+            hold.setBorrowRecordId(borrow.getId());
+            hold.setClosedAt(hold.getCreatedAt());
+        } else {
+            hold.setStatus("WAITING");
+        }
+        BookHold saved = bookHoldRepository.save(hold);
+        log.info("用户 {} 预约图书 {}，预约ID: {}，状态: {}", username, bookId, saved.getId(), saved.getStatus());
+        return toDTO(saved);
+    }
+
+    @Override
+    public BookHoldDTO getHold(Long id, String username) {
+        User user = findUser(username);
+        BookHold hold = bookHoldRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("预约不存在"));
+        if (!hold.getUserId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            throw new RuntimeException("无权查看此预约");
+        }
+        return toDTO(hold);
+    }
+
+    @Override
+    public List<BookHoldDTO> getUserHolds(String username) {
+        User user = findUser(username);
+        return bookHoldRepository.findTop50ByUserIdOrderByIdDesc(user.getId()).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public BookHoldDTO cancelHold(Long id, String username) {
+        User user = findUser(username);
+        if (bookHoldRepository.markCancelled(id, user.getId(), LocalDateTime.now()) == 0) {
+            BookHold hold = bookHoldRepository.findById(id).orElse(null);
+            if (hold == null || !hold.getUserId().equals(user.getId())) {
+                throw new RuntimeException("预约不存在");
+            }
+            throw new RuntimeException("预约已分配或已取消，当前状态: " + hold.getStatus());
+        }
+        log.info("用户 {} 取消预约 {}", username, id);
+        return bookHoldRepository.findById(id).map(this::toDTO)
+                .orElseThrow(() -> new RuntimeException("预约不存在"));
+    }
+
+    private BookHoldDTO toDTO(BookHold hold) {
+        BookHoldDTO dto = BookHoldDTO.fromHold(hold);
+        if ("WAITING".equals(hold.getStatus())) {
+            dto.setPosition(bookHoldRepository.countByBookIdAndStatusAndIdLessThan(
+                    hold.getBookId(), "WAITING", hold.getId()) + 1);
+        }
+        return dto;
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+    }
+}
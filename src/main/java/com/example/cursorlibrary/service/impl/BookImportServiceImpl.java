@@ -0,0 +1,518 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.BookImportProgress;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.BookImportService;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO books (title, author, isbn, publisher, publish_date, category, description, stock, " +
+            "status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'AVAILABLE', ?, ?)";
+
+    // 已结束的任务保留一段时间供查询进度
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final StatisticsService statisticsService;
+    private final ObjectMapper objectMapper;
+    private final Cache bookPagesCache;
+    private final TaskExecutor executor;
+    private final int batchSize;
+    private final int maxErrors;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public BookImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 BookRepository bookRepository,
+                                 BookSearchIndex bookSearchIndex,
+                                 StatisticsService statisticsService,
+                                 ObjectMapper objectMapper,
+                                 CacheManager cacheManager,
+                                 @Qualifier("bookImportExecutor") TaskExecutor executor,
+                                 @Value("${book-import.batch-size:1000}") int batchSize,
+                                 @Value("${book-import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.statisticsService = statisticsService;
+        this.objectMapper = objectMapper;
+        this.bookPagesCache = cacheManager.getCache(CacheConfig.BOOK_PAGES);
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public BookImportProgress startImport(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("导入文件不能为空");
+        }
+        Format importFormat = resolveFormat(file.getOriginalFilename(), format);
+
+        // 请求结束后上传的临时文件会被清理，先转存到自己的临时文件中
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("book-import-", ".tmp");
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            throw new RuntimeException("保存导入文件失败: " + e.getMessage());
+        }
+
+        purgeFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), importFormat);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> runImport(job, tempFile));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            deleteQuietly(tempFile);
+            throw new RuntimeException("导入任务过多，请稍后再试");
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public BookImportProgress getProgress(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("导入任务不存在");
+        }
+        return job.snapshot();
+    }
+
+    private Format resolveFormat(String fileName, String format) {
+        if (format != null && !format.isEmpty()) {
+            String normalized = format.trim().toUpperCase(Locale.ROOT);
+            if (normalized.equals("JSONL") || normalized.equals("JSON")) {
+                return Format.NDJSON;
+            }
+            try {
+                return Format.valueOf(normalized);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的导入格式: " + format);
+            }
+        }
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+            return Format.NDJSON;
+        }
+        return Format.CSV;
+    }
+
+    private void runImport(ImportJob job, Path file) {
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // 预先载入已有ISBN，整个导入过程只查询一次
+            Set<String> knownIsbns = new HashSet<>(jdbcTemplate.queryForList("SELECT isbn FROM books", String.class));
+            BatchWriter writer = new BatchWriter(job, knownIsbns);
+            if (job.format == Format.NDJSON) {
+                readNdjson(reader, job, writer);
+            } else {
+                readCsv(reader, job, writer);
+            }
+            writer.flush();
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            log.error("图书导入任务 {} 失败", job.id, e);
+            job.message = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            deleteQuietly(file);
+        }
+        log.info("图书导入任务 {} 结束: {}, 导入 {}, 重复 {}, 失败 {}",
+                job.id, job.status, job.imported.get(), job.duplicates.get(), job.failed.get());
+    }
+
+    private void readCsv(Reader reader, ImportJob job, BatchWriter writer) throws IOException {
+        skipBom(reader);
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IOException("文件为空");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        for (String required : List.of("title", "author", "isbn")) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("缺少必需的列: " + required);
+            }
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            job.processed.incrementAndGet();
+            long line = csv.getRecordLine();
+            BookDTO book;
+            try {
+                book = BookDTO.builder()
+                        .title(column(record, columns, "title"))
+                        .author(column(record, columns, "author"))
+                        .isbn(column(record, columns, "isbn"))
+                        .publisher(column(record, columns, "publisher"))
+                        .publishDate(parseDate(column(record, columns, "publishdate")))
+                        .category(column(record, columns, "category"))
+                        .description(column(record, columns, "description"))
+                        .stock(parseStock(column(record, columns, "stock")))
+                        .build();
+            } catch (IllegalArgumentException e) {
+                job.addError(line, column(record, columns, "isbn"), e.getMessage());
+                continue;
+            }
+            writer.accept(line, book);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportJob job, BatchWriter writer) throws IOException {
+        skipBom(reader);
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            job.processed.incrementAndGet();
+            BookDTO book;
+            try {
+                book = objectMapper.readValue(text, BookDTO.class);
+            } catch (JsonProcessingException e) {
+                job.addError(line, null, "JSON格式错误: " + e.getOriginalMessage());
+                continue;
+            }
+            writer.accept(line, book);
+        }
+    }
+
+    private static void skipBom(Reader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("出版日期格式错误，应为 yyyy-MM-dd: " + value);
+        }
+    }
+
+    private static Integer parseStock(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("库存必须是整数: " + value);
+        }
+    }
+
+    /**
+     * 校验单行数据，返回错误信息，合法时返回 null
+     */
+    private static String validate(BookDTO book) {
+        if (isBlank(book.getTitle())) {
+            return "书名不能为空";
+        }
+        if (isBlank(book.getAuthor())) {
+            return "作者不能为空";
+        }
+        if (isBlank(book.getIsbn())) {
+            return "ISBN不能为空";
+        }
+        if (isBlank(book.getPublisher())) {
+            return "出版社不能为空";
+        }
+        if (book.getPublishDate() == null) {
+            return "出版日期不能为空";
+        }
+        if (isBlank(book.getCategory())) {
+            return "分类不能为空";
+        }
+        if (book.getTitle().length() > 100) {
+            return "书名不能超过100个字符";
+        }
+        if (book.getAuthor().length() > 100) {
+            return "作者不能超过100个字符";
+        }
+        if (book.getIsbn().length() > 20) {
+            return "ISBN不能超过20个字符";
+        }
+        if (book.getPublisher().length() > 100) {
+            return "出版社不能超过100个字符";
+        }
+        if (book.getCategory().length() > 50) {
+            return "分类不能超过50个字符";
+        }
+        if (book.getStock() != null && book.getStock() < 0) {
+            return "库存不能为负数";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导入临时文件失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 校验、去重并攒批写入
+     */
+    private final class BatchWriter {
+        private final ImportJob job;
+        private final Set<String> knownIsbns;
+        private final List<PendingRow> batch = new ArrayList<>();
+
+        BatchWriter(ImportJob job, Set<String> knownIsbns) {
+            this.job = job;
+            this.knownIsbns = knownIsbns;
+        }
+
+        void accept(long line, BookDTO book) {
+            trim(book);
+            String error = validate(book);
+            if (error != null) {
+                job.addError(line, book.getIsbn(), error);
+                return;
+            }
+            // 库中已有或本文件中已出现过的ISBN视为重复
+            if (!knownIsbns.add(book.getIsbn())) {
+                job.duplicates.incrementAndGet();
+                return;
+            }
+            batch.add(new PendingRow(line, book));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<PendingRow> rows = new ArrayList<>(batch);
+            batch.clear();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            List<PendingRow> inserted;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> bind(ps, row.book(), now));
+                    statisticsService.onBooksAdded(rows.size());
+                });
+                inserted = rows;
+            } catch (DataAccessException e) {
+                // 整批失败时逐行重试，找出具体出错的行
+                inserted = insertOneByOne(rows, now);
+            }
+            job.imported.addAndGet(inserted.size());
+            afterInsert(inserted);
+        }
+
+        private List<PendingRow> insertOneByOne(List<PendingRow> rows, Timestamp now) {
+            List<PendingRow> inserted = new ArrayList<>();
+            for (PendingRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row.book(), now));
+                        statisticsService.onBooksAdded(1);
+                    });
+                    inserted.add(row);
+                } catch (DuplicateKeyException e) {
+                    job.duplicates.incrementAndGet();
+                } catch (DataAccessException e) {
+                    job.addError(row.line(), row.book().getIsbn(), "写入失败: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+            return inserted;
+        }
+
+        /**
+         * 新导入的图书加入检索索引并清空列表页缓存（统计计数在写入的事务内登记）
+         */
+        private void afterInsert(List<PendingRow> inserted) {
+            if (inserted.isEmpty()) {
+                return;
+            }
+            List<String> isbns = inserted.stream().map(row -> row.book().getIsbn()).toList();
+            for (Book book : bookRepository.findByIsbnIn(isbns)) {
+                bookSearchIndex.index(book);
+            }
+            bookPagesCache.clear();
+        }
+
+        private void trim(BookDTO book) {
+            book.setTitle(trimToNull(book.getTitle()));
+            book.setAuthor(trimToNull(book.getAuthor()));
+            book.setIsbn(trimToNull(book.getIsbn()));
+            book.setPublisher(trimToNull(book.getPublisher()));
+            book.setCategory(trimToNull(book.getCategory()));
+        }
+
+        private String trimToNull(String value) {
+            if (value == null) {
+                return null;
+            }
+            String trimmed = value.trim();
+            return trimmed.isEmpty() ? null : trimmed;
+        }
+
+        private void bind(PreparedStatement ps, BookDTO book, Timestamp now) throws SQLException {
+            ps.setString(1, book.getTitle());
+            ps.setString(2, book.getAuthor());
+            ps.setString(3, book.getIsbn());
+            ps.setString(4, book.getPublisher());
+            ps.setDate(5, Date.valueOf(book.getPublishDate()));
+            ps.setString(6, book.getCategory());
+            ps.setString(7, book.getDescription());
+            ps.setInt(8, book.getStock() != null ? book.getStock() : 0);
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        }
+    }
+
+    private record PendingRow(long line, BookDTO book) {
+    }
+
+    /**
+     * 导入任务的运行状态，由导入线程更新，查询线程读取快照
+     */
+    private final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final Format format;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<BookImportProgress.RowError> errors = new ArrayList<>();
+        private volatile String status = "QUEUED";
+        private volatile String message;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(String id, String fileName, Format format) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        void addError(long line, String isbn, String error) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new BookImportProgress.RowError(line, isbn, error));
+                }
+            }
+        }
+
+        BookImportProgress snapshot() {
+            List<BookImportProgress.RowError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            return BookImportProgress.builder()
+                    .jobId(id)
+                    .fileName(fileName)
+                    .format(format.name())
+                    .status(status)
+                    .processed(processed.get())
+                    .imported(imported.get())
+                    .duplicates(duplicates.get())
+                    .failed(failed.get())
+                    .errors(errorsCopy)
+                    .message(message)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
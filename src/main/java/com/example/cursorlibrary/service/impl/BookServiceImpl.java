@@ -1,40 +1,140 @@
 package com.example.cursorlibrary.service.impl;
 
+import com.example.cursorlibrary.config.CacheConfig;
 import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.CursorPage;
+import com.example.cursorlibrary.dto.PurgeProgress;
 import com.example.cursorlibrary.entity.Book;
-import com.example.cursorlibrary.entity.BorrowRecord;
 import com.example.cursorlibrary.repository.BookRepository;
-import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
 import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.util.CursorCodec;
+import com.example.cursorlibrary.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final BookRepository bookRepository;
-    private final BorrowRecordRepository borrowRecordRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final StatisticsService statisticsService;
+    private final BorrowService borrowService;
+    private final BorrowHistoryPurger borrowHistoryPurger;
+    private final CacheManager cacheManager;
 
+    /**
+     * 前几页的列表和检索结果走缓存；sync 保证缓存过期时同一页只有一个线程回源查询
+     */
     @Override
+    @Cacheable(cacheNames = CacheConfig.BOOK_PAGES, sync = true,
+            key = "T(java.util.Objects).toString(#keyword, '') + ':' + #page + ':' + #size",
+            condition = "#page < " + CacheConfig.HOT_PAGES)
     public Page<Book> findBooks(String keyword, int page, int size) {
         if (keyword != null && !keyword.isEmpty()) {
+            if (bookSearchIndex.isReady()) {
+                return searchFromIndex(keyword, page, size);
+            }
+            // 索引尚未构建完成时回退到数据库模糊查询
             return bookRepository.findByTitleContainingOrAuthorContaining(
                     keyword, keyword, PageRequest.of(page, size));
         }
         return bookRepository.findAll(PageRequest.of(page, size));
     }
 
+    @Override
+    public CursorPage<Book> scrollBooks(String keyword, String after, int size) {
+        long afterId = 0L;
+        if (after != null && !after.isEmpty()) {
+            try {
+                afterId = Long.parseLong(CursorCodec.decode(after, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+        PageRequest pageable = PageRequest.of(0, Math.min(Math.max(size, 1), MAX_SCROLL_SIZE));
+        if (keyword != null && !keyword.isEmpty()) {
+            // 关键词游标分页只走内存索引，与列表检索的命中规则一致，不回退到数据库模糊查询
+            if (!bookSearchIndex.isReady()) {
+                throw new RuntimeException("检索索引正在构建，请稍后重试");
+            }
+            return scrollFromIndex(keyword, afterId, pageable.getPageSize());
+        }
+        Slice<Book> slice = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageable);
+
+        List<Book> books = slice.getContent();
+        String nextCursor = slice.hasNext() ? CursorCodec.encode(books.get(books.size() - 1).getId()) : null;
+        return new CursorPage<>(books, pageable.getPageSize(), slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * 由内存索引按ID升序取出游标之后的命中，多取一条判断是否还有下一页
+     */
+    private CursorPage<Book> scrollFromIndex(String keyword, long afterId, int size) {
+        List<Long> ids = bookSearchIndex.searchAfter(keyword, afterId, size + 1).ids();
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        Map<Long, Book> booksById = bookRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> books = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        // 游标取索引中的ID，即使该图书刚被删除也能继续向后翻页
+        String nextCursor = hasNext ? CursorCodec.encode(pageIds.get(size - 1)) : null;
+        return new CursorPage<>(books, size, hasNext, nextCursor);
+    }
+
+    /**
+     * 由内存索引完成检索和排序，数据库只负责按ID加载当前页的图书
+     */
+    private Page<Book> searchFromIndex(String keyword, int page, int size) {
+        BookSearchIndex.SearchResult result = bookSearchIndex.search(keyword, page * size, size);
+        PageRequest pageable = PageRequest.of(page, size);
+        if (result.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.total());
+        }
+        Map<Long, Book> booksById = bookRepository.findAllById(result.ids()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> books = new ArrayList<>(result.ids().size());
+        for (Long id : result.ids()) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return new PageImpl<>(books, pageable, result.total());
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOK_PAGES, allEntries = true)
     public Book addBook(BookDTO bookDTO) {
         Book book = new Book();
         book.setTitle(bookDTO.getTitle());
@@ -48,10 +148,14 @@ public class BookServiceImpl implements BookService {
         book.setCreatedAt(LocalDateTime.now());
         book.setUpdatedAt(LocalDateTime.now());
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        statisticsService.onBooksAdded(1);
+        TransactionUtils.afterCommit(() -> bookSearchIndex.index(saved));
+        return saved;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id", sync = true)
     public Book findById(Long id) {
         return bookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("图书不存在"));
@@ -59,7 +163,17 @@ public class BookServiceImpl implements BookService {
 
     @Override
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BOOK_PAGES, allEntries = true)
+    })
     public Book updateBook(Long id, BookDTO bookDTO) {
+        // 修改库存时先锁定图书行，与预约入队、归还释放库存按同一行锁串行
+        Integer previousStock = null;
+        if (bookDTO.getStock() != null) {
+            previousStock = bookRepository.lockStock(id)
+                    .orElseThrow(() -> new RuntimeException("图书不存在"));
+        }
         Book book = findById(id);
         
         if (bookDTO.getTitle() != null) {
@@ -88,68 +202,48 @@ public class BookServiceImpl implements BookService {
         }
         
         book.setUpdatedAt(LocalDateTime.now());
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        TransactionUtils.afterCommit(() -> bookSearchIndex.index(saved));
+        // 新增的库存先分配给等待中的预约，有人排队时库存不会大于0，借阅和预约不能越过队列
+        if (previousStock != null && saved.getStock() > previousStock
+                && borrowService.assignHolds(id, saved.getStock() - previousStock) > 0) {
+            return bookRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("图书不存在"));
+        }
+        return saved;
     }
 
+    /**
+     * 借阅历史分块删除，每块独立提交，因此本方法不在单个大事务中执行
+     */
     @Override
-    @Transactional
     public void deleteBook(Long id) {
-        System.out.println("开始删除图书，ID: " + id);
-        
-        // 检查图书是否存在
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("图书不存在"));
-        
-        // 首先获取所有关联的借阅记录（无论状态）
-        List<BorrowRecord> allBorrowRecords = borrowRecordRepository.findByBookId(id);
-        System.out.println("图书关联的所有借阅记录数量: " + allBorrowRecords.size());
-        
-        // 检查是否有未完成的借阅记录（待审核或已借出）
-        List<BorrowRecord> activeBorrows = allBorrowRecords.stream()
-                .filter(br -> "PENDING".equals(br.getStatus()) || "BORROWED".equals(br.getStatus()))
-                .collect(Collectors.toList());
-        
-        if (!activeBorrows.isEmpty()) {
-            System.out.println("图书存在" + activeBorrows.size() + "条未完成的借阅记录，无法删除");
-            throw new RuntimeException("该图书有" + activeBorrows.size() + "条未完成的借阅记录，请等待归还后再删除");
-        }
-        
-        // 删除所有的借阅记录（已经确认没有未完成的记录）
-        try {
-            if (!allBorrowRecords.isEmpty()) {
-                System.out.println("开始删除" + allBorrowRecords.size() + "条借阅记录");
-                
-                // 方法1: 使用Repository直接删除
-                for (BorrowRecord br : allBorrowRecords) {
-                    System.out.println("删除借阅记录 ID: " + br.getId() + ", 状态: " + br.getStatus());
-                    borrowRecordRepository.delete(br);
-                }
-                System.out.println("所有借阅记录已直接删除");
-                
-                // 方法2: 使用自定义批量删除方法
-                List<String> allStatusList = Arrays.asList("RETURNED", "REJECTED", "PENDING", "BORROWED");
-                try {
-                    int deletedCount = borrowRecordRepository.deleteByBookIdAndStatusIn(id, allStatusList);
-                    System.out.println("通过批量删除方法删除了" + deletedCount + "条借阅记录");
-                } catch (Exception e) {
-                    System.err.println("批量删除记录失败，但已通过方法1处理: " + e.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("删除借阅记录失败: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("删除借阅记录失败，无法删除图书: " + e.getMessage());
+        log.debug("开始删除图书，ID: {}", id);
+        if (!bookRepository.existsById(id)) {
+            throw new RuntimeException("图书不存在");
         }
-        
-        try {
-            // 最后删除图书本身
-            System.out.println("开始删除图书实体");
-            bookRepository.delete(book);
-            System.out.println("图书删除成功，ID: " + id);
-        } catch (Exception e) {
-            System.err.println("删除图书失败: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("删除图书失败: " + e.getMessage());
+        long deleted = borrowHistoryPurger.delete(BorrowHistoryPurger.Owner.BOOK, id, () -> removeBook(id));
+        log.info("图书删除成功，ID: {}，同时删除借阅记录 {} 条", id, deleted);
+    }
+
+    @Override
+    public PurgeProgress deleteBookAsync(Long id) {
+        if (!bookRepository.existsById(id)) {
+            throw new RuntimeException("图书不存在");
         }
+        return borrowHistoryPurger.startAsync(BorrowHistoryPurger.Owner.BOOK, id, () -> removeBook(id));
+    }
+
+    /**
+     * 在借阅历史清理完成后的最后一个事务中执行；缓存是事务感知的，失效在提交后生效
+     */
+    private void removeBook(Long id) {
+        Book book = bookRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("图书不存在"));
+        bookRepository.delete(book);
+        cacheManager.getCache(CacheConfig.BOOKS).evict(id);
+        cacheManager.getCache(CacheConfig.BOOK_PAGES).clear();
+        statisticsService.onBooksRemoved(1);
+        TransactionUtils.afterCommit(() -> bookSearchIndex.remove(id));
     }
-} 
\ No newline at end of file
+}
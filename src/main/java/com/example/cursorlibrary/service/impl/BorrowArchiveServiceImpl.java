@@ -0,0 +1,92 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.service.BorrowArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 每批在一个短事务中完成：按 (status, borrow_date) 索引取出一批到期记录的ID，复制到归档表后从热表删除。
+ * 已结束的记录不会再变更状态，归档不影响借阅流程；统计计数包含归档表，归档前后不变。
+ */
+@Slf4j
+@Service
+public class BorrowArchiveServiceImpl implements BorrowArchiveService {
+
+    private static final List<String> CLOSED_STATUSES = List.of("RETURNED", "REJECTED");
+
+    private static final String COLUMNS = "id, book_id, user_id, borrow_date, due_date, return_date, overdue_since, status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    public BorrowArchiveServiceImpl(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${borrow-archive.retention-days:365}") int retentionDays,
+                                    @Value("${borrow-archive.batch-size:1000}") int batchSize,
+                                    @Value("${borrow-archive.pause-millis:0}") long pauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.batchSize = Math.max(batchSize, 1);
+        this.pauseMillis = Math.max(pauseMillis, 0);
+    }
+
+    @Override
+    @Scheduled(cron = "${borrow-archive.cron:0 30 3 * * *}")
+    public long archiveClosedRecords() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        try {
+            for (String status : CLOSED_STATUSES) {
+                int moved;
+                do {
+                    moved = archiveBatch(status, Timestamp.valueOf(cutoff));
+                    total += moved;
+                    if (moved == batchSize && pauseMillis > 0) {
+                        // 给在线请求让出数据库资源
+                        Thread.sleep(pauseMillis);
+                    }
+                } while (moved == batchSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("借阅记录归档被中断，已归档 {} 条", total);
+            return total;
+        }
+        log.info("借阅记录归档完成，共归档 {} 条借阅日期早于 {} 的已结束记录", total, cutoff);
+        return total;
+    }
+
+    private int archiveBatch(String status, Timestamp cutoff) {
+        Integer moved = transactionTemplate.execute(tx -> {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM borrow_records WHERE status = ? AND borrow_date < ? ORDER BY borrow_date, id LIMIT ?",
+                    Long.class, status, cutoff, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            List<Object> args = new ArrayList<>(ids.size() + 1);
+            args.add(Timestamp.valueOf(LocalDateTime.now()));
+            args.addAll(ids);
+            jdbcTemplate.update("INSERT INTO borrow_records_archive (" + COLUMNS + ", archived_at) "
+                    + "SELECT " + COLUMNS + ", ? FROM borrow_records WHERE id IN (" + placeholders + ")", args.toArray());
+            return jdbcTemplate.update("DELETE FROM borrow_records WHERE id IN (" + placeholders + ")", ids.toArray());
+        });
+        return moved == null ? 0 : moved;
+    }
+}
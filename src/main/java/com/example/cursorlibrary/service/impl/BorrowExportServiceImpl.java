@@ -0,0 +1,246 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.BorrowExportFilter;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.service.BorrowExportService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class BorrowExportServiceImpl implements BorrowExportService {
+
+    private static final String[] COLUMNS = {
+            "id", "userId", "username", "bookId", "title", "isbn",
+            "borrowDate", "dueDate", "returnDate", "status"
+    };
+
+    private static final String SELECT_SQL =
+            "SELECT br.id, br.user_id, u.username, br.book_id, b.title, b.isbn, " +
+            "br.borrow_date, br.due_date, br.return_date, br.status " +
+            "FROM %s br " +
+            "JOIN users u ON u.id = br.user_id " +
+            "JOIN books b ON b.id = br.book_id";
+
+    private static final String HOT_TABLE = "borrow_records";
+    private static final String ARCHIVE_TABLE = "borrow_records_archive";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public BorrowExportServiceImpl(DataSource dataSource,
+                                   @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long export(BorrowExportFilter filter, Format format, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = buildQuery(filter, args);
+        // 先导出归档表中较早的历史记录，再导出热表，两段各自按ID排序；未完成的借阅不会归档，只查热表
+        boolean activeOnly = filter != null && filter.getStatus() != null
+                && BorrowRecordRepository.ACTIVE_STATUSES.contains(filter.getStatus());
+        List<String> tables = activeOnly ? List.of(HOT_TABLE) : List.of(ARCHIVE_TABLE, HOT_TABLE);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == Format.NDJSON ? new NdjsonRowWriter(writer) : new CsvRowWriter(writer);
+        long[] count = {0};
+        try {
+            rowWriter.begin();
+            for (String table : tables) {
+                String tableSql = String.format(sql, table);
+                jdbcTemplate.query(con -> prepareStreaming(con, tableSql, args), rs -> {
+                    try {
+                        rowWriter.write(rs);
+                    } catch (IOException e) {
+                        // 客户端断开等写出错误，终止查询
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            }
+            rowWriter.end();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count[0];
+    }
+
+    /**
+     * 只读、只进的导出语句，按批读取结果而不是一次载入内存。
+     * MySQL驱动默认读入全部结果（连接串未开启useCursorFetch时也会忽略正数fetchSize），
+     * fetchSize为Integer.MIN_VALUE时逐行流式读取；只设置在这条语句上，不影响连接池中的其他语句。
+     */
+    private PreparedStatement prepareStreaming(Connection con, String sql, List<Object> args) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName());
+        ps.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+        new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+        return ps;
+    }
+
+    private String buildQuery(BorrowExportFilter filter, List<Object> args) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<String> conditions = new ArrayList<>();
+        if (filter != null) {
+            if (filter.getStatus() != null && !filter.getStatus().isEmpty()) {
+                conditions.add("br.status = ?");
+                args.add(filter.getStatus());
+            }
+            if (filter.getFrom() != null) {
+                conditions.add("br.borrow_date >= ?");
+                args.add(Timestamp.valueOf(filter.getFrom().atStartOfDay()));
+            }
+            if (filter.getTo() != null) {
+                conditions.add("br.borrow_date < ?");
+                args.add(Timestamp.valueOf(filter.getTo().plusDays(1).atStartOfDay()));
+            }
+            if (filter.getUserId() != null) {
+                conditions.add("br.user_id = ?");
+                args.add(filter.getUserId());
+            }
+            if (filter.getBookId() != null) {
+                conditions.add("br.book_id = ?");
+                args.add(filter.getBookId());
+            }
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY br.id").toString();
+    }
+
+    private static String timestamp(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime().toString() : null;
+    }
+
+    private interface RowWriter {
+        void begin() throws IOException;
+        void write(ResultSet rs) throws SQLException, IOException;
+        void end() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            // 带BOM，便于Excel正确识别中文
+            writer.write('\uFEFF');
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(2)));
+            writer.write(',');
+            field(rs.getString(3));
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(4)));
+            writer.write(',');
+            field(rs.getString(5));
+            writer.write(',');
+            field(rs.getString(6));
+            writer.write(',');
+            field(timestamp(rs, 7));
+            writer.write(',');
+            field(timestamp(rs, 8));
+            writer.write(',');
+            field(timestamp(rs, 9));
+            writer.write(',');
+            field(rs.getString(10));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void end() {
+        }
+
+        private void field(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            generator = jsonFactory.createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            generator.writeNumberField(COLUMNS[1], rs.getLong(2));
+            generator.writeStringField(COLUMNS[2], rs.getString(3));
+            generator.writeNumberField(COLUMNS[3], rs.getLong(4));
+            generator.writeStringField(COLUMNS[4], rs.getString(5));
+            generator.writeStringField(COLUMNS[5], rs.getString(6));
+            generator.writeStringField(COLUMNS[6], timestamp(rs, 7));
+            generator.writeStringField(COLUMNS[7], timestamp(rs, 8));
+            generator.writeStringField(COLUMNS[8], timestamp(rs, 9));
+            generator.writeStringField(COLUMNS[9], rs.getString(10));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.PurgeProgress;
+import com.example.cursorlibrary.service.StatisticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 删除图书/用户时清理其借阅历史。
+ * <p>
+ * 先用一次 EXISTS 查询确认没有未完成的借阅，再按状态分块删除热表和归档表中已结束的记录，每块一个独立的短事务，
+ * 避免一次删除几十万行时长时间持有行锁、撑大 undo 日志；最后在一个事务中再次确认并删除图书/用户本身。
+ * 中途失败时已删除的历史不会恢复，重新发起删除即可从剩余记录继续。
+ * 历史较多时可以提交为后台任务（{@link #startAsync}），通过任务ID查询进度。
+ */
+@Slf4j
+@Component
+public class BorrowHistoryPurger {
+
+    private static final List<String> CLOSED_STATUSES = List.of("RETURNED", "REJECTED");
+    // 已结束的记录可能已被归档，两张表都要清理
+    private static final List<String> TABLES = List.of("borrow_records", "borrow_records_archive");
+
+    // 已结束的任务保留一段时间供查询进度
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    /**
+     * 借阅记录的归属方
+     */
+    public enum Owner {
+        BOOK("book_id", "该图书有未完成的借阅记录，请等待归还后再删除"),
+        USER("user_id", "该用户有未完成的借阅记录（待审核或已借出），请先处理这些记录");
+
+        private final String column;
+        private final String activeBorrowsMessage;
+
+        Owner(String column, String activeBorrowsMessage) {
+            this.column = column;
+            this.activeBorrowsMessage = activeBorrowsMessage;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticsService statisticsService;
+    private final TaskExecutor executor;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    private final Map<String, PurgeJob> jobs = new ConcurrentHashMap<>();
+
+    public BorrowHistoryPurger(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               StatisticsService statisticsService,
+                               @Qualifier("maintenanceExecutor") TaskExecutor executor,
+                               @Value("${borrow-purge.chunk-size:1000}") int chunkSize,
+                               @Value("${borrow-purge.pause-millis:0}") long pauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 调用方可能已处于事务中，每块删除都必须独立提交
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.statisticsService = statisticsService;
+        this.executor = executor;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.pauseMillis = Math.max(pauseMillis, 0);
+    }
+
+    /**
+     * 确认没有待审核或已借出的借阅记录，找到一行即返回
+     */
+    public void checkNoActiveBorrows(Owner owner, Long ownerId) {
+        Boolean active = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM borrow_records WHERE " + owner.column + " = ? AND status IN ('PENDING', 'BORROWED'))",
+                Boolean.class, ownerId);
+        if (Boolean.TRUE.equals(active)) {
+            throw new RuntimeException(owner.activeBorrowsMessage);
+        }
+    }
+
+    /**
+     * 同步删除：分块清理借阅历史后，在最后一个事务中执行 deleteOwner
+     *
+     * @return 删除的借阅记录数
+     */
+    public long delete(Owner owner, Long ownerId, Runnable deleteOwner) {
+        checkNoActiveBorrows(owner, ownerId);
+        AtomicLong deleted = new AtomicLong();
+        purgeClosed(owner, ownerId, deleted);
+        finish(owner, ownerId, deleted, deleteOwner);
+        return deleted.get();
+    }
+
+    /**
+     * 提交后台删除任务；未完成借阅的检查在提交前同步完成，便于调用方直接得到错误
+     */
+    public PurgeProgress startAsync(Owner owner, Long ownerId, Runnable deleteOwner) {
+        checkNoActiveBorrows(owner, ownerId);
+        purgeFinishedJobs();
+        PurgeJob job = new PurgeJob(UUID.randomUUID().toString(), owner, ownerId);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> runJob(job, deleteOwner));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            throw new RuntimeException("后台删除任务过多，请稍后再试");
+        }
+        return job.snapshot();
+    }
+
+    public PurgeProgress getProgress(String jobId) {
+        PurgeJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("删除任务不存在");
+        }
+        return job.snapshot();
+    }
+
+    private void runJob(PurgeJob job, Runnable deleteOwner) {
+        job.startedAt = LocalDateTime.now();
+        job.status = "RUNNING";
+        try {
+            purgeClosed(job.owner, job.ownerId, job.deleted);
+            finish(job.owner, job.ownerId, job.deleted, deleteOwner);
+            job.status = "COMPLETED";
+            log.info("后台删除完成: {} {}，删除借阅记录 {} 条", job.owner, job.ownerId, job.deleted.get());
+        } catch (Exception e) {
+            log.error("后台删除 {} {} 失败", job.owner, job.ownerId, e);
+            job.message = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void purgeClosed(Owner owner, Long ownerId, AtomicLong deleted) {
+        for (String table : TABLES) {
+            for (String status : CLOSED_STATUSES) {
+                purgeClosed(table, owner, ownerId, status, deleted);
+            }
+        }
+    }
+
+    private void purgeClosed(String table, Owner owner, Long ownerId, String status, AtomicLong deleted) {
+        int removed;
+        do {
+            removed = deleteChunk(table, owner, ownerId, status);
+            deleted.addAndGet(removed);
+            if (removed == chunkSize && pauseMillis > 0) {
+                // 给在线请求让出数据库资源
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("删除任务被中断");
+                }
+            }
+        } while (removed == chunkSize);
+    }
+
+    private int deleteChunk(String table, Owner owner, Long ownerId, String status) {
+        Integer removed = transactionTemplate.execute(tx -> {
+            int count = jdbcTemplate.update(
+                    "DELETE FROM " + table + " WHERE " + owner.column + " = ? AND status = ? LIMIT ?",
+                    ownerId, status, chunkSize);
+            if (count > 0) {
+                statisticsService.onBorrowsRemoved(status, count);
+            }
+            return count;
+        });
+        return removed == null ? 0 : removed;
+    }
+
+    /**
+     * 最后一个事务：再次确认没有新的未完成借阅，删除分块期间新结束的记录和预约，再删除归属方本身
+     */
+    private void finish(Owner owner, Long ownerId, AtomicLong deleted, Runnable deleteOwner) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            checkNoActiveBorrows(owner, ownerId);
+            for (String table : TABLES) {
+                for (String status : CLOSED_STATUSES) {
+                    int count = jdbcTemplate.update(
+                            "DELETE FROM " + table + " WHERE " + owner.column + " = ? AND status = ?", ownerId, status);
+                    if (count > 0) {
+                        deleted.addAndGet(count);
+                        statisticsService.onBorrowsRemoved(status, count);
+                    }
+                }
+            }
+            // 预约记录只与图书、用户有关，不计入借阅统计，随归属方一起删除
+            jdbcTemplate.update("DELETE FROM book_holds WHERE " + owner.column + " = ?", ownerId);
+            deleteOwner.run();
+        });
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private static final class PurgeJob {
+        private final String id;
+        private final Owner owner;
+        private final Long ownerId;
+        private final AtomicLong deleted = new AtomicLong();
+        private volatile String status = "QUEUED";
+        private volatile String message;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        PurgeJob(String id, Owner owner, Long ownerId) {
+            this.id = id;
+            this.owner = owner;
+            this.ownerId = ownerId;
+        }
+
+        PurgeProgress snapshot() {
+            return PurgeProgress.builder()
+                    .jobId(id)
+                    .target(owner.name())
+                    .targetId(ownerId)
+                    .status(status)
+                    .deleted(deleted.get())
+                    .message(message)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
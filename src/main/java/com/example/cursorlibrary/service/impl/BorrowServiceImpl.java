@@ -1,41 +1,86 @@
 package com.example.cursorlibrary.service.impl;
 
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.dto.CursorPage;
 import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BookHold;
 import com.example.cursorlibrary.entity.BorrowRecord;
 import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookHoldRepository;
 import com.example.cursorlibrary.repository.BookRepository;
 import com.example.cursorlibrary.repository.BorrowRecordRepository;
 import com.example.cursorlibrary.repository.UserRepository;
 import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.time.LocalDateTime;
+import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BorrowServiceImpl implements BorrowService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
+    /**
+     * 库存发生变化：使该图书的详情缓存和列表页缓存失效（缓存管理器支持事务，提交后才执行）
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#result.book.id"),
+            @CacheEvict(cacheNames = CacheConfig.BOOK_PAGES, allEntries = true)
+    })
+    @interface EvictBookCaches {
+    }
+
     private final BorrowRecordRepository borrowRecordRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final BookHoldRepository bookHoldRepository;
+    private final StatisticsService statisticsService;
 
     @Override
     @Transactional
-    public BorrowRecord borrowBook(String username, Long bookId) {
+    @EvictBookCaches
+    public BorrowRecordDTO borrowBook(String username, Long bookId) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new RuntimeException("图书不存在"));
+        return BorrowRecordDTO.fromRecord(createPendingBorrow(user, bookId));
+    }
 
-        if (book.getStock() <= 0) {
+    /**
+     * 扣减库存并生成待审批的借阅申请
+     */
+    private BorrowRecord createPendingBorrow(User user, Long bookId) {
+        // 在数据库中原子地扣减库存，并发借阅时不会超卖
+        if (bookRepository.decrementStock(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new RuntimeException("图书不存在");
+            }
             throw new RuntimeException("图书库存不足");
         }
 
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new RuntimeException("图书不存在"));
+
         BorrowRecord borrowRecord = new BorrowRecord();
         borrowRecord.setUser(user);
         borrowRecord.setBook(book);
@@ -45,152 +90,231 @@ public class BorrowServiceImpl implements BorrowService {
         borrowRecord.setDueDate(now.plusDays(14));
         borrowRecord.setStatus("PENDING");
 
-        book.setStock(book.getStock() - 1);
-        bookRepository.save(book);
-
-        return borrowRecordRepository.save(borrowRecord);
+        BorrowRecord saved = borrowRecordRepository.save(borrowRecord);
+        statisticsService.onBorrowCreated("PENDING");
+        return saved;
     }
 
     @Override
-    public Page<BorrowRecord> getBorrows(String username, String status, Pageable pageable) {
+    public Page<BorrowRecordDTO> getBorrows(String username, String status, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-        if (user.getRole().equals("ADMIN")) {
-            return status != null ? 
-                borrowRecordRepository.findByStatus(status, pageable) :
-                borrowRecordRepository.findAll(pageable);
-        } else {
-            return status != null ?
-                borrowRecordRepository.findByUserAndStatus(user, status, pageable) :
-                borrowRecordRepository.findByUser(user, pageable);
-        }
+        Long userId = user.getRole().equals("ADMIN") ? null : user.getId();
+        return borrowRecordRepository.findBorrowSummaries(userId, status, pageable);
     }
 
     @Override
     @Transactional
-    public BorrowRecord approveBorrow(Long id) {
+    public BorrowRecordDTO approveBorrow(Long id) {
         BorrowRecord record = borrowRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("借阅记录不存在"));
 
-        if (!"PENDING".equals(record.getStatus())) {
+        if (!"PENDING".equals(record.getStatus())
+                || borrowRecordRepository.transitionStatus(id, "PENDING", "BORROWED") == 0) {
             throw new RuntimeException("借阅状态不正确");
         }
+        statisticsService.onBorrowStatusChanged("PENDING", "BORROWED");
 
-        record.setStatus("BORROWED");
-        return borrowRecordRepository.save(record);
+        return reload(id);
     }
 
     @Override
     @Transactional
-    public BorrowRecord rejectBorrow(Long id) {
+    @EvictBookCaches
+    public BorrowRecordDTO rejectBorrow(Long id) {
         BorrowRecord record = borrowRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("借阅记录不存在"));
 
-        if (!"PENDING".equals(record.getStatus())) {
+        // 状态流转成功的请求才释放库存，重复拒绝不会多加库存
+        if (!"PENDING".equals(record.getStatus())
+                || borrowRecordRepository.transitionStatus(id, "PENDING", "REJECTED") == 0) {
             throw new RuntimeException("借阅状态不正确");
         }
 
-        Book book = record.getBook();
-        book.setStock(book.getStock() + 1);
-        bookRepository.save(book);
-
-        record.setStatus("REJECTED");
-        return borrowRecordRepository.save(record);
+        releaseCopy(record.getBook().getId());
+        statisticsService.onBorrowStatusChanged("PENDING", "REJECTED");
+        return reload(id);
     }
 
     @Override
     @Transactional
-    public BorrowRecord returnBook(Long id, String username) {
-        System.out.println("执行returnBook方法 - 记录ID: " + id + ", 用户名: " + username);
-        
+    @EvictBookCaches
+    public BorrowRecordDTO returnBook(Long id, String username) {
         BorrowRecord record = borrowRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("借阅记录不存在"));
-        
-        System.out.println("借阅记录信息: " + record);
-        System.out.println("记录关联的用户名: " + record.getUser().getUsername());
-        System.out.println("当前操作用户名: " + username);
+        log.debug("归还图书 - 记录ID: {}, 状态: {}, 操作用户: {}", id, record.getStatus(), username);
 
         if (!"BORROWED".equals(record.getStatus())) {
-            System.out.println("借阅状态不正确，当前状态: " + record.getStatus());
             throw new RuntimeException("借阅状态不正确，当前状态: " + record.getStatus());
         }
 
         // 严格检查：普通用户只能归还自己的图书
         if (!record.getUser().getUsername().equals(username)) {
-            System.out.println("权限检查失败 - 用户无权操作此借阅记录");
+            log.warn("用户 {} 试图归还不属于自己的借阅记录 {}", username, id);
             throw new RuntimeException("无权操作此借阅记录");
         }
 
         Book book = record.getBook();
         if (book == null) {
-            System.out.println("借阅记录关联的图书不存在");
             throw new RuntimeException("借阅记录关联的图书不存在");
         }
-        
-        System.out.println("图书信息: " + book);
-        System.out.println("当前库存: " + book.getStock() + ", 归还后将增加到: " + (book.getStock() + 1));
-        
-        book.setStock(book.getStock() + 1);
-        bookRepository.save(book);
 
-        record.setReturnDate(LocalDateTime.now());
-        record.setStatus("RETURNED");
-        
-        System.out.println("归还成功，更新后的借阅记录: " + record);
-        
-        return borrowRecordRepository.save(record);
+        return completeReturn(record);
     }
 
     @Override
-    public Page<BorrowRecord> getUserBorrowRecords(String username, Pageable pageable) {
+    public Page<BorrowRecordDTO> getUserBorrowRecords(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        return borrowRecordRepository.findByUser(user, pageable);
+        return borrowRecordRepository.findBorrowSummaries(user.getId(), null, pageable);
     }
 
     @Override
-    public Page<BorrowRecord> getAllBorrows(String status, Pageable pageable) {
-        if (status != null && !status.isEmpty()) {
-            return borrowRecordRepository.findByStatus(status, pageable);
-        }
-        return borrowRecordRepository.findAll(pageable);
+    public Page<BorrowRecordDTO> getAllBorrows(String status, Pageable pageable) {
+        return borrowRecordRepository.findBorrowSummaries(null, status != null && !status.isEmpty() ? status : null, pageable);
+    }
+
+    @Override
+    public CursorPage<BorrowRecordDTO> scrollBorrows(String username, String status, String after, int size) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+
+        BorrowCursor cursor = BorrowCursor.decode(after);
+        PageRequest pageable = scrollPageable(size);
+        Slice<BorrowRecordDTO> slice = borrowRecordRepository.scrollBorrowSummaries(user.getId(),
+                status != null && !status.isEmpty() ? status : null, cursor.borrowDate(), cursor.id(), pageable);
+        return toCursorPage(slice, pageable);
+    }
+
+    @Override
+    public CursorPage<BorrowRecordDTO> scrollAllBorrows(String status, String after, int size) {
+        BorrowCursor cursor = BorrowCursor.decode(after);
+        PageRequest pageable = scrollPageable(size);
+        Slice<BorrowRecordDTO> slice = borrowRecordRepository.scrollBorrowSummaries(null,
+                status != null && !status.isEmpty() ? status : null, cursor.borrowDate(), cursor.id(), pageable);
+        return toCursorPage(slice, pageable);
     }
 
     @Override
     @Transactional
-    public BorrowRecord adminReturnBook(Long id) {
-        System.out.println("管理员专用方法：执行归还操作，借阅记录ID: " + id);
-        
+    @EvictBookCaches
+    public BorrowRecordDTO adminReturnBook(Long id) {
         BorrowRecord record = borrowRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("借阅记录不存在"));
-        
-        System.out.println("找到借阅记录: " + record);
-        System.out.println("记录关联的用户名: " + record.getUser().getUsername());
+        log.debug("管理员归还图书 - 记录ID: {}, 状态: {}", id, record.getStatus());
 
         if (!"BORROWED".equals(record.getStatus())) {
-            System.out.println("借阅状态不正确，当前状态: " + record.getStatus());
             throw new RuntimeException("借阅状态不正确，当前状态: " + record.getStatus() + "，只能归还处于借阅中状态的图书");
         }
 
         Book book = record.getBook();
         if (book == null) {
-            System.out.println("借阅记录关联的图书不存在");
             throw new RuntimeException("借阅记录关联的图书不存在");
         }
-        
-        System.out.println("图书信息: " + book);
-        System.out.println("当前库存: " + book.getStock() + ", 归还后将增加到: " + (book.getStock() + 1));
-        
-        book.setStock(book.getStock() + 1);
-        bookRepository.save(book);
 
-        record.setReturnDate(LocalDateTime.now());
-        record.setStatus("RETURNED");
-        
-        System.out.println("管理员归还成功，更新后的借阅记录: " + record);
-        
-        return borrowRecordRepository.save(record);
+        return completeReturn(record);
+    }
+
+    /**
+     * 条件更新借阅状态为已归还，成功后再释放库存
+     * 并发重复归还时只有一个请求能通过状态检查，库存只会增加一次
+     */
+    private BorrowRecordDTO completeReturn(BorrowRecord record) {
+        if (borrowRecordRepository.markReturned(record.getId(), LocalDateTime.now()) == 0) {
+            throw new RuntimeException("借阅状态不正确，该记录已被其他操作处理");
+        }
+        releaseCopy(record.getBook().getId());
+        // 条件更新后重新读取：加载记录之后逾期检查可能刚标记过逾期
+        BorrowRecord returned = borrowRecordRepository.findWithBookAndUserById(record.getId())
+                .orElseThrow(() -> new RuntimeException("借阅记录不存在"));
+        statisticsService.onBorrowStatusChanged("BORROWED", "RETURNED");
+        if (returned.getOverdueSince() != null) {
+            statisticsService.onOverdueReturned();
+        }
+        return BorrowRecordDTO.fromRecord(returned);
+    }
+
+    /**
+     * 管理员增加库存（BookServiceImpl.updateBook 已锁定图书行并写入新库存）时调用，
+     * 新增的副本和归还释放的图书一样逐本分配给队首，队列为空后剩余的留在库存中
+     */
+    @Override
+    @Transactional
+    public int assignHolds(Long bookId, int copies) {
+        int assigned = 0;
+        while (assigned < copies && assignFirstHold(bookId)) {
+            assigned++;
+        }
+        return assigned;
+    }
+
+    /**
+     * 释放一本库存：该图书有等待中的预约时，在同一事务中直接分配给队首的预约（生成待审批的借阅申请）。
+     * 先增加库存再分配，同一图书的释放和预约入队由库存更新的行锁串行执行。
+     */
+    private void releaseCopy(Long bookId) {
+        bookRepository.incrementStock(bookId);
+        assignFirstHold(bookId);
+    }
+
+    /**
+     * 把一本库存分配给队首的预约，没有等待中的预约时返回 false
+     */
+    private boolean assignFirstHold(Long bookId) {
+        BookHold hold = bookHoldRepository.findFirstByBookIdAndStatusOrderByIdAsc(bookId, "WAITING").orElse(null);
+        if (hold == null) {
+            return false;
+        }
+        User user = userRepository.findById(hold.getUserId())
+                .orElseThrow(() -> new RuntimeException("预约用户不存在"));
+        BorrowRecord borrow = createPendingBorrow(user, bookId);
+        bookHoldRepository.markFulfilled(hold.getId(), borrow.getId(), LocalDateTime.now());
+        log.info("图书 {} 分配给预约 {}（用户 {}），生成借阅申请 {}", bookId, hold.getId(), user.getUsername(), borrow.getId());
+        return true;
+    }
+
+    /**
+     * 状态更新后重新读取记录，图书和用户通过实体图在同一条查询中加载
+     */
+    private BorrowRecordDTO reload(Long id) {
+        return borrowRecordRepository.findWithBookAndUserById(id)
+                .map(BorrowRecordDTO::fromRecord)
+                .orElseThrow(() -> new RuntimeException("借阅记录不存在"));
+    }
+
+    private PageRequest scrollPageable(int size) {
+        return PageRequest.of(0, Math.min(Math.max(size, 1), MAX_SCROLL_SIZE));
+    }
+
+    private CursorPage<BorrowRecordDTO> toCursorPage(Slice<BorrowRecordDTO> slice, PageRequest pageable) {
+        List<BorrowRecordDTO> records = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            BorrowRecordDTO last = records.get(records.size() - 1);
+            nextCursor = CursorCodec.encode(last.getBorrowDate(), last.getId());
+        }
+        return new CursorPage<>(records, pageable.getPageSize(), slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * 借阅记录游标：上一页最后一条的 (borrowDate, id)
+     * 首页使用一个比所有记录都大的哨兵值，查询语句无需区分是否带游标
+     */
+    private record BorrowCursor(LocalDateTime borrowDate, Long id) {
+        private static final BorrowCursor FIRST = new BorrowCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+        static BorrowCursor decode(String after) {
+            if (after == null || after.isEmpty()) {
+                return FIRST;
+            }
+            String[] parts = CursorCodec.decode(after, 2);
+            try {
+                return new BorrowCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
     }
-} 
\ No newline at end of file
+}
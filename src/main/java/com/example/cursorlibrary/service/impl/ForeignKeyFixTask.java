@@ -0,0 +1,110 @@
+package com.example.cursorlibrary.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把借阅记录指向图书、用户的外键改为级联删除/更新（取代原来复制整张表再重建的做法）。
+ * <p>
+ * 列上已有外键时数据必然满足约束，在当前会话关闭 foreign_key_checks 后，删除旧外键和添加新外键可以在同一条
+ * ALTER TABLE ... ALGORITHM=INPLACE, LOCK=NONE 中完成，只修改元数据，不复制表、不阻塞读写。
+ * 缺少外键时先确认没有孤立记录再添加。
+ */
+@Slf4j
+@Component
+public class ForeignKeyFixTask implements MaintenanceTask {
+
+    static final String TYPE = "FIX_FOREIGN_KEYS";
+
+    // 每张表应有的外键：列 -> 被引用的表（引用其 id 列）
+    private static final Map<String, Map<String, String>> EXPECTED = Map.of(
+            "borrow_records", Map.of("book_id", "books", "user_id", "users"));
+
+    private static final String RULE = "CASCADE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ForeignKeyFixTask(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void validate(String target) {
+        if (!EXPECTED.containsKey(target)) {
+            throw new RuntimeException("不支持修复该表的外键: " + target + "，可选: " + EXPECTED.keySet());
+        }
+    }
+
+    @Override
+    public void run(Context context) {
+        String table = context.target();
+        Map<String, String> expected = EXPECTED.get(table);
+        List<ForeignKeys.ForeignKey> existing = ForeignKeys.of(jdbcTemplate, table);
+        context.total(expected.size());
+        context.phase("ALTER");
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            String column = entry.getKey();
+            String referencedTable = entry.getValue();
+            ForeignKeys.ForeignKey current = existing.stream()
+                    .filter(fk -> fk.column().equals(column) && fk.referencedTable().equals(referencedTable))
+                    .findFirst()
+                    .orElse(null);
+            if (current != null && RULE.equals(current.deleteRule()) && RULE.equals(current.updateRule())) {
+                log.info("{}.{} 的外键 {} 已是级联删除，无需修改", table, column, current.name());
+                context.checkpoint(null, 1);
+                continue;
+            }
+            String clause;
+            if (current != null) {
+                ForeignKeys.ForeignKey cascade = new ForeignKeys.ForeignKey(current.name(), column, referencedTable,
+                        current.referencedColumn(), RULE, RULE);
+                clause = "DROP FOREIGN KEY `" + current.name() + "`, ADD "
+                        + cascade.definition(ForeignKeys.alternateName(current.name()));
+            } else {
+                checkNoOrphans(table, column, referencedTable);
+                clause = "ADD " + new ForeignKeys.ForeignKey(null, column, referencedTable, "id", RULE, RULE)
+                        .definition("fk_" + table + "_" + referencedTable);
+            }
+            alterWithoutChecks("ALTER TABLE `" + table + "` " + clause + ", ALGORITHM=INPLACE, LOCK=NONE");
+            log.info("{}.{} 的外键已改为级联删除", table, column);
+            context.checkpoint(null, 1);
+        }
+    }
+
+    /**
+     * 关闭外键检查时添加外键不会校验已有数据，先确认每条记录引用的行都存在
+     */
+    private void checkNoOrphans(String table, String column, String referencedTable) {
+        Boolean orphans = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM `" + table + "` c LEFT JOIN `" + referencedTable + "` p " +
+                "ON p.id = c.`" + column + "` WHERE p.id IS NULL)", Boolean.class);
+        if (Boolean.TRUE.equals(orphans)) {
+            throw new RuntimeException(table + "." + column + " 存在引用不存在的 " + referencedTable + " 的记录，请先清理");
+        }
+    }
+
+    private void alterWithoutChecks(String sql) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET foreign_key_checks = 0");
+                try {
+                    statement.execute(sql);
+                } finally {
+                    statement.execute("SET foreign_key_checks = 1");
+                }
+            }
+            return null;
+        });
+    }
+}
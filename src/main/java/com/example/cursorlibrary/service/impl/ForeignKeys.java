@@ -0,0 +1,47 @@
+package com.example.cursorlibrary.service.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 从 information_schema 读取 MySQL 表上的外键定义（仅单列外键）
+ */
+final class ForeignKeys {
+
+    record ForeignKey(String name, String column, String referencedTable, String referencedColumn,
+                      String updateRule, String deleteRule) {
+
+        /**
+         * 以新名称重建此外键时使用的约束定义
+         */
+        String definition(String constraintName) {
+            return "CONSTRAINT `" + constraintName + "` FOREIGN KEY (`" + column + "`) REFERENCES `"
+                    + referencedTable + "` (`" + referencedColumn + "`) ON DELETE " + deleteRule
+                    + " ON UPDATE " + updateRule;
+        }
+    }
+
+    private ForeignKeys() {
+    }
+
+    static List<ForeignKey> of(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.query(
+                "SELECT k.CONSTRAINT_NAME, k.COLUMN_NAME, k.REFERENCED_TABLE_NAME, k.REFERENCED_COLUMN_NAME, " +
+                "r.UPDATE_RULE, r.DELETE_RULE FROM information_schema.KEY_COLUMN_USAGE k " +
+                "JOIN information_schema.REFERENTIAL_CONSTRAINTS r " +
+                "ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME " +
+                "WHERE k.TABLE_SCHEMA = DATABASE() AND k.TABLE_NAME = ? AND k.REFERENCED_TABLE_NAME IS NOT NULL " +
+                "ORDER BY k.CONSTRAINT_NAME",
+                (rs, rowNum) -> new ForeignKey(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6)),
+                table);
+    }
+
+    /**
+     * 外键名称在库内唯一，新旧约束同时存在时需要不同的名称：在下划线前缀的有无之间切换
+     */
+    static String alternateName(String name) {
+        return name.startsWith("_") ? name.substring(1) : "_" + name;
+    }
+}
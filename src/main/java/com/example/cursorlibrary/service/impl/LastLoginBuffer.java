@@ -0,0 +1,120 @@
+package com.example.cursorlibrary.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最后登录时间的写缓冲。
+ * <p>
+ * 登录时只在内存中记录用户名和登录时间（同一用户多次登录只保留最新的一次），不访问数据库；
+ * 定时任务在达到写入间隔或累积的用户数达到阈值时，用一条 UPDATE ... CASE 批量写入。
+ * 只修改 last_login，不递增版本号（避免已加载用户的修改因乐观锁失败），也不修改 updated_at；
+ * 个人信息接口的 ETag 单独计入最后登录时间。
+ * 正常停机时写入剩余记录；进程被强制终止时丢失最近一个间隔内的登录时间，不影响其他数据。
+ */
+@Slf4j
+@Component
+public class LastLoginBuffer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long flushIntervalMillis;
+    private final int flushSize;
+
+    // 用户名 -> 尚未写入的最新登录时间
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private volatile long lastFlushAt = System.currentTimeMillis();
+
+    public LastLoginBuffer(JdbcTemplate jdbcTemplate,
+                           @Value("${last-login.flush-interval:5000}") long flushIntervalMillis,
+                           @Value("${last-login.flush-size:500}") int flushSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushSize = Math.max(flushSize, 1);
+    }
+
+    public void record(String username, LocalDateTime loginTime) {
+        pending.merge(username, loginTime, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 频繁检查、按需写入：距上次写入超过间隔，或累积的用户数达到阈值时才执行
+     */
+    @Scheduled(initialDelayString = "${last-login.check-interval:500}",
+            fixedDelayString = "${last-login.check-interval:500}")
+    public void flushIfDue() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.size() >= flushSize || System.currentTimeMillis() - lastFlushAt >= flushIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * 写入全部缓冲的登录时间，返回更新的用户数
+     */
+    public synchronized int flush() {
+        lastFlushAt = System.currentTimeMillis();
+        List<Map.Entry<String, LocalDateTime>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<String, LocalDateTime> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        int updated = 0;
+        for (int from = 0; from < batch.size(); from += flushSize) {
+            List<Map.Entry<String, LocalDateTime>> chunk = batch.subList(from, Math.min(from + flushSize, batch.size()));
+            try {
+                updated += update(chunk);
+            } catch (RuntimeException e) {
+                // 保留在缓冲中，下次重试
+                log.warn("写入最后登录时间失败（{} 个用户），稍后重试: {}", chunk.size(), e.getMessage());
+                return updated;
+            }
+            // 写入期间同一用户再次登录的，保留新的时间等下次写入
+            chunk.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+        }
+        if (updated > 0) {
+            log.debug("批量写入最后登录时间: {} 个用户", updated);
+        }
+        return updated;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (!pending.isEmpty()) {
+            log.info("停机前写入最后登录时间: {} 个用户", flush());
+        }
+    }
+
+    private int update(List<Map.Entry<String, LocalDateTime>> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE users SET last_login = CASE username");
+        List<Object> args = new ArrayList<>(chunk.size() * 3);
+        for (Map.Entry<String, LocalDateTime> entry : chunk) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(entry.getKey());
+            args.add(Timestamp.valueOf(entry.getValue()));
+        }
+        // MySQL 的 updated_at 定义了 ON UPDATE CURRENT_TIMESTAMP，显式赋回原值才不会随之更新
+        sql.append(" ELSE last_login END, updated_at = updated_at WHERE username IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(chunk.get(i).getKey());
+        }
+        sql.append(")");
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
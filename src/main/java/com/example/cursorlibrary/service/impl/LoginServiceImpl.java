@@ -0,0 +1,73 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.exception.LoginOverloadedException;
+import com.example.cursorlibrary.service.LoginService;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录高峰时，超出线程池处理能力的请求在入队时（队列已满）或出队时（排队超过 security.login.max-queue-wait）
+ * 被快速拒绝，不再计算哈希：排队太久的请求客户端多半已经超时，继续计算只会拖长后面请求的等待。
+ */
+@Slf4j
+@Service
+public class LoginServiceImpl implements LoginService {
+
+    private static final String OVERLOADED = "登录请求过多，请稍后再试";
+
+    private final AuthenticationManager authenticationManager;
+    private final TaskExecutor executor;
+    private final long maxQueueWaitNanos;
+
+    public LoginServiceImpl(AuthenticationManager authenticationManager,
+                            @Qualifier("loginExecutor") TaskExecutor executor,
+                            @Value("${security.login.max-queue-wait:2000}") long maxQueueWaitMillis) {
+        this.authenticationManager = authenticationManager;
+        this.executor = executor;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+    }
+
+    @Override
+    public CompletableFuture<Authentication> authenticate(String username, String password) {
+        CompletableFuture<Authentication> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        // 登录线程中的日志沿用请求ID
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        try {
+            executor.execute(() -> {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                try {
+                    if (System.nanoTime() - queuedAt > maxQueueWaitNanos) {
+                        log.warn("登录请求排队超时，拒绝: {}", username);
+                        result.completeExceptionally(new LoginOverloadedException(OVERLOADED));
+                        return;
+                    }
+                    result.complete(authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(username, password)));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    MDC.clear();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("登录线程池已满，拒绝: {}", username);
+            result.completeExceptionally(new LoginOverloadedException(OVERLOADED));
+        }
+        return result;
+    }
+}
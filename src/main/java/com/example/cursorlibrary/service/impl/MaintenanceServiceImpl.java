@@ -0,0 +1,328 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.MaintenanceJobDTO;
+import com.example.cursorlibrary.entity.MaintenanceJob;
+import com.example.cursorlibrary.repository.MaintenanceJobRepository;
+import com.example.cursorlibrary.service.MaintenanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 后台维护任务的执行引擎。
+ * <p>
+ * 任务状态保存在 maintenance_jobs 表中，每块完成后更新断点和进度；取消和限速调整通过内存中的执行句柄
+ * 通知执行线程，在块与块之间生效。任务在维护线程池中执行，与后台删除等任务共用并发限制。
+ */
+@Slf4j
+@Service
+public class MaintenanceServiceImpl implements MaintenanceService {
+
+    private static final Set<String> ACTIVE_STATUSES = Set.of("QUEUED", "RUNNING");
+
+    private final MaintenanceJobRepository jobRepository;
+    private final Map<String, MaintenanceTask> tasks;
+    private final TaskExecutor executor;
+    private final int defaultChunkSize;
+    private final long defaultPauseMillis;
+
+    // 已提交、尚未结束的任务
+    private final Map<String, RunningJob> running = new ConcurrentHashMap<>();
+
+    public MaintenanceServiceImpl(MaintenanceJobRepository jobRepository,
+                                  List<MaintenanceTask> tasks,
+                                  @Qualifier("maintenanceExecutor") TaskExecutor executor,
+                                  @Value("${maintenance.chunk-size:1000}") int defaultChunkSize,
+                                  @Value("${maintenance.pause-millis:0}") long defaultPauseMillis) {
+        this.jobRepository = jobRepository;
+        this.tasks = tasks.stream().collect(Collectors.toMap(MaintenanceTask::type, Function.identity()));
+        this.executor = executor;
+        this.defaultChunkSize = Math.max(defaultChunkSize, 1);
+        this.defaultPauseMillis = Math.max(defaultPauseMillis, 0);
+    }
+
+    @Override
+    public MaintenanceJobDTO start(MaintenanceJobDTO request) {
+        MaintenanceTask task = task(request.getType());
+        String target = request.getTarget();
+        if (target == null || target.isBlank()) {
+            throw new RuntimeException("请指定目标表");
+        }
+        task.validate(target);
+        checkNoActiveJob(target);
+
+        MaintenanceJob job = new MaintenanceJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(task.type());
+        job.setTarget(target);
+        job.setStatus("QUEUED");
+        job.setChunkSize(request.getChunkSize() != null ? Math.max(request.getChunkSize(), 1) : defaultChunkSize);
+        job.setPauseMillis(request.getPauseMillis() != null ? Math.max(request.getPauseMillis(), 0) : defaultPauseMillis);
+        job.setCreatedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+        log.info("提交维护任务 {}: {} {}", job.getId(), job.getType(), target);
+        return submit(job, task);
+    }
+
+    @Override
+    public MaintenanceJobDTO getJob(String jobId) {
+        return MaintenanceJobDTO.fromJob(findJob(jobId));
+    }
+
+    @Override
+    public List<MaintenanceJobDTO> listJobs() {
+        return jobRepository.findTop50ByOrderByCreatedAtDesc().stream()
+                .map(MaintenanceJobDTO::fromJob)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public MaintenanceJobDTO cancel(String jobId) {
+        RunningJob handle = running.get(jobId);
+        if (handle != null) {
+            handle.cancelled = true;
+            log.info("请求取消维护任务 {}", jobId);
+            return getJob(jobId);
+        }
+        MaintenanceJob job = findJob(jobId);
+        if (!"FAILED".equals(job.getStatus())) {
+            throw new RuntimeException("任务已结束，无法取消");
+        }
+        task(job.getType()).cleanup(job.getTarget());
+        job.setStatus("CANCELLED");
+        job.setMessage("任务已取消");
+        job.setFinishedAt(LocalDateTime.now());
+        return MaintenanceJobDTO.fromJob(jobRepository.save(job));
+    }
+
+    @Override
+    public MaintenanceJobDTO resume(String jobId) {
+        MaintenanceJob job = findJob(jobId);
+        if (!"FAILED".equals(job.getStatus()) || running.containsKey(jobId)) {
+            throw new RuntimeException("只有失败的任务可以继续执行");
+        }
+        checkNoActiveJob(job.getTarget());
+        job.setStatus("QUEUED");
+        job.setMessage(null);
+        job.setFinishedAt(null);
+        log.info("继续执行维护任务 {}，断点: {}", jobId, job.getCheckpoint());
+        return submit(jobRepository.save(job), task(job.getType()));
+    }
+
+    @Override
+    public MaintenanceJobDTO updateThrottle(String jobId, Integer chunkSize, Long pauseMillis) {
+        RunningJob handle = running.get(jobId);
+        if (handle != null) {
+            // 执行线程在下一块开始前读取，并随进度一起保存
+            if (chunkSize != null) {
+                handle.chunkSize = Math.max(chunkSize, 1);
+            }
+            if (pauseMillis != null) {
+                handle.pauseMillis = Math.max(pauseMillis, 0);
+            }
+            MaintenanceJobDTO dto = getJob(jobId);
+            dto.setChunkSize(handle.chunkSize);
+            dto.setPauseMillis(handle.pauseMillis);
+            return dto;
+        }
+        MaintenanceJob job = findJob(jobId);
+        if (chunkSize != null) {
+            job.setChunkSize(Math.max(chunkSize, 1));
+        }
+        if (pauseMillis != null) {
+            job.setPauseMillis(Math.max(pauseMillis, 0));
+        }
+        return MaintenanceJobDTO.fromJob(jobRepository.save(job));
+    }
+
+    /**
+     * 服务重启时执行中的任务被中断，标记为失败，由管理员确认后继续执行或取消
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedJobs() {
+        for (MaintenanceJob job : jobRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            if (!running.containsKey(job.getId())) {
+                job.setStatus("FAILED");
+                job.setMessage("服务重启，任务中断，可从断点继续执行");
+                jobRepository.save(job);
+                log.warn("维护任务 {} ({} {}) 被服务重启中断，断点: {}",
+                        job.getId(), job.getType(), job.getTarget(), job.getCheckpoint());
+            }
+        }
+    }
+
+    private MaintenanceJobDTO submit(MaintenanceJob job, MaintenanceTask task) {
+        RunningJob handle = new RunningJob(job);
+        running.put(job.getId(), handle);
+        try {
+            executor.execute(() -> run(handle, task));
+        } catch (TaskRejectedException e) {
+            running.remove(job.getId());
+            job.setStatus("FAILED");
+            job.setMessage("后台维护任务过多，请稍后再试");
+            jobRepository.save(job);
+            throw new RuntimeException("后台维护任务过多，请稍后再试");
+        }
+        return MaintenanceJobDTO.fromJob(job);
+    }
+
+    private void run(RunningJob handle, MaintenanceTask task) {
+        MaintenanceJob job = handle.job;
+        try {
+            if (handle.cancelled) {
+                throw new CancellationException();
+            }
+            job.setStatus("RUNNING");
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(LocalDateTime.now());
+            }
+            handle.save();
+            task.run(handle);
+            job.setStatus("COMPLETED");
+            log.info("维护任务 {} ({} {}) 完成，处理 {} 行", job.getId(), job.getType(), job.getTarget(), job.getProcessed());
+        } catch (CancellationException e) {
+            try {
+                task.cleanup(job.getTarget());
+                job.setStatus("CANCELLED");
+                job.setMessage("任务已取消");
+                log.info("维护任务 {} 已取消", job.getId());
+            } catch (Exception cleanupError) {
+                log.error("维护任务 {} 取消后清理失败", job.getId(), cleanupError);
+                job.setStatus("FAILED");
+                job.setMessage("取消后清理失败: " + cleanupError.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("维护任务 {} ({} {}) 失败，断点: {}", job.getId(), job.getType(), job.getTarget(),
+                    job.getCheckpoint(), e);
+            job.setStatus("FAILED");
+            job.setMessage(e.getMessage());
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            // 先移出执行中列表，保存结束状态后即可继续执行或取消
+            running.remove(job.getId());
+            handle.save();
+        }
+    }
+
+    private MaintenanceTask task(String type) {
+        MaintenanceTask task = type == null ? null : tasks.get(type);
+        if (task == null) {
+            throw new RuntimeException("不支持的维护任务类型: " + type + "，可选: " + tasks.keySet());
+        }
+        return task;
+    }
+
+    private MaintenanceJob findJob(String jobId) {
+        return jobRepository.findById(jobId).orElseThrow(() -> new RuntimeException("维护任务不存在"));
+    }
+
+    private void checkNoActiveJob(String target) {
+        boolean active = running.values().stream().anyMatch(handle -> handle.job.getTarget().equals(target));
+        if (active) {
+            throw new RuntimeException("表 " + target + " 已有进行中的维护任务");
+        }
+    }
+
+    /**
+     * 执行句柄：任务实体只由执行线程修改，取消和限速调整通过 volatile 字段传给执行线程
+     */
+    private final class RunningJob implements MaintenanceTask.Context {
+        private final MaintenanceJob job;
+        private volatile boolean cancelled;
+        private volatile int chunkSize;
+        private volatile long pauseMillis;
+
+        RunningJob(MaintenanceJob job) {
+            this.job = job;
+            this.chunkSize = job.getChunkSize();
+            this.pauseMillis = job.getPauseMillis();
+        }
+
+        @Override
+        public String target() {
+            return job.getTarget();
+        }
+
+        @Override
+        public Long checkpoint() {
+            return job.getCheckpoint();
+        }
+
+        @Override
+        public void checkpoint(Long checkpoint, long processed) {
+            job.setCheckpoint(checkpoint);
+            job.setProcessed(job.getProcessed() + processed);
+            save();
+            checkCancelled();
+            long pause = pauseMillis;
+            if (pause > 0) {
+                // 给在线请求让出数据库资源
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("维护任务被中断");
+                }
+                checkCancelled();
+            }
+        }
+
+        @Override
+        public void reset() {
+            job.setCheckpoint(null);
+            job.setProcessed(0);
+            save();
+        }
+
+        @Override
+        public String phase() {
+            return job.getPhase();
+        }
+
+        @Override
+        public void phase(String phase) {
+            checkCancelled();
+            job.setPhase(phase);
+            save();
+        }
+
+        @Override
+        public void total(long total) {
+            job.setTotal(total);
+            save();
+        }
+
+        @Override
+        public int chunkSize() {
+            return chunkSize;
+        }
+
+        private void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+
+        private void save() {
+            job.setChunkSize(chunkSize);
+            job.setPauseMillis(pauseMillis);
+            // 实体保持游离状态，每次保存合并到数据库，执行线程始终修改同一个对象
+            jobRepository.save(job);
+        }
+    }
+}
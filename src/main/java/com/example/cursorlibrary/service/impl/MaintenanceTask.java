@@ -0,0 +1,64 @@
+package com.example.cursorlibrary.service.impl;
+
+/**
+ * 一种后台数据库维护任务，由 {@link MaintenanceServiceImpl} 在维护线程池中执行。
+ * <p>
+ * 任务按块执行：每处理完一块调用 {@link Context#checkpoint(Long, long)} 记录断点，
+ * 由执行引擎保存进度、按限速配置停顿并检查是否已取消（已取消时抛出 CancellationException）。
+ * 任务失败或服务重启后继续执行时，{@link Context#checkpoint()} 返回上次记录的断点，任务需从断点处继续，
+ * 因此每块的处理必须可以安全地重复执行。
+ */
+public interface MaintenanceTask {
+
+    /**
+     * 任务类型，提交任务时按类型选择
+     */
+    String type();
+
+    /**
+     * 提交前校验目标表，不支持时抛出异常
+     */
+    void validate(String target);
+
+    void run(Context context);
+
+    /**
+     * 任务取消后清理执行过程中留下的中间结果
+     */
+    default void cleanup(String target) {
+    }
+
+    interface Context {
+
+        String target();
+
+        /**
+         * 上次记录的断点，首次执行时为 null
+         */
+        Long checkpoint();
+
+        /**
+         * 一块处理完成：记录断点和本块处理的行数，然后按限速配置停顿
+         */
+        void checkpoint(Long checkpoint, long processed);
+
+        /**
+         * 从头重新执行时清空断点和已处理行数
+         */
+        void reset();
+
+        /**
+         * 当前阶段，继续执行时任务可据此跳过已完成的阶段
+         */
+        String phase();
+
+        void phase(String phase);
+
+        void total(long total);
+
+        /**
+         * 每块处理的行数，执行过程中可能被调整
+         */
+        int chunkSize();
+    }
+}
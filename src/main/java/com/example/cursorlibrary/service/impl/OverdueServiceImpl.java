@@ -0,0 +1,78 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.service.OverdueService;
+import com.example.cursorlibrary.service.StatisticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按 (status, overdue_since, due_date) 索引扫描：尚未标记的借阅中记录位于 (BORROWED, NULL) 前缀下，
+ * 已标记的记录离开这一段，因此索引位置本身就是检查的水位线，每次只读取上次检查之后新到期的记录，
+ * 与未到期和已逾期的借阅数量无关。审批晚于应还日期的记录同样落在这一段，下次检查时补上。
+ * 每批在一个短事务中完成，计数器在提交后更新。
+ */
+@Slf4j
+@Service
+public class OverdueServiceImpl implements OverdueService {
+
+    static final String SELECT_NEWLY_OVERDUE = "SELECT id FROM borrow_records "
+            + "WHERE status = 'BORROWED' AND overdue_since IS NULL AND due_date <= ? ORDER BY due_date LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticsService statisticsService;
+    private final int batchSize;
+
+    public OverdueServiceImpl(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              StatisticsService statisticsService,
+                              @Value("${overdue.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.statisticsService = statisticsService;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${overdue.check-initial-delay:60000}",
+            fixedDelayString = "${overdue.check-interval:60000}")
+    public long markOverdue() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long total = 0;
+        int marked;
+        do {
+            // 选出后被归还的记录不再标记，本批不满时剩余的记录留到下次检查
+            marked = markBatch(now);
+            total += marked;
+        } while (marked == batchSize);
+        if (total > 0) {
+            log.info("逾期检查完成，新标记 {} 条逾期借阅", total);
+        }
+        return total;
+    }
+
+    private int markBatch(Timestamp now) {
+        Integer marked = transactionTemplate.execute(tx -> {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_NEWLY_OVERDUE, Long.class, now, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            int updated = jdbcTemplate.update("UPDATE borrow_records SET overdue_since = due_date WHERE id IN ("
+                    + placeholders + ") AND status = 'BORROWED' AND overdue_since IS NULL", ids.toArray());
+            statisticsService.onBorrowsOverdue(updated);
+            return updated;
+        });
+        return marked == null ? 0 : marked;
+    }
+}
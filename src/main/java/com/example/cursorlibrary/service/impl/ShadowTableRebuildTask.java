@@ -0,0 +1,173 @@
+package com.example.cursorlibrary.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 在线重建表（影子表 + 切换），用于大量删除或归档后回收空间、整理碎片。
+ * <p>
+ * 1. PREPARE：按原表结构创建影子表 _{表名}_new（外键以切换后的名称重建），并在原表上创建触发器，
+ *    之后原表的增删改同步写入影子表；
+ * 2. COPY：按主键分块把原表数据复制到影子表（INSERT IGNORE，已由触发器写入的新版本不会被覆盖），
+ *    每块是一条自动提交的语句，只短暂持有本块的共享锁，块之间按限速停顿，断点为已复制的最大ID；
+ * 3. SWAP：RENAME TABLE 原子地交换两张表，随后删除触发器和旧表。
+ * <p>
+ * 与一条 ALTER TABLE 相比，复制过程可以限速、取消和断点续做，也不会在从库上造成长时间的复制延迟。
+ * 中途失败时影子表和触发器保留，继续执行时从断点复制；取消时删除影子表和触发器。
+ */
+@Slf4j
+@Component
+public class ShadowTableRebuildTask implements MaintenanceTask {
+
+    static final String TYPE = "REBUILD_TABLE";
+
+    private static final Set<String> TABLES = Set.of("borrow_records", "borrow_records_archive");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShadowTableRebuildTask(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void validate(String target) {
+        if (!TABLES.contains(target)) {
+            throw new RuntimeException("不支持在线重建该表: " + target + "，可选: " + TABLES);
+        }
+    }
+
+    @Override
+    public void run(Context context) {
+        String table = context.target();
+        String shadow = shadowName(table);
+        boolean shadowExists = tableExists(shadow);
+        if ("SWAP".equals(context.phase()) && !shadowExists) {
+            // 上次已完成交换，只差清理触发器和旧表
+            dropOld(table);
+            return;
+        }
+        if (context.checkpoint() == null || !shadowExists) {
+            context.reset();
+            prepare(context, table, shadow);
+        }
+        copy(context, table, shadow);
+        swap(context, table, shadow);
+    }
+
+    @Override
+    public void cleanup(String target) {
+        dropTriggers(target);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS `" + shadowName(target) + "`");
+    }
+
+    private void prepare(Context context, String table, String shadow) {
+        context.phase("PREPARE");
+        Integer referencing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE " +
+                "WHERE REFERENCED_TABLE_SCHEMA = DATABASE() AND REFERENCED_TABLE_NAME = ?", Integer.class, table);
+        if (referencing != null && referencing > 0) {
+            throw new RuntimeException("有其他表的外键引用 " + table + "，不支持在线重建");
+        }
+        cleanup(table);
+        jdbcTemplate.execute("CREATE TABLE `" + shadow + "` LIKE `" + table + "`");
+        // CREATE TABLE ... LIKE 不复制外键
+        for (ForeignKeys.ForeignKey fk : ForeignKeys.of(jdbcTemplate, table)) {
+            jdbcTemplate.execute("ALTER TABLE `" + shadow + "` ADD " + fk.definition(ForeignKeys.alternateName(fk.name())));
+        }
+
+        List<String> columns = columns(table);
+        String columnList = columns.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+        String newValues = columns.stream().map(c -> "NEW.`" + c + "`").collect(Collectors.joining(", "));
+        String replace = "REPLACE INTO `" + shadow + "` (" + columnList + ") VALUES (" + newValues + ")";
+        jdbcTemplate.execute("CREATE TRIGGER `" + trigger(table, "ins") + "` AFTER INSERT ON `" + table
+                + "` FOR EACH ROW " + replace);
+        jdbcTemplate.execute("CREATE TRIGGER `" + trigger(table, "upd") + "` AFTER UPDATE ON `" + table
+                + "` FOR EACH ROW " + replace);
+        jdbcTemplate.execute("CREATE TRIGGER `" + trigger(table, "del") + "` AFTER DELETE ON `" + table
+                + "` FOR EACH ROW DELETE IGNORE FROM `" + shadow + "` WHERE id = OLD.id");
+
+        // 统计信息中的估算行数，只用于显示进度
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Long.class, table);
+        context.total(rows == null ? 0 : rows);
+        log.info("在线重建 {}：影子表和触发器已创建，约 {} 行待复制", table, rows);
+    }
+
+    private void copy(Context context, String table, String shadow) {
+        context.phase("COPY");
+        String columnList = columns(table).stream().map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+        long from = context.checkpoint() == null ? 0 : context.checkpoint();
+        while (true) {
+            Long upper = jdbcTemplate.queryForObject(
+                    "SELECT MAX(id) FROM (SELECT id FROM `" + table + "` WHERE id > ? ORDER BY id LIMIT ?) c",
+                    Long.class, from, context.chunkSize());
+            if (upper == null) {
+                break;
+            }
+            int copied = jdbcTemplate.update(
+                    "INSERT IGNORE INTO `" + shadow + "` (" + columnList + ") SELECT " + columnList + " FROM `"
+                            + table + "` WHERE id > ? AND id <= ? LOCK IN SHARE MODE", from, upper);
+            from = upper;
+            context.checkpoint(upper, copied);
+        }
+    }
+
+    private void swap(Context context, String table, String shadow) {
+        context.phase("SWAP");
+        String old = oldName(table);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS `" + old + "`");
+        jdbcTemplate.execute("RENAME TABLE `" + table + "` TO `" + old + "`, `" + shadow + "` TO `" + table + "`");
+        dropOld(table);
+        log.info("在线重建 {} 完成", table);
+    }
+
+    /**
+     * 交换后触发器随旧表一起改名，旧表已不再有写入
+     */
+    private void dropOld(String table) {
+        dropTriggers(table);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS `" + oldName(table) + "`");
+    }
+
+    private List<String> columns(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() " +
+                "AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION", String.class, table);
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private void dropTriggers(String table) {
+        for (String action : List.of("ins", "upd", "del")) {
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS `" + trigger(table, action) + "`");
+        }
+    }
+
+    private static String shadowName(String table) {
+        return "_" + table + "_new";
+    }
+
+    private static String oldName(String table) {
+        return "_" + table + "_old";
+    }
+
+    private static String trigger(String table, String action) {
+        return "_" + table + "_" + action;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.StatusCount;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.service.StatisticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatisticsServiceImpl implements StatisticsService {
+
+    private static final List<String> BORROW_STATUSES = List.of("PENDING", "BORROWED", "RETURNED", "REJECTED");
+
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+
+    private final AtomicLong totalBooks = new AtomicLong();
+    private final AtomicLong totalUsers = new AtomicLong();
+    private final Map<String, AtomicLong> borrowsByStatus = new ConcurrentHashMap<>();
+    // 借阅中且已逾期的记录数
+    private final AtomicLong overdueBorrows = new AtomicLong();
+    private volatile boolean initialized = false;
+    // 登记了计数变更的事务从提交前到计数更新完成持有读锁，校准查询期间持有写锁
+    private final ReentrantReadWriteLock commitGate = new ReentrantReadWriteLock();
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        if (!initialized) {
+            reconcile();
+        }
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (String status : BORROW_STATUSES) {
+            byStatus.put(status, 0L);
+        }
+        long totalBorrows = 0;
+        for (Map.Entry<String, AtomicLong> entry : borrowsByStatus.entrySet()) {
+            long count = entry.getValue().get();
+            byStatus.put(entry.getKey(), count);
+            totalBorrows += count;
+        }
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("totalBooks", totalBooks.get());
+        statistics.put("totalBorrows", totalBorrows);
+        statistics.put("totalUsers", totalUsers.get());
+        statistics.put("pendingRequests", byStatus.get("PENDING"));
+        statistics.put("overdueBorrows", overdueBorrows.get());
+        statistics.put("borrowsByStatus", byStatus);
+        return statistics;
+    }
+
+    /**
+     * 定期以数据库为准校准计数器，修正直接改库或事件丢失造成的偏差。
+     * 查询期间持有写锁：登记了计数变更的事务要等校准结束才能提交，校准也要等正在提交的事务更新完计数，
+     * 因此查询时不存在“已提交但计数尚未更新”的变更，查询结果可以直接作为计数器的值。
+     */
+    @Override
+    @Scheduled(initialDelayString = "${stats.reconcile-initial-delay:0}",
+            fixedDelayString = "${stats.reconcile-interval:300000}")
+    public void reconcile() {
+        commitGate.writeLock().lock();
+        try {
+            totalBooks.set(bookRepository.count());
+            totalUsers.set(userRepository.count());
+            overdueBorrows.set(borrowRecordRepository.countOverdue());
+
+            // 统计包含已归档的历史记录，同一状态的热表和归档表计数相加
+            Map<String, Long> actual = new HashMap<>();
+            for (StatusCount count : borrowRecordRepository.countAllGroupByStatus()) {
+                if (count.getStatus() != null) {
+                    actual.merge(count.getStatus(), count.getCount(), Long::sum);
+                }
+            }
+            borrowsByStatus.keySet().forEach(status -> actual.putIfAbsent(status, 0L));
+            actual.forEach((status, count) -> counter(status).set(count));
+            initialized = true;
+        } catch (Exception e) {
+            log.warn("统计计数校准失败", e);
+        } finally {
+            commitGate.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onBooksAdded(long count) {
+        afterCommit(() -> totalBooks.addAndGet(count));
+    }
+
+    @Override
+    public void onBooksRemoved(long count) {
+        afterCommit(() -> totalBooks.addAndGet(-count));
+    }
+
+    @Override
+    public void onUsersAdded(long count) {
+        afterCommit(() -> totalUsers.addAndGet(count));
+    }
+
+    @Override
+    public void onUsersRemoved(long count) {
+        afterCommit(() -> totalUsers.addAndGet(-count));
+    }
+
+    @Override
+    public void onBorrowCreated(String status) {
+        afterCommit(() -> counter(status).incrementAndGet());
+    }
+
+    @Override
+    public void onBorrowStatusChanged(String fromStatus, String toStatus) {
+        afterCommit(() -> {
+            counter(fromStatus).decrementAndGet();
+            counter(toStatus).incrementAndGet();
+        });
+    }
+
+    @Override
+    public void onBorrowsRemoved(List<StatusCount> removedByStatus) {
+        for (StatusCount count : removedByStatus) {
+            onBorrowsRemoved(count.getStatus(), count.getCount());
+        }
+    }
+
+    @Override
+    public void onBorrowsRemoved(String status, long count) {
+        if (status != null) {
+            afterCommit(() -> counter(status).addAndGet(-count));
+        }
+    }
+
+    @Override
+    public void onBorrowsOverdue(long count) {
+        afterCommit(() -> overdueBorrows.addAndGet(count));
+    }
+
+    @Override
+    public void onOverdueReturned() {
+        afterCommit(() -> overdueBorrows.decrementAndGet());
+    }
+
+    /**
+     * 在当前事务提交后更新计数器；没有活动事务时立即更新。
+     * 读锁从提交前一直持有到计数更新完成，校准不会在两者之间执行查询。
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitGate.readLock().lock();
+            try {
+                change.run();
+            } finally {
+                commitGate.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean holding;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitGate.readLock().lock();
+                holding = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (holding) {
+                    holding = false;
+                    commitGate.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    private AtomicLong counter(String status) {
+        return borrowsByStatus.computeIfAbsent(status, key -> new AtomicLong());
+    }
+}
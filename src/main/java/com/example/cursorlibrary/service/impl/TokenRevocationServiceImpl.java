@@ -0,0 +1,214 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.PrincipalCache;
+import com.example.cursorlibrary.entity.RevokedToken;
+import com.example.cursorlibrary.repository.RevokedTokenRepository;
+import com.example.cursorlibrary.service.TokenRevocationService;
+import com.example.cursorlibrary.util.BloomFilter;
+import com.example.cursorlibrary.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 撤销名单保存在内存中：单个令牌的 jti 放在布隆过滤器 + 精确集合中，绝大多数未撤销的令牌在布隆过滤器
+ * 一步判定，不分配对象；按用户撤销的记录很少，直接按用户名查找。
+ * <p>
+ * 撤销记录同时写入 revoked_tokens 表：启动时加载未过期的记录，运行中按撤销时间增量拉取其他节点新增的记录，
+ * 新记录生效时移出对应用户的认证主体缓存。过期记录定期清理，清理后按剩余记录重建布隆过滤器。
+ * <p>
+ * 按用户撤销以毫秒为界：令牌带有毫秒精度的签发时间，撤销时刻及之前签发的令牌全部失效，
+ * 之后重新登录拿到的令牌不受影响。没有毫秒签发时间的旧令牌按 iat 所在秒的开始比较，同一秒内签发的也会失效。
+ */
+@Slf4j
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService, SmartInitializingSingleton {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // 增量拉取时向前多取一段，覆盖事务提交晚于撤销时间和节点间的时钟误差
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
+
+    private record UserRevocation(long cutoff, long expiresAt) {
+    }
+
+    private final RevokedTokenRepository repository;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long tokenLifetimeMillis;
+    private final int expectedTokens;
+
+    // jti -> 令牌过期时间
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // 用户名 -> 此时间之前签发的令牌无效
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+    // 只在持有本对象锁时替换或写入，读取不加锁
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastRefresh;
+
+    public TokenRevocationServiceImpl(RevokedTokenRepository repository,
+                                      PrincipalCache principalCache,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${jwt.expiration:86400000}") long tokenLifetimeMillis,
+                                      @Value("${security.revocation.expected-tokens:100000}") int expectedTokens) {
+        this.repository = repository;
+        this.principalCache = principalCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+        this.expectedTokens = Math.max(expectedTokens, 1);
+        this.filter = new BloomFilter(this.expectedTokens, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * 所有单例（包括数据库迁移）初始化完成、开始接收请求之前加载撤销名单
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        LocalDateTime start = LocalDateTime.now();
+        List<RevokedToken> active = repository.findByExpiresAtAfter(start);
+        active.forEach(this::apply);
+        lastRefresh = start;
+        log.info("加载令牌撤销名单: {} 个令牌, {} 个用户", revokedTokens.size(), revokedUsers.size());
+    }
+
+    @Override
+    public void revokeToken(String jti, String username, Date expiresAt) {
+        if (jti == null) {
+            log.debug("令牌没有 jti，无法单独撤销: {}", username);
+            return;
+        }
+        RevokedToken revoked = new RevokedToken();
+        revoked.setJti(jti);
+        revoked.setUsername(username);
+        revoked.setReason("LOGOUT");
+        revoked.setRevokedAt(LocalDateTime.now());
+        revoked.setExpiresAt(toLocalDateTime(expiresAt.getTime()));
+        save(revoked);
+    }
+
+    @Override
+    public void revokeUser(String username, String reason) {
+        // revoked_at 保存到毫秒，其他节点加载后得到相同的截止时间
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        RevokedToken revoked = new RevokedToken();
+        revoked.setUsername(username);
+        revoked.setReason(reason);
+        revoked.setRevokedAt(now);
+        revoked.setExpiresAt(now.plus(tokenLifetimeMillis, ChronoUnit.MILLIS));
+        save(revoked);
+        log.info("撤销用户 {} 此前签发的全部令牌，原因: {}", username, reason);
+    }
+
+    @Override
+    public boolean isRevoked(String jti, String username, Date issuedAt) {
+        if (jti != null && filter.mightContain(jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (revokedUsers.isEmpty()) {
+            return false;
+        }
+        UserRevocation revocation = revokedUsers.get(username);
+        return revocation != null && (issuedAt == null || issuedAt.getTime() <= revocation.cutoff());
+    }
+
+    /**
+     * 拉取其他节点新增的撤销记录
+     */
+    @Scheduled(initialDelayString = "${security.revocation.refresh-interval:10000}",
+            fixedDelayString = "${security.revocation.refresh-interval:10000}")
+    public void refresh() {
+        LocalDateTime start = LocalDateTime.now();
+        LocalDateTime since = (lastRefresh != null ? lastRefresh : start).minusSeconds(REFRESH_OVERLAP_SECONDS);
+        int applied = 0;
+        for (RevokedToken revoked : repository.findByRevokedAtGreaterThanEqual(since)) {
+            if (apply(revoked)) {
+                applied++;
+            }
+        }
+        lastRefresh = start;
+        if (applied > 0) {
+            log.debug("同步令牌撤销记录 {} 条", applied);
+        }
+    }
+
+    /**
+     * 清理过期的撤销记录，并按剩余记录重建布隆过滤器
+     */
+    @Scheduled(initialDelayString = "${security.revocation.purge-interval:3600000}",
+            fixedDelayString = "${security.revocation.purge-interval:3600000}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(tx -> repository.deleteExpired(LocalDateTime.now()));
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+            revokedUsers.values().removeIf(revocation -> revocation.expiresAt() <= now);
+            filter = rebuild();
+        }
+        log.info("清理过期的令牌撤销记录 {} 条，剩余 {} 个令牌, {} 个用户", deleted, revokedTokens.size(), revokedUsers.size());
+    }
+
+    private void save(RevokedToken revoked) {
+        RevokedToken saved = repository.save(revoked);
+        TransactionUtils.afterCommit(() -> apply(saved));
+    }
+
+    /**
+     * 把一条撤销记录加入内存名单，返回是否是新记录（重复拉取的记录不再处理）
+     */
+    private boolean apply(RevokedToken revoked) {
+        long expiresAt = toMillis(revoked.getExpiresAt());
+        boolean added;
+        if (revoked.getJti() != null) {
+            added = addToken(revoked.getJti(), expiresAt);
+        } else {
+            UserRevocation revocation = new UserRevocation(toMillis(revoked.getRevokedAt()), expiresAt);
+            UserRevocation merged = revokedUsers.merge(revoked.getUsername(), revocation,
+                    (current, next) -> next.cutoff() > current.cutoff() ? next : current);
+            added = merged == revocation;
+        }
+        if (added) {
+            // 缓存的认证主体不再检查撤销名单，需要移出
+            principalCache.evictUser(revoked.getUsername());
+        }
+        return added;
+    }
+
+    private synchronized boolean addToken(String jti, long expiresAt) {
+        // 先写入精确集合再写入布隆过滤器，读取时布隆过滤器命中则精确集合中一定已有
+        if (revokedTokens.putIfAbsent(jti, expiresAt) != null) {
+            return false;
+        }
+        if (revokedTokens.size() > filter.capacity()) {
+            filter = rebuild();
+        } else {
+            filter.put(jti);
+        }
+        return true;
+    }
+
+    private BloomFilter rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, revokedTokens.size() * 2), FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(rebuilt::put);
+        return rebuilt;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.cursorlibrary.service.impl;
 
+import com.example.cursorlibrary.dto.PurgeProgress;
 import com.example.cursorlibrary.dto.RegisterRequest;
 import com.example.cursorlibrary.dto.UserDTO;
 import com.example.cursorlibrary.entity.User;
 import com.example.cursorlibrary.exception.UserAlreadyExistsException;
 import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.ProfileVersion;
 import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.repository.UserStatusCount;
+import com.example.cursorlibrary.service.StatisticsService;
+import com.example.cursorlibrary.service.TokenRevocationService;
 import com.example.cursorlibrary.service.UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,15 +21,26 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final List<String> BORROW_STATUSES = List.of("PENDING", "BORROWED", "RETURNED", "REJECTED");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final BorrowRecordRepository borrowRecordRepository;
+    private final StatisticsService statisticsService;
+    private final BorrowHistoryPurger borrowHistoryPurger;
+    private final TokenRevocationService tokenRevocationService;
+    private final LastLoginBuffer lastLoginBuffer;
 
     @Override
     @Transactional
@@ -46,7 +63,9 @@ public class UserServiceImpl implements UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        statisticsService.onUsersAdded(1);
+        return saved;
     }
 
     @Override
@@ -55,6 +74,12 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
     }
 
+    @Override
+    public ProfileVersion findProfileVersionByUsername(String username) {
+        return userRepository.findProfileVersionByUsername(username)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+    }
+
     @Override
     public Page<User> findUsers(String keyword, Pageable pageable) {
         if (keyword != null && !keyword.isEmpty()) {
@@ -63,6 +88,37 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserDTO> findUsersWithBorrowCounts(String keyword, Pageable pageable) {
+        Page<User> userPage = findUsers(keyword, pageable);
+        if (userPage.isEmpty()) {
+            return userPage.map(UserDTO::fromUser);
+        }
+
+        List<Long> userIds = userPage.getContent().stream().map(User::getId).toList();
+        Map<Long, Map<String, Long>> countsByUser = new HashMap<>();
+        // 借阅统计包含已归档的历史记录
+        List<UserStatusCount> counts = new ArrayList<>(borrowRecordRepository.countGroupByUserAndStatus(userIds));
+        counts.addAll(borrowRecordRepository.countArchivedGroupByUserAndStatus(userIds));
+        for (UserStatusCount count : counts) {
+            countsByUser.computeIfAbsent(count.getUserId(), key -> new LinkedHashMap<>())
+                    .merge(count.getStatus(), count.getCount(), Long::sum);
+        }
+
+        return userPage.map(user -> {
+            UserDTO dto = UserDTO.fromUser(user);
+            Map<String, Long> byStatus = new LinkedHashMap<>();
+            for (String status : BORROW_STATUSES) {
+                byStatus.put(status, 0L);
+            }
+            byStatus.putAll(countsByUser.getOrDefault(user.getId(), Map.of()));
+            dto.setBorrowCountsByStatus(byStatus);
+            dto.setBorrowCount(byStatus.values().stream().mapToLong(Long::longValue).sum());
+            return dto;
+        });
+    }
+
     @Override
     @Transactional
     public User updateUser(Long id, UserDTO userDTO) {
@@ -72,75 +128,70 @@ public class UserServiceImpl implements UserService {
         if (userDTO.getEmail() != null) {
             user.setEmail(userDTO.getEmail());
         }
-        if (userDTO.getPassword() != null) {
+        boolean passwordChanged = userDTO.getPassword() != null;
+        if (passwordChanged) {
             user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         }
+        boolean authorityChanged = false;
         if (userDTO.getRole() != null) {
+            authorityChanged = !userDTO.getRole().equals(user.getRole());
             user.setRole(userDTO.getRole());
         }
         if (userDTO.getStatus() != null) {
+            authorityChanged |= !userDTO.getStatus().equals(user.getStatus());
             user.setStatus(userDTO.getStatus());
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (authorityChanged || passwordChanged) {
+            // 已签发的令牌中带有旧的角色声明，统一撤销后重新登录；撤销生效时移出已缓存的认证主体
+            tokenRevocationService.revokeUser(saved.getUsername(), authorityChanged ? "AUTHORITY" : "PASSWORD");
+        }
+        return saved;
     }
 
+    /**
+     * 借阅历史分块删除，每块独立提交，因此本方法不在单个大事务中执行
+     */
     @Override
-    @Transactional
     public void deleteUser(Long id) {
+        User user = findDeletableUser(id);
+        log.debug("正在删除用户: {} (ID: {})", user.getUsername(), id);
+        long deleted = borrowHistoryPurger.delete(BorrowHistoryPurger.Owner.USER, id, () -> removeUser(user));
+        log.info("用户删除成功: {} (ID: {})，同时删除借阅记录 {} 条", user.getUsername(), id, deleted);
+    }
+
+    @Override
+    public PurgeProgress deleteUserAsync(Long id) {
+        User user = findDeletableUser(id);
+        return borrowHistoryPurger.startAsync(BorrowHistoryPurger.Owner.USER, id, () -> removeUser(user));
+    }
+
+    private User findDeletableUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
         // 检查是否尝试删除admin用户
         if ("admin".equalsIgnoreCase(user.getUsername())) {
             throw new RuntimeException("不能删除管理员账户");
         }
+        return user;
+    }
 
-        System.out.println("正在删除用户: " + user.getUsername() + " (ID: " + id + ")");
-        
-        // 检查用户是否有借阅记录
-        long borrowCount = borrowRecordRepository.countByUserId(id);
-        if (borrowCount > 0) {
-            System.out.println("用户有 " + borrowCount + " 条借阅记录");
-            
-            // 检查是否有未完成的借阅（待审核或已借出状态）
-            long activeCount = borrowRecordRepository.countByUserIdAndStatusIn(id, Arrays.asList("PENDING", "BORROWED"));
-            if (activeCount > 0) {
-                System.out.println("用户有 " + activeCount + " 条未完成的借阅记录");
-                throw new RuntimeException("该用户有未完成的借阅记录（" + activeCount + " 条待审核或已借出），请先处理这些记录");
-            }
-            
-            // 尝试直接使用原生SQL删除所有相关借阅记录
-            try {
-                System.out.println("正在删除用户的所有借阅记录...");
-                // 使用JPQL直接删除借阅记录，绕过外键约束
-                int deletedRecords = borrowRecordRepository.deleteByUserIdAndStatusIn(id, Arrays.asList("RETURNED", "REJECTED", "PENDING", "BORROWED"));
-                System.out.println("成功删除 " + deletedRecords + " 条借阅记录");
-            } catch (Exception e) {
-                System.err.println("删除借阅记录失败: " + e.getMessage());
-                e.printStackTrace();
-                throw new RuntimeException("无法删除用户的借阅记录: " + e.getMessage());
-            }
-        }
-        
-        try {
-            // 删除用户
-            System.out.println("正在删除用户...");
-            userRepository.deleteById(id);
-            System.out.println("用户删除成功");
-        } catch (Exception e) {
-            System.err.println("删除用户失败: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("删除用户时出错: " + e.getMessage());
-        }
+    /**
+     * 在借阅历史清理完成后的最后一个事务中执行
+     */
+    private void removeUser(User user) {
+        userRepository.deleteById(user.getId());
+        tokenRevocationService.revokeUser(user.getUsername(), "DELETED");
+        statisticsService.onUsersRemoved(1);
     }
 
+    /**
+     * 只记入写缓冲，登录请求不访问数据库，由 {@link LastLoginBuffer} 定时批量写入
+     */
     @Override
-    @Transactional
     public void updateLastLogin(String username) {
-        User user = findByUsername(username);
-        user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
+        lastLoginBuffer.record(username, LocalDateTime.now());
     }
 
     @Override
@@ -163,5 +214,6 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        tokenRevocationService.revokeUser(username, "PASSWORD");
     }
 } 
\ No newline at end of file
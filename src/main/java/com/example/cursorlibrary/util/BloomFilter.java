@@ -0,0 +1,83 @@
+package com.example.cursorlibrary.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 字符串的布隆过滤器：mightContain 返回 false 时一定不在集合中，返回 true 时需要再查精确集合。
+ * <p>
+ * 按预期元素数和误判率确定位数和哈希函数个数，每个元素约 10 位（1% 误判率）。
+ * 位数组使用 AtomicLongArray，写入与读取可以并发，读取不加锁、不分配对象；不支持删除，
+ * 元素过期后由使用方按剩余元素重建。
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final int capacity;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(expectedInsertions, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE - 8);
+        this.words = new AtomicLongArray(Math.max(words, 1));
+        this.bits = (long) this.words.length() << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 创建时的预期元素数，超过后误判率上升
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    private long index(int combined) {
+        // 组合哈希为负时取反，保证下标非负
+        return (combined < 0 ? ~combined : combined) % bits;
+    }
+
+    /**
+     * 64 位 FNV-1a 再做一次混合，高低 32 位作为两个独立哈希（双重哈希构造 k 个哈希函数）
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cursorlibrary.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+/**
+ * HTTP条件请求（ETag / If-None-Match）工具。
+ * 返回 {@link #ok} 构造的响应时，如果请求头中的 If-None-Match 与ETag一致，
+ * Spring MVC 直接返回 304 而不序列化响应体。
+ */
+public class ETags {
+
+    /**
+     * 响应与登录用户相关，只允许浏览器私有缓存，并且每次使用前都要带上 If-None-Match 重新验证
+     */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    /**
+     * 强ETag：由实体版本号等能唯一确定响应内容的值计算
+     */
+    public static String strong(Object... parts) {
+        return "\"" + digest(parts) + "\"";
+    }
+
+    /**
+     * 弱ETag：由聚合水位（总数、各条目版本号、统计值）计算，语义相同即视为未变化
+     */
+    public static String weak(Object... parts) {
+        return "W/" + strong(parts);
+    }
+
+    public static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    private static String digest(Object... parts) {
+        StringJoiner joiner = new StringJoiner("|");
+        for (Object part : parts) {
+            joiner.add(String.valueOf(part));
+        }
+        return DigestUtils.md5DigestAsHex(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.cursorlibrary.util;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT密钥环：按密钥ID（令牌头中的 kid）保存签名和验证密钥。
+ * <p>
+ * 新令牌用当前启用的密钥签名并写入 kid，验证时按 kid 查找密钥，因此轮换密钥只需加入新密钥并启用，
+ * 旧密钥保留到其签发的令牌全部过期后再移除。非对称算法（RS256/ES256）的密钥可以只有公钥，
+ * 用于验证其他节点签发的令牌，私钥只需保存在签发令牌的节点上。
+ */
+public class JwtKeyring {
+
+    /**
+     * 一个密钥；signingKey 为 null 时只能用于验证
+     */
+    public record SigningKey(String id, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+
+        public boolean canSign() {
+            return signingKey != null;
+        }
+    }
+
+    private final Map<String, SigningKey> keys = new ConcurrentHashMap<>();
+    private volatile SigningKey active;
+    // 令牌头中没有 kid 时使用的密钥（启用密钥环之前签发的令牌）
+    private volatile String defaultKeyId;
+
+    /**
+     * 只有一个共享密钥的密钥环，同时作为没有 kid 的令牌的验证密钥
+     */
+    public static JwtKeyring hmac(String id, String secret) {
+        JwtKeyring keyring = new JwtKeyring();
+        keyring.add(new SigningKey(id, SignatureAlgorithm.HS256, hmacKey(secret), hmacKey(secret)));
+        keyring.activate(id);
+        keyring.setDefaultKeyId(id);
+        return keyring;
+    }
+
+    public void add(SigningKey key) {
+        if (key.id() == null || key.id().isBlank()) {
+            throw new RuntimeException("JWT密钥ID不能为空");
+        }
+        if (key.verificationKey() == null) {
+            throw new RuntimeException("JWT密钥 " + key.id() + " 缺少验证密钥");
+        }
+        keys.put(key.id(), key);
+    }
+
+    /**
+     * 生成一个新密钥并加入密钥环（不启用）
+     */
+    public SigningKey generate(String id, SignatureAlgorithm algorithm) {
+        SigningKey key;
+        if (algorithm.isHmac()) {
+            Key secret = Keys.secretKeyFor(algorithm);
+            key = new SigningKey(id, algorithm, secret, secret);
+        } else {
+            KeyPair pair = Keys.keyPairFor(algorithm);
+            key = new SigningKey(id, algorithm, pair.getPrivate(), pair.getPublic());
+        }
+        add(key);
+        return key;
+    }
+
+    /**
+     * 启用一个密钥签发新令牌，之前启用的密钥仍可用于验证
+     */
+    public void activate(String id) {
+        SigningKey key = keys.get(id);
+        if (key == null || !key.canSign()) {
+            throw new RuntimeException("JWT密钥 " + id + " 不存在或没有私钥，无法用于签名");
+        }
+        active = key;
+    }
+
+    /**
+     * 移除密钥，此后用它签发的令牌验证失败
+     */
+    public void remove(String id) {
+        SigningKey current = active;
+        if (current != null && current.id().equals(id)) {
+            throw new RuntimeException("不能移除正在使用的JWT密钥 " + id);
+        }
+        keys.remove(id);
+    }
+
+    public void setDefaultKeyId(String id) {
+        this.defaultKeyId = id;
+    }
+
+    public SigningKey active() {
+        SigningKey current = active;
+        if (current == null) {
+            throw new RuntimeException("没有启用的JWT签名密钥");
+        }
+        return current;
+    }
+
+    /**
+     * 按 kid 查找密钥，kid 为空时使用默认密钥；找不到时返回 null
+     */
+    public SigningKey find(String id) {
+        String keyId = id != null ? id : defaultKeyId;
+        return keyId == null ? null : keys.get(keyId);
+    }
+
+    public Set<String> keyIds() {
+        return Set.copyOf(keys.keySet());
+    }
+
+    public static Key hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析 Base64 编码的 PKCS#8 私钥
+     */
+    public static PrivateKey decodePrivateKey(SignatureAlgorithm algorithm, String base64) {
+        try {
+            return keyFactory(algorithm).generatePrivate(new PKCS8EncodedKeySpec(decode(base64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new RuntimeException("无法解析 " + algorithm + " 私钥: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析 Base64 编码的 X.509 公钥
+     */
+    public static PublicKey decodePublicKey(SignatureAlgorithm algorithm, String base64) {
+        try {
+            return keyFactory(algorithm).generatePublic(new X509EncodedKeySpec(decode(base64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new RuntimeException("无法解析 " + algorithm + " 公钥: " + e.getMessage(), e);
+        }
+    }
+
+    private static KeyFactory keyFactory(SignatureAlgorithm algorithm) throws GeneralSecurityException {
+        if (algorithm.isEllipticCurve()) {
+            return KeyFactory.getInstance("EC");
+        }
+        if (algorithm.isRsa()) {
+            return KeyFactory.getInstance("RSA");
+        }
+        throw new RuntimeException("算法 " + algorithm + " 不使用公私钥对");
+    }
+
+    private static byte[] decode(String base64) {
+        // 允许直接粘贴 PEM 内容
+        String body = base64.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(body);
+    }
+}
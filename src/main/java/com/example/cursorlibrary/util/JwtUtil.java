@@ -1,60 +1,108 @@
 package com.example.cursorlibrary.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
+/**
+ * JWT的签发和验证。
+ * <p>
+ * 签名密钥来自 {@link JwtKeyring}：签发时使用当前启用的密钥并在令牌头写入 kid，验证时按 kid 选择密钥。
+ * 解析器不可变且线程安全，启动时创建一次，之后所有请求共用。
+ */
+@Slf4j
 @Component
 public class JwtUtil {
-    
-    private final SecretKey key;
+
+    /**
+     * 令牌中的角色声明（不带 ROLE_ 前缀），授权时无需再查询用户
+     */
+    public static final String ROLE_CLAIM = "role";
+
+    /**
+     * 毫秒精度的签发时间；标准的 iat 只精确到秒，按用户撤销令牌时需要精确比较
+     */
+    public static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    private final JwtKeyring keyring;
     private final Long expiration;
+    private final JwtParser parser;
 
-    public JwtUtil(
-            @Value("${jwt.secret:5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437}") String secret,
-            @Value("${jwt.expiration:86400000}") Long expiration) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public JwtUtil(JwtKeyring keyring, @Value("${jwt.expiration:86400000}") Long expiration) {
+        this.keyring = keyring;
         this.expiration = expiration;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKey(header);
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String username) {
+        return createToken(new HashMap<>(), username);
+    }
+
+    /**
+     * 签发带角色声明的令牌
+     */
+    public String generateToken(String username, String role) {
         Map<String, Object> claims = new HashMap<>();
+        if (role != null) {
+            claims.put(ROLE_CLAIM, role);
+        }
         return createToken(claims, username);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        JwtKeyring.SigningKey key = keyring.active();
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.id())
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
+                // 令牌ID，退出登录时按它撤销单个令牌
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .claim(ISSUED_AT_MILLIS_CLAIM, now)
+                .setExpiration(new Date(now + expiration))
+                .signWith(key.signingKey(), key.algorithm())
                 .compact();
     }
 
+    /**
+     * 令牌的签发时间（毫秒精度）；没有毫秒声明的旧令牌按 iat 所在秒的开始计算，没有签发时间时返回 null
+     */
+    public static Date issuedAt(Claims claims) {
+        Long millis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        return millis != null ? new Date(millis) : claims.getIssuedAt();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (Exception e) {
-            System.out.println("JWT验证失败: " + e.getMessage());
+            log.debug("JWT验证失败: {}", e.getMessage());
             return false;
         }
     }
@@ -64,11 +112,25 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * 解析并验证令牌（签名和过期时间），一次解析即可同时得到用户名和过期时间
+     * 令牌无效时抛出JwtException
+     */
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * 按令牌头的 kid 选择验证密钥；令牌声明的算法必须与密钥的算法一致，防止用公钥冒充HMAC密钥等算法混淆
+     */
+    private Key verificationKey(JwsHeader<?> header) {
+        JwtKeyring.SigningKey key = keyring.find(header.getKeyId());
+        if (key == null) {
+            throw new UnsupportedJwtException("未知的JWT密钥: " + header.getKeyId());
+        }
+        if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+            throw new UnsupportedJwtException("JWT签名算法与密钥 " + key.id() + " 不符: " + header.getAlgorithm());
+        }
+        return key.verificationKey();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.example.cursorlibrary.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtils {
+
+    /**
+     * 在当前事务提交后执行操作；如果没有活动事务则立即执行。
+     * 用于同步内存中的派生数据（索引、计数器、缓存），避免事务回滚后数据不一致。
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- 借阅记录的组合索引
+-- 按用户+状态的列表和游标分页：idx_user_status_borrow_date 同时满足过滤和 (borrow_date, id) 排序
+-- 按图书+状态的计数（删除图书前检查未完成借阅等）：idx_book_status，book_id 为前缀列，可以替代外键所需的 idx_book_id
+-- 按状态+借阅时间：idx_status_borrow_date 已存在
+-- InnoDB 在线建索引，建索引期间不阻塞读写
+
+ALTER TABLE borrow_records
+    ADD INDEX idx_user_status_borrow_date (user_id, status, borrow_date, id),
+    ADD INDEX idx_book_status (book_id, status),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ALTER TABLE borrow_records
+    DROP INDEX idx_book_id,
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ALTER TABLE borrow_records_archive
+    ADD INDEX idx_archive_user_status_borrow_date (user_id, status, borrow_date, id),
+    ADD INDEX idx_archive_book_status (book_id, status),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ALTER TABLE borrow_records_archive
+    DROP INDEX idx_archive_book_id,
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,19 @@
+-- 后台数据库维护任务：执行阶段、断点和进度，失败或重启后可继续执行
+
+CREATE TABLE maintenance_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    target VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    phase VARCHAR(20),
+    checkpoint BIGINT,
+    processed BIGINT NOT NULL DEFAULT 0,
+    total BIGINT NOT NULL DEFAULT 0,
+    chunk_size INT NOT NULL,
+    pause_millis BIGINT NOT NULL DEFAULT 0,
+    message VARCHAR(1000),
+    created_at DATETIME NOT NULL,
+    started_at DATETIME,
+    finished_at DATETIME,
+    INDEX idx_maintenance_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,14 @@
+-- 借阅逾期标记
+-- overdue_since：逾期检查任务写入的逾期时间（取应还日期），未逾期为 null
+-- idx_status_overdue_due_date：待检查的记录是 (BORROWED, NULL) 前缀下 due_date 不晚于当前时间的一段，
+-- 已标记的记录离开该前缀，每次检查只扫描上次之后新到期的记录；逾期计数同样只扫描 (BORROWED, 非 NULL) 部分
+-- 归档表增加同名列，归档时保留逾期记录
+
+ALTER TABLE borrow_records
+    ADD COLUMN overdue_since DATETIME NULL AFTER return_date,
+    ADD INDEX idx_status_overdue_due_date (status, overdue_since, due_date),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ALTER TABLE borrow_records_archive
+    ADD COLUMN overdue_since DATETIME NULL AFTER return_date,
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,16 @@
+-- 图书预约队列：库存不足时排队，归还或拒绝释放的图书按预约ID顺序分配给队首
+-- idx_hold_book_status：队首查找 (book_id, 'WAITING') 取最小 id，排队位置按同一前缀计数
+-- idx_hold_user：用户的预约列表
+-- 删除图书/用户时由应用在同一事务中删除对应的预约
+
+CREATE TABLE book_holds (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    book_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    borrow_record_id BIGINT NULL,
+    created_at DATETIME NOT NULL,
+    closed_at DATETIME NULL,
+    INDEX idx_hold_book_status (book_id, status, id),
+    INDEX idx_hold_user (user_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,14 @@
+-- 已撤销的令牌：jti 为空时表示撤销该用户在 revoked_at 之前签发的全部令牌
+-- idx_revoked_at：各节点按撤销时间增量拉取新记录
+-- idx_revoked_expires_at：启动时加载未过期记录、定期清理过期记录
+
+CREATE TABLE revoked_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    jti VARCHAR(64) NULL,
+    username VARCHAR(50) NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    revoked_at DATETIME NOT NULL,
+    expires_at DATETIME NOT NULL,
+    INDEX idx_revoked_at (revoked_at),
+    INDEX idx_revoked_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
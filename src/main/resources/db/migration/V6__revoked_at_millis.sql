@@ -0,0 +1,2 @@
+-- 按用户撤销令牌以 revoked_at 为截止时间，与令牌中毫秒精度的签发时间比较，需要保存到毫秒
+ALTER TABLE revoked_tokens MODIFY revoked_at DATETIME(3) NOT NULL;
@@ -1,4 +1,7 @@
+-- 基线结构和初始数据：SchemaMigrator 只在库中还没有 users 表时执行一次，之后由 db/migration 下的迁移脚本升级。
+-- 迁移记录 schema_version 和迁移脚本创建的表（维护任务的断点、令牌撤销名单等）不在这里删除；需要完全重建时先删除整个库再启动
 -- 先删除旧表（如果存在外键约束，需要按顺序删除）
+DROP TABLE IF EXISTS borrow_records_archive;
 DROP TABLE IF EXISTS borrow_records;
 DROP TABLE IF EXISTS books;
 DROP TABLE IF EXISTS users;
@@ -18,6 +21,7 @@ CREATE TABLE users (
                        last_login DATETIME,
                        created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
                        updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                       version BIGINT NOT NULL DEFAULT 0,
                        INDEX idx_username (username),
                        INDEX idx_email (email)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -36,6 +40,7 @@ CREATE TABLE books (
                        status VARCHAR(20) NOT NULL DEFAULT 'AVAILABLE',
                        created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
                        updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                       version BIGINT NOT NULL DEFAULT 0,
                        INDEX idx_isbn (isbn),
                        INDEX idx_title (title),
                        INDEX idx_author (author)
@@ -55,18 +60,36 @@ CREATE TABLE borrow_records (
                                 FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE ON UPDATE CASCADE,
                                 FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE ON UPDATE CASCADE,
                                 INDEX idx_book_id (book_id),
-                                INDEX idx_user_id (user_id),
-                                INDEX idx_status (status)
+                                INDEX idx_user_borrow_date (user_id, borrow_date, id),
+                                INDEX idx_status_borrow_date (status, borrow_date, id),
+                                INDEX idx_borrow_date (borrow_date, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 借阅记录归档表：超过保留期限的已归还/已拒绝记录由定时任务分批移入，沿用原ID，不设外键
+CREATE TABLE borrow_records_archive (
+                                id BIGINT PRIMARY KEY,
+                                book_id BIGINT NOT NULL,
+                                user_id BIGINT NOT NULL,
+                                borrow_date DATETIME NOT NULL,
+                                due_date DATETIME NOT NULL,
+                                return_date DATETIME,
+                                status VARCHAR(20) NOT NULL,
+                                archived_at DATETIME NOT NULL,
+                                INDEX idx_archive_book_id (book_id),
+                                INDEX idx_archive_user_borrow_date (user_id, borrow_date, id),
+                                INDEX idx_archive_status_borrow_date (status, borrow_date, id),
+                                INDEX idx_archive_borrow_date (borrow_date, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- 插入用户数据
+-- 密码为 bcrypt 哈希（admin/librarian/user1/user2 为 123456，cursor 为 111111）
 INSERT INTO users (username, password, email, role, status, created_at, updated_at)
 VALUES
-    ('admin', '123456', 'admin@example.com', 'ADMIN', 'ACTIVE', NOW(), NOW()),
-    ('librarian', '123456', 'librarian@example.com', 'ADMIN', 'ACTIVE', NOW(), NOW()),
-    ('user1', '123456', 'user1@example.com', 'USER', 'ACTIVE', NOW(), NOW()),
-    ('user2', '123456', 'user2@example.com', 'USER', 'ACTIVE', NOW(), NOW()),
-    ('cursor', '111111', 'cursor@example.com', 'USER', 'ACTIVE', NOW(), NOW());
+    ('admin', '{bcrypt}$2a$10$CmuD0QMU6W/eqLS4K0ErR.kvC9NeUrUezsUOPu1EFWyWQjmgSbvlK', 'admin@example.com', 'ADMIN', 'ACTIVE', NOW(), NOW()),
+    ('librarian', '{bcrypt}$2a$10$CmuD0QMU6W/eqLS4K0ErR.kvC9NeUrUezsUOPu1EFWyWQjmgSbvlK', 'librarian@example.com', 'ADMIN', 'ACTIVE', NOW(), NOW()),
+    ('user1', '{bcrypt}$2a$10$CmuD0QMU6W/eqLS4K0ErR.kvC9NeUrUezsUOPu1EFWyWQjmgSbvlK', 'user1@example.com', 'USER', 'ACTIVE', NOW(), NOW()),
+    ('user2', '{bcrypt}$2a$10$CmuD0QMU6W/eqLS4K0ErR.kvC9NeUrUezsUOPu1EFWyWQjmgSbvlK', 'user2@example.com', 'USER', 'ACTIVE', NOW(), NOW()),
+    ('cursor', '{bcrypt}$2a$10$8SJ07A1GAPdFUM6QEbRsGOQlVPigI4EdCX9X1AGUv5L1/PmnsDMwi', 'cursor@example.com', 'USER', 'ACTIVE', NOW(), NOW());
 
 -- 添加图书数据
 INSERT INTO books (title, author, isbn, category, stock, status, created_at, updated_at)
@@ -55,8 +55,9 @@ CREATE TABLE borrow_records (
                                 FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE RESTRICT ON UPDATE CASCADE,
                                 FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT ON UPDATE CASCADE,
                                 INDEX idx_book_id (book_id),
-                                INDEX idx_user_id (user_id),
-                                INDEX idx_status (status)
+                                INDEX idx_user_borrow_date (user_id, borrow_date, id),
+                                INDEX idx_status_borrow_date (status, borrow_date, id),
+                                INDEX idx_borrow_date (borrow_date, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- 创建管理员账号（密码：123456）
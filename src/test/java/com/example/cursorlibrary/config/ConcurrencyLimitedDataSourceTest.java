@@ -0,0 +1,36 @@
+package com.example.cursorlibrary.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 数据源并发限制：许可在连接关闭时归还且只归还一次，许可耗尽时等待超时报错
+ */
+class ConcurrencyLimitedDataSourceTest {
+
+    private final ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:limiter;DB_CLOSE_DELAY=-1", "sa", ""), 2, 100);
+
+    @Test
+    void releasesPermitOnceWhenConnectionClosed() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("数据库连接繁忙，请稍后重试");
+
+        first.close();
+        first.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+        second.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    }
+}
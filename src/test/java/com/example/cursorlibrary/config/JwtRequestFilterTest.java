@@ -0,0 +1,86 @@
+package com.example.cursorlibrary.config;
+
+import com.example.cursorlibrary.entity.RevokedToken;
+import com.example.cursorlibrary.repository.RevokedTokenRepository;
+import com.example.cursorlibrary.service.impl.TokenRevocationServiceImpl;
+import com.example.cursorlibrary.util.JwtKeyring;
+import com.example.cursorlibrary.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 角色声明是否可信只取决于持久化的撤销名单：重启后内存状态清空，变更角色之前签发的令牌仍被拒绝，
+ * 之后签发的令牌直接使用声明中的角色，不查询数据库
+ */
+class JwtRequestFilterTest {
+
+    private static final String SECRET = "SsGX3iYykKUxwp+jMgcuu0YzFOoampjZEgsp0HiIFiw=";
+    private static final long HOUR = 3_600_000L;
+
+    private final JwtUtil jwtUtil = new JwtUtil(JwtKeyring.hmac("k1", SECRET), HOUR);
+    private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void trustsRoleClaimsByPersistedRevocationAfterRestart() throws Exception {
+        String beforeChange = jwtUtil.generateToken("reader1", "ADMIN");
+        Thread.sleep(5);
+        // 角色变更时写入的撤销记录，重启后从数据库加载
+        LocalDateTime changedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        RevokedToken revoked = new RevokedToken();
+        revoked.setUsername("reader1");
+        revoked.setReason("AUTHORITY");
+        revoked.setRevokedAt(changedAt);
+        revoked.setExpiresAt(changedAt.plusHours(1));
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(revoked));
+        Thread.sleep(5);
+        String afterChange = jwtUtil.generateToken("reader1", "USER");
+
+        JwtRequestFilter restarted = newFilter();
+
+        assertThat(authenticate(restarted, beforeChange)).isNull();
+        Authentication authentication = authenticate(restarted, afterChange);
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    private JwtRequestFilter newFilter() {
+        PrincipalCache principalCache = new PrincipalCache(100, HOUR);
+        TokenRevocationServiceImpl revocationService = new TokenRevocationServiceImpl(
+                repository, principalCache, mock(PlatformTransactionManager.class), HOUR, 1000);
+        revocationService.afterSingletonsInstantiated();
+        return new JwtRequestFilter(jwtUtil, userDetailsService, principalCache, new RouteClassifier(),
+                revocationService);
+    }
+
+    private static Authentication authenticate(JwtRequestFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/profile");
+        request.setServletPath("/api/users/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
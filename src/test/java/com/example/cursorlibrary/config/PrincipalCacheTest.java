@@ -0,0 +1,88 @@
+package com.example.cursorlibrary.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 认证主体缓存：按令牌命中，令牌过期或TTL到期后失效，按用户移除，移除期间加载的数据不写入
+ */
+class PrincipalCacheTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final PrincipalCache cache = new PrincipalCache(100, HOUR, nanos::get);
+
+    @Test
+    void hitsByTokenAndErasesCredentials() {
+        put("token-1", "reader1", HOUR);
+
+        UserDetails cached = cache.get("token-1");
+        assertThat(cached.getUsername()).isEqualTo("reader1");
+        assertThat(cached.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(cached.getPassword()).isNull();
+        assertThat(cache.get("token-2")).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresAtTokenExpirationOrTtl() {
+        put("short", "reader1", 1_000);
+        put("long", "reader2", 2 * HOUR);
+        put("expired", "reader3", -1_000);
+        assertThat(cache.get("expired")).isNull();
+
+        advance(2_000);
+        assertThat(cache.get("short")).isNull();
+        assertThat(cache.get("long")).isNotNull();
+
+        // 令牌有效期长于TTL时按TTL失效
+        advance(HOUR);
+        assertThat(cache.get("long")).isNull();
+    }
+
+    @Test
+    void evictsAllTokensOfUser() {
+        put("token-1", "reader1", HOUR);
+        put("token-2", "reader1", HOUR);
+        put("token-3", "reader2", HOUR);
+
+        cache.evictUser("reader1");
+
+        assertThat(cache.get("token-1")).isNull();
+        assertThat(cache.get("token-2")).isNull();
+        assertThat(cache.get("token-3")).isNotNull();
+    }
+
+    @Test
+    void dropsPrincipalsLoadedAcrossInvalidation() {
+        long generation = cache.currentGeneration();
+        cache.evictUser("reader2");
+
+        cache.put("token-1", user("reader1"), new Date(System.currentTimeMillis() + HOUR), generation);
+
+        assertThat(cache.get("token-1")).isNull();
+    }
+
+    private void put(String token, String username, long expiresInMillis) {
+        cache.put(token, user(username), new Date(System.currentTimeMillis() + expiresInMillis),
+                cache.currentGeneration());
+    }
+
+    private void advance(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static UserDetails user(String username) {
+        return new User(username, "{noop}123456", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.cursorlibrary.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static com.example.cursorlibrary.config.RouteClassifier.Access.ADMIN;
+import static com.example.cursorlibrary.config.RouteClassifier.Access.AUTHENTICATED;
+import static com.example.cursorlibrary.config.RouteClassifier.Access.OPTIONAL;
+import static com.example.cursorlibrary.config.RouteClassifier.Access.PUBLIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 路径访问级别：按路径段匹配，/** 包含自身，精确规则和更长的规则优先，未匹配的路径需要登录
+ */
+class RouteClassifierTest {
+
+    private final RouteClassifier classifier = new RouteClassifier();
+
+    @Test
+    void classifiesByMostSpecificRule() {
+        assertThat(classifier.classify("/api/auth/login")).isEqualTo(PUBLIC);
+        assertThat(classifier.classify("/api/auth")).isEqualTo(PUBLIC);
+        assertThat(classifier.classify("/api/auth/user-info")).isEqualTo(OPTIONAL);
+        assertThat(classifier.classify("/api/stats/summary")).isEqualTo(PUBLIC);
+        assertThat(classifier.classify("/api/statistics")).isEqualTo(PUBLIC);
+        assertThat(classifier.classify("/api/admin/maintenance/test")).isEqualTo(PUBLIC);
+        assertThat(classifier.classify("/api/admin/maintenance/test/")).isEqualTo(ADMIN);
+        assertThat(classifier.classify("/api/admin/maintenance/jobs")).isEqualTo(ADMIN);
+        assertThat(classifier.classify("/api/admin")).isEqualTo(ADMIN);
+        // 只按完整的路径段匹配，不按字符串前缀
+        assertThat(classifier.classify("/api/statsx")).isEqualTo(AUTHENTICATED);
+        assertThat(classifier.classify("/api/administrator")).isEqualTo(AUTHENTICATED);
+        assertThat(classifier.classify("/api/borrows/1/return")).isEqualTo(AUTHENTICATED);
+        assertThat(classifier.classify("/")).isEqualTo(AUTHENTICATED);
+        assertThat(classifier.classify("")).isEqualTo(AUTHENTICATED);
+    }
+
+    @Test
+    void usesPathWithinApplication() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/library/api/auth/login");
+        request.setContextPath("/library");
+        request.setServletPath("/api/auth/login");
+        assertThat(classifier.classify(request)).isEqualTo(PUBLIC);
+
+        request.setServletPath("");
+        request.setPathInfo("/api/admin/users");
+        assertThat(classifier.classify(request)).isEqualTo(ADMIN);
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThatThrownBy(() -> classifier.add("/api/*/books", PUBLIC)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> classifier.add("api/books", PUBLIC)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
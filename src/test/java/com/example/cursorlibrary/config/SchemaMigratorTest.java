@@ -0,0 +1,48 @@
+package com.example.cursorlibrary.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 基线脚本只在空库上执行一次，重启后已有数据和迁移创建的表保留，迁移脚本不重复执行
+ */
+class SchemaMigratorTest {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:migrator;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void appliesBaselineOnlyToEmptySchema(@TempDir Path dir) throws Exception {
+        Path baseline = Files.writeString(dir.resolve("init.sql"),
+                "DROP TABLE IF EXISTS users;\n" +
+                "CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50));\n" +
+                "INSERT INTO users VALUES (1, 'admin');\n");
+        Path migrations = Files.createDirectory(dir.resolve("migration"));
+        Files.writeString(migrations.resolve("V1__revoked_tokens.sql"),
+                "CREATE TABLE revoked_tokens (id BIGINT PRIMARY KEY, username VARCHAR(50));\n");
+
+        migrator(migrations, baseline).migrate();
+        jdbcTemplate.update("INSERT INTO users VALUES (2, 'reader')");
+        jdbcTemplate.update("INSERT INTO revoked_tokens VALUES (1, 'reader')");
+
+        // 重启
+        migrator(migrations, baseline).migrate();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revoked_tokens", Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_version", Long.class)).isEqualTo(1);
+    }
+
+    private SchemaMigrator migrator(Path migrations, Path baseline) {
+        return new SchemaMigrator(dataSource, "file:" + migrations.toAbsolutePath(), new FileSystemResource(baseline));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.cursorlibrary.controller;
+
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.service.BookImportService;
+import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.BorrowService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 图书接口的条件请求：ETag未变化时返回304且不带响应体，版本号变化后返回新内容
+ */
+class BookControllerETagTest {
+
+    private final BookService bookService = mock(BookService.class);
+    private MockMvc mockMvc;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new BookController(bookService, mock(BookImportService.class),
+                mock(BorrowService.class), mock(BorrowRecordRepository.class))).build();
+        book = new Book();
+        book.setId(1L);
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("9787506365437");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(5);
+        book.setVersion(3L);
+        when(bookService.findById(1L)).thenReturn(book);
+        when(bookService.findBooks(null, 0, 10)).thenAnswer(invocation ->
+                new PageImpl<>(List.of(book), PageRequest.of(0, 10), 1));
+    }
+
+    @Test
+    void answersNotModifiedForUnchangedBook() throws Exception {
+        String etag = mockMvc.perform(get("/api/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        // 库存变化使版本号递增
+        book.setVersion(4L);
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void answersNotModifiedForUnchangedListPage() throws Exception {
+        String etag = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        book.setVersion(4L);
+        mockMvc.perform(get("/api/books").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+}
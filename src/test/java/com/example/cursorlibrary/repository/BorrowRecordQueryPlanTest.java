@@ -0,0 +1,271 @@
+package com.example.cursorlibrary.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 借阅记录查询计划回归：在有数据的库中执行 BorrowRecordRepository 的每个查询，
+ * 对实际发出的每条SQL（含分页计数和归档表的合并查询）执行 EXPLAIN，借阅记录表和归档表不能全表扫描。
+ * 新增查询方法后必须在 {@link #queries()} 中补充，否则测试失败。
+ * <p>
+ * 表结构由实体的 @Index 生成（H2 不执行 MySQL 迁移脚本），与迁移脚本的一致性由 {@link MigrationIndexTest} 检查；
+ * 这里检查的是 H2 的执行计划，不代表 MySQL 的实际计划。
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowRecordQueryPlanTest {
+
+    private static final Pattern FULL_SCAN = Pattern.compile("borrow_records(_archive)?\\.tableScan",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 本来就要读取整张表的查询：按状态分组校准全部计数
+     */
+    private static final Set<String> FULL_SCAN_ALLOWED = Set.of("countAllGroupByStatus");
+
+    private static final List<Statement> executed = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    record Statement(String sql, List<Object> parameters) {
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        /**
+         * 记录经过连接池执行的每条预编译语句及其参数，JPA 查询和 JdbcTemplate 查询都会经过这里
+         */
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public Connection getConnection() throws SQLException {
+                                return recordingConnection(super.getConnection());
+                            }
+                        };
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, role, status, version) "
+                + "SELECT r.n, CONCAT('plan', r.n), 'x', CONCAT('plan', r.n, '@example.com'), 'USER', 'ACTIVE', 0 "
+                + "FROM SYSTEM_RANGE(1, 100) r(n)");
+        jdbcTemplate.update("INSERT INTO books (id, title, author, isbn, publisher, publish_date, category, stock, "
+                + "status, version) SELECT r.n, CONCAT('图书', r.n), '作者', CONCAT('PLAN-', r.n), '出版社', "
+                + "DATE '2020-01-01', '文学', 5, 'AVAILABLE', 0 FROM SYSTEM_RANGE(1, 500) r(n)");
+        String statuses = "CASE MOD(r.n, 4) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'BORROWED' "
+                + "WHEN 2 THEN 'RETURNED' ELSE 'REJECTED' END";
+        jdbcTemplate.update("INSERT INTO borrow_records (id, user_id, book_id, borrow_date, due_date, status) "
+                + "SELECT r.n, MOD(r.n, 100) + 1, MOD(r.n, 500) + 1, DATEADD('MINUTE', r.n, TIMESTAMP '2024-01-01 00:00:00'), "
+                + "DATEADD('DAY', 30, TIMESTAMP '2024-01-01 00:00:00'), " + statuses + " FROM SYSTEM_RANGE(1, 20000) r(n)");
+        jdbcTemplate.update("INSERT INTO borrow_records_archive (id, user_id, book_id, borrow_date, due_date, status, "
+                + "archived_at) SELECT r.n + 100000, MOD(r.n, 100) + 1, MOD(r.n, 500) + 1, "
+                + "DATEADD('MINUTE', r.n, TIMESTAMP '2020-01-01 00:00:00'), "
+                + "DATEADD('DAY', 30, TIMESTAMP '2020-01-01 00:00:00'), "
+                + "CASE MOD(r.n, 2) WHEN 0 THEN 'RETURNED' ELSE 'REJECTED' END, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, 20000) r(n)");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording = false;
+        executed.clear();
+        jdbcTemplate.update("DELETE FROM borrow_records_archive");
+        jdbcTemplate.update("DELETE FROM borrow_records");
+        jdbcTemplate.update("DELETE FROM books");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void everyQueryUsesAnIndexOnBorrowTables() throws SQLException {
+        Map<String, Runnable> queries = queries();
+        assertThat(queries.keySet())
+                .as("BorrowRecordRepository 中的每个查询方法都需要检查查询计划")
+                .containsAll(declaredQueryMethods());
+
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            executed.clear();
+            recording = true;
+            try {
+                query.getValue().run();
+            } finally {
+                recording = false;
+            }
+            assertThat(executed).as(query.getKey() + " 没有执行任何SQL").isNotEmpty();
+            if (FULL_SCAN_ALLOWED.contains(query.getKey())) {
+                continue;
+            }
+            for (Statement statement : executed) {
+                String plan = explain(statement);
+                if (FULL_SCAN.matcher(plan).find()) {
+                    failures.add(query.getKey() + ":\n" + plan);
+                }
+            }
+        }
+        assertThat(failures).as("以下查询对借阅记录表执行了全表扫描").isEmpty();
+    }
+
+    private Map<String, Runnable> queries() {
+        LocalDateTime cursor = LocalDateTime.of(2024, 1, 10, 0, 0);
+        PageRequest page = PageRequest.of(2, 10);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findSummariesByStatus", () -> borrowRecordRepository.findSummariesByStatus("PENDING", page));
+        queries.put("findSummariesByUserIdAndStatus",
+                () -> borrowRecordRepository.findSummariesByUserIdAndStatus(7L, "BORROWED", page));
+        queries.put("findWithBookAndUserById", () -> borrowRecordRepository.findWithBookAndUserById(42L));
+        queries.put("scrollByStatus", () -> borrowRecordRepository.scrollByStatus("PENDING", cursor, 9999L, page));
+        queries.put("scrollByUserAndStatus",
+                () -> borrowRecordRepository.scrollByUserAndStatus(7L, "BORROWED", cursor, 9999L, page));
+        queries.put("countByStatus", () -> borrowRecordRepository.countByStatus("BORROWED"));
+        queries.put("countAllGroupByStatus", () -> borrowRecordRepository.countAllGroupByStatus());
+        queries.put("countOverdue", () -> borrowRecordRepository.countOverdue());
+        queries.put("countGroupByUserAndStatus",
+                () -> borrowRecordRepository.countGroupByUserAndStatus(List.of(1L, 2L, 3L)));
+        queries.put("countArchivedGroupByUserAndStatus",
+                () -> borrowRecordRepository.countArchivedGroupByUserAndStatus(List.of(1L, 2L, 3L)));
+        queries.put("countByBookId", () -> borrowRecordRepository.countByBookId(11L));
+        queries.put("countByUserId", () -> borrowRecordRepository.countByUserId(7L));
+        queries.put("directCountByStatus", () -> borrowRecordRepository.directCountByStatus("PENDING"));
+        queries.put("countByBookIdAndStatusIn",
+                () -> borrowRecordRepository.countByBookIdAndStatusIn(11L, BorrowRecordRepository.ACTIVE_STATUSES));
+        queries.put("transitionStatus",
+                () -> tx.executeWithoutResult(s -> borrowRecordRepository.transitionStatus(4L, "PENDING", "BORROWED")));
+        queries.put("markReturned",
+                () -> tx.executeWithoutResult(s -> borrowRecordRepository.markReturned(5L, LocalDateTime.now())));
+        // 合并归档表的历史视图
+        queries.put("findHistorySummaries", () -> {
+            borrowRecordRepository.findHistorySummaries(7L, null, page);
+            borrowRecordRepository.findHistorySummaries(7L, "RETURNED", page);
+            borrowRecordRepository.findHistorySummaries(null, "RETURNED", page);
+        });
+        queries.put("scrollHistorySummaries", () -> {
+            borrowRecordRepository.scrollHistorySummaries(7L, null, cursor, 9999L, page);
+            borrowRecordRepository.scrollHistorySummaries(7L, "REJECTED", cursor, 9999L, page);
+            borrowRecordRepository.scrollHistorySummaries(null, "REJECTED", cursor, 9999L, page);
+        });
+        queries.put("findHistorySummariesByBookId", () -> borrowRecordRepository.findHistorySummariesByBookId(11L));
+        return queries;
+    }
+
+    /**
+     * 仓库中声明的查询方法（不含 default 方法，default 方法只是按条件选择其中的查询）
+     */
+    private static Set<String> declaredQueryMethods() {
+        return Arrays.stream(new Class<?>[]{BorrowRecordRepository.class, BorrowRecordHistoryRepository.class})
+                .flatMap(type -> Arrays.stream(type.getDeclaredMethods()))
+                .filter(method -> !method.isDefault() && !method.isSynthetic())
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+    }
+
+    private String explain(Statement statement) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (int i = 0; i < statement.parameters().size(); i++) {
+                ps.setObject(i + 1, statement.parameters().get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private static Connection recordingConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(BorrowRecordQueryPlanTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement ps) {
+                        return recordingStatement(ps, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement recordingStatement(PreparedStatement target, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(BorrowRecordQueryPlanTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (recording && name.startsWith("execute")) {
+                        executed.add(new Statement(sql, new ArrayList<>(parameters.values())));
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.cursorlibrary.repository;
+
+import com.example.cursorlibrary.entity.BookHold;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.BorrowRecordArchive;
+import com.example.cursorlibrary.entity.MaintenanceJob;
+import com.example.cursorlibrary.entity.RevokedToken;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 测试库按实体的 @Index 建表（{@link BorrowRecordQueryPlanTest} 的查询计划基于这些索引），
+ * MySQL 按 init.sql 和 db/migration 建表。依次应用基线和全部迁移脚本得到每张表的最终索引，
+ * 与实体声明的索引逐个比较，两边有一处不一致测试就失败。同时检查再次执行 init.sql 不会影响迁移脚本创建的表。
+ */
+class MigrationIndexTest {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            BorrowRecord.class, BorrowRecordArchive.class, BookHold.class, MaintenanceJob.class, RevokedToken.class);
+
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__\\w+\\.sql");
+    private static final Pattern CREATE_TABLE = Pattern.compile("(?is)^CREATE\\s+TABLE\\s+(\\w+)\\s*\\((.*)\\)[^)]*$");
+    private static final Pattern DROP_TABLE = Pattern.compile("(?i)^DROP\\s+TABLE\\s+IF\\s+EXISTS\\s+(\\w+)$");
+    private static final Pattern ALTER_TABLE = Pattern.compile("(?is)^ALTER\\s+TABLE\\s+(\\w+)\\s+(.*)$");
+    private static final Pattern INDEX = Pattern.compile("(?i)\\b(DROP\\s+)?INDEX\\s+(\\w+)(?:\\s*\\(([^)]*)\\))?");
+
+    @Test
+    void migrationsProduceTheEntityIndexes() throws IOException {
+        Map<String, Map<String, String>> schema = new HashMap<>();
+        apply(schema, new ClassPathResource("init.sql"));
+        for (Resource migration : migrations()) {
+            apply(schema, migration);
+        }
+
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            Table table = entity.getAnnotation(Table.class);
+            Map<String, String> declared = Arrays.stream(table.indexes())
+                    .collect(Collectors.toMap(Index::name, index -> normalize(index.columnList()),
+                            (a, b) -> a, TreeMap::new));
+            assertThat(new TreeMap<>(schema.getOrDefault(table.name(), Map.of())))
+                    .as("迁移脚本建出的 %s 索引", table.name())
+                    .isEqualTo(declared);
+        }
+    }
+
+    /**
+     * init.sql 再次执行（手动执行或旧配置下每次启动执行）时不能删除或重建迁移脚本创建的表，
+     * 否则撤销名单、维护任务断点等记录随之丢失
+     */
+    @Test
+    void baselineLeavesMigrationTablesAlone() throws IOException {
+        Map<String, Map<String, String>> migrated = new HashMap<>();
+        apply(migrated, new ClassPathResource("init.sql"));
+        Set<String> baselineTables = Set.copyOf(migrated.keySet());
+        for (Resource migration : migrations()) {
+            apply(migrated, migration);
+        }
+        Set<String> migrationTables = new HashSet<>(migrated.keySet());
+        migrationTables.removeAll(baselineTables);
+        assertThat(migrationTables).contains("revoked_tokens", "maintenance_jobs", "book_holds");
+
+        Map<String, Map<String, String>> schema = new HashMap<>(migrated);
+        apply(schema, new ClassPathResource("init.sql"));
+        for (String table : migrationTables) {
+            assertThat(schema.get(table)).as("init.sql 之后的 %s", table).isSameAs(migrated.get(table));
+        }
+    }
+
+    private static List<Resource> migrations() throws IOException {
+        return Arrays.stream(new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*__*.sql"))
+                .sorted(Comparator.comparingInt(MigrationIndexTest::version))
+                .toList();
+    }
+
+    private static int version(Resource script) {
+        Matcher matcher = MIGRATION_NAME.matcher(String.valueOf(script.getFilename()));
+        assertThat(matcher.matches()).as("迁移脚本命名 %s", script.getFilename()).isTrue();
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static void apply(Map<String, Map<String, String>> schema, Resource script) throws IOException {
+        String sql = script.getContentAsString(StandardCharsets.UTF_8).replaceAll("--[^\\n]*", "");
+        for (String statement : sql.split(";")) {
+            String trimmed = statement.trim();
+            Matcher create = CREATE_TABLE.matcher(trimmed);
+            Matcher drop = DROP_TABLE.matcher(trimmed);
+            Matcher alter = ALTER_TABLE.matcher(trimmed);
+            if (create.matches()) {
+                Map<String, String> indexes = new HashMap<>();
+                schema.put(create.group(1).toLowerCase(), indexes);
+                applyIndexes(indexes, create.group(2));
+            } else if (drop.matches()) {
+                schema.remove(drop.group(1).toLowerCase());
+            } else if (alter.matches()) {
+                applyIndexes(schema.computeIfAbsent(alter.group(1).toLowerCase(), t -> new HashMap<>()), alter.group(2));
+            }
+        }
+    }
+
+    private static void applyIndexes(Map<String, String> indexes, String definitions) {
+        Matcher matcher = INDEX.matcher(definitions);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                indexes.remove(matcher.group(2));
+            } else if (matcher.group(3) != null) {
+                indexes.put(matcher.group(2), normalize(matcher.group(3)));
+            }
+        }
+    }
+
+    private static String normalize(String columns) {
+        return Arrays.stream(columns.split(",")).map(String::trim).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.cursorlibrary.search;
+
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 倒排索引检索：多个词元同时命中（AND），拉丁单词按前缀展开，ISBN带不带连字符都能命中，
+ * 重建期间的增删改在切换前重放到新索引
+ */
+class BookSearchIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchIndex index = new BookSearchIndex(bookRepository);
+
+    private final Book thinking = book(1L, "Java编程思想", "Bruce Eckel", "978-7-111-21382-6");
+    private final Book javascript = book(2L, "JavaScript高级程序设计", "Nicholas C. Zakas", "978-7-115-54538-1");
+    private final Book jvm = book(3L, "深入理解Java虚拟机", "周志明", "978-7-111-64124-7");
+
+    @Test
+    void requiresEveryQueryTerm() {
+        load(thinking, javascript, jvm);
+
+        assertThat(ids("java 虚拟机")).containsExactly(3L);
+        assertThat(ids("编程 java")).containsExactly(1L);
+        assertThat(ids("深入理解")).containsExactly(3L);
+        assertThat(ids("想")).containsExactly(1L);
+        assertThat(ids("java 不存在")).isEmpty();
+        assertThat(ids("周志明 eckel")).isEmpty();
+    }
+
+    @Test
+    void expandsLatinPrefixes() {
+        load(thinking, javascript, jvm);
+
+        assertThat(ids("java")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids("jav")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids("javas")).containsExactly(2L);
+        assertThat(ids("ZAK")).containsExactly(2L);
+        // 只按词首匹配，词中间的片段不命中
+        assertThat(ids("script")).isEmpty();
+
+        BookSearchIndex.SearchResult page = index.search("java", 1, 1);
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.ids()).hasSize(1);
+    }
+
+    @Test
+    void matchesIsbnWithOrWithoutHyphens() {
+        load(thinking, javascript, jvm);
+
+        assertThat(ids("9787111641247")).containsExactly(3L);
+        assertThat(ids("978-7-111-64124-7")).containsExactly(3L);
+        assertThat(ids("9787111641")).containsExactly(3L);
+    }
+
+    @Test
+    void scrollsMatchesInIdOrder() {
+        load(thinking, javascript, jvm);
+
+        BookSearchIndex.SearchResult first = index.searchAfter("java", 0L, 2);
+        assertThat(first.total()).isEqualTo(3);
+        assertThat(first.ids()).containsExactly(1L, 2L);
+        assertThat(index.searchAfter("java", 2L, 2).ids()).containsExactly(3L);
+        assertThat(index.searchAfter("java", 3L, 2).ids()).isEmpty();
+        // 命中规则与 search 相同：中文二元词元、ISBN
+        assertThat(index.searchAfter("虚拟机", 0L, 10).ids()).containsExactly(3L);
+        assertThat(index.searchAfter("9787111213826", 0L, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void updatesAndRemovesBooks() {
+        load(thinking, javascript);
+        index.index(jvm);
+        index.remove(2L);
+        thinking.setTitle("Thinking in Java");
+        index.index(thinking);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(ids("javascript")).isEmpty();
+        assertThat(ids("编程")).isEmpty();
+        assertThat(ids("thinking")).containsExactly(1L);
+        assertThat(ids("虚拟机")).containsExactly(3L);
+    }
+
+    @Test
+    void replaysChangesMadeDuringRebuild() {
+        load(thinking, javascript);
+        Book renamed = book(1L, "On Java 8", "Bruce Eckel", "978-7-111-21382-6");
+        Book added = book(4L, "算法导论", "Thomas H. Cormen", "978-7-111-40701-0");
+        // 读取数据库期间有图书被修改、删除和新增，读到的仍是旧数据
+        when(bookRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            index.index(renamed);
+            index.remove(2L);
+            index.index(added);
+            return new PageImpl<>(List.of(thinking, javascript), invocation.getArgument(0), 2);
+        });
+
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(ids("编程")).isEmpty();
+        assertThat(ids("on java")).containsExactly(1L);
+        assertThat(ids("javascript")).isEmpty();
+        assertThat(ids("算法")).containsExactly(4L);
+    }
+
+    private void load(Book... books) {
+        when(bookRepository.findAll(any(Pageable.class))).thenAnswer(invocation ->
+                new PageImpl<>(List.of(books), invocation.getArgument(0), books.length));
+        assertThat(index.isReady()).isFalse();
+        index.rebuild();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    private List<Long> ids(String keyword) {
+        return index.search(keyword, 0, 10).ids();
+    }
+
+    private static Book book(Long id, String title, String author, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        book.setPublisher("机械工业出版社");
+        book.setCategory("计算机");
+        book.setStock(1);
+        return book;
+    }
+}
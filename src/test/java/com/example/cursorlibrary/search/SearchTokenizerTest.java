@@ -0,0 +1,47 @@
+package com.example.cursorlibrary.search;
+
+import com.example.cursorlibrary.search.SearchTokenizer.QueryToken;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分词：拉丁单词整词切分并按前缀查询，中文索引单字和二元组、查询只用二元组，全角字符归一化，ISBN去掉连字符
+ */
+class SearchTokenizerTest {
+
+    @Test
+    void splitsLatinWordsAndNormalizesFullWidth() {
+        assertThat(SearchTokenizer.tokenizeForIndex("Effective Java（第３版）"))
+                .containsExactly("effective", "java", "第", "3", "版");
+        assertThat(SearchTokenizer.tokenizeForIndex("C++ Primer, 5th")).containsExactly("c", "primer", "5th");
+        assertThat(SearchTokenizer.tokenizeForIndex(null)).isEmpty();
+        assertThat(SearchTokenizer.tokenizeForQuery("  ")).isEmpty();
+    }
+
+    @Test
+    void indexesCjkUnigramsAndBigrams() {
+        assertThat(SearchTokenizer.tokenizeForIndex("深入理解"))
+                .containsExactly("深", "深入", "入", "入理", "理", "理解", "解");
+        assertThat(SearchTokenizer.tokenizeForIndex("Java编程")).containsExactly("java", "编", "编程", "程");
+    }
+
+    @Test
+    void queriesCjkByBigramsAndLatinByPrefix() {
+        assertThat(SearchTokenizer.tokenizeForQuery("深入理解 Java")).containsExactly(
+                new QueryToken("深入", false), new QueryToken("入理", false), new QueryToken("理解", false),
+                new QueryToken("java", true));
+        // 单字查询只能用单字匹配
+        assertThat(SearchTokenizer.tokenizeForQuery("书")).containsExactly(new QueryToken("书", false));
+    }
+
+    @Test
+    void normalizesIsbn() {
+        assertThat(SearchTokenizer.normalizeIsbn("978-7-111-64124-7")).isEqualTo("9787111641247");
+        assertThat(SearchTokenizer.normalizeIsbn("7-5063-6543-X")).isEqualTo("750636543x");
+        assertThat(SearchTokenizer.looksLikeIsbn("978-7-111-64124-7")).isTrue();
+        assertThat(SearchTokenizer.looksLikeIsbn("0 306 40615 2")).isTrue();
+        assertThat(SearchTokenizer.looksLikeIsbn("978-7-111")).isFalse();
+        assertThat(SearchTokenizer.looksLikeIsbn("978-7-111-abc-7")).isFalse();
+    }
+}
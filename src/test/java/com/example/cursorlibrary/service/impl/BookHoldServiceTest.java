@@ -0,0 +1,222 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.BookHoldDTO;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BookHold;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookHoldRepository;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.BookHoldService;
+import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.BorrowService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 图书预约队列：库存不足时排队，归还或拒绝释放的图书按先后顺序分配给队首，并发入队和归还时不会丢失库存
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookHoldServiceImpl.class, BorrowServiceImpl.class, BookServiceImpl.class, BorrowHistoryPurger.class,
+        StatisticsServiceImpl.class, BookSearchIndex.class, AsyncConfig.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookHoldServiceTest {
+
+    @Autowired
+    private BookHoldService bookHoldService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookHoldRepository bookHoldRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookHoldRepository.deleteAllInBatch();
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void releasedCopiesGoToHoldsInOrder() {
+        Long bookId = addBook(1);
+        for (String name : List.of("alice", "bob", "carol", "dave")) {
+            addUser(name);
+        }
+
+        BookHoldDTO alice = bookHoldService.placeHold("alice", bookId);
+        assertThat(alice.getStatus()).isEqualTo("FULFILLED");
+        assertThat(alice.getBorrowRecordId()).isNotNull();
+        BookHoldDTO bob = bookHoldService.placeHold("bob", bookId);
+        BookHoldDTO carol = bookHoldService.placeHold("carol", bookId);
+        BookHoldDTO dave = bookHoldService.placeHold("dave", bookId);
+        assertThat(List.of(bob.getPosition(), carol.getPosition(), dave.getPosition())).containsExactly(1L, 2L, 3L);
+        assertThatThrownBy(() -> bookHoldService.placeHold("bob", bookId)).hasMessage("已在该图书的预约队列中");
+
+        bookHoldService.cancelHold(carol.getId(), "carol");
+        assertThat(bookHoldService.getHold(dave.getId(), "dave").getPosition()).isEqualTo(2);
+
+        borrowService.approveBorrow(alice.getBorrowRecordId());
+        borrowService.returnBook(alice.getBorrowRecordId(), "alice");
+        BookHoldDTO bobServed = bookHoldService.getHold(bob.getId(), "bob");
+        assertThat(bobServed.getStatus()).isEqualTo("FULFILLED");
+        BorrowRecordDTO bobBorrow = borrowService.getBorrows("bob", "PENDING", PageRequest.of(0, 10))
+                .getContent().get(0);
+        assertThat(bobBorrow.getId()).isEqualTo(bobServed.getBorrowRecordId());
+        assertThat(bookHoldService.getHold(dave.getId(), "dave").getPosition()).isEqualTo(1);
+        assertThat(stock(bookId)).isZero();
+
+        borrowService.rejectBorrow(bobBorrow.getId());
+        assertThat(bookHoldService.getHold(dave.getId(), "dave").getStatus()).isEqualTo("FULFILLED");
+        assertThatThrownBy(() -> bookHoldService.cancelHold(dave.getId(), "dave"))
+                .hasMessage("预约已分配或已取消，当前状态: FULFILLED");
+
+        // 队列为空时释放的图书回到库存
+        borrowService.rejectBorrow(bookHoldService.getHold(dave.getId(), "dave").getBorrowRecordId());
+        assertThat(stock(bookId)).isEqualTo(1);
+    }
+
+    @Test
+    void restockedCopiesGoToWaitingHoldsFirst() {
+        Long bookId = addBook(1);
+        for (String name : List.of("alice", "bob", "carol", "dave", "erin")) {
+            addUser(name);
+        }
+        bookHoldService.placeHold("alice", bookId);
+        BookHoldDTO bob = bookHoldService.placeHold("bob", bookId);
+        BookHoldDTO carol = bookHoldService.placeHold("carol", bookId);
+        BookHoldDTO dave = bookHoldService.placeHold("dave", bookId);
+
+        // 增加两本：分配给队首的两个预约，库存仍为0，后来的人不能越过队列
+        assertThat(bookService.updateBook(bookId, BookDTO.builder().stock(2).build()).getStock()).isZero();
+        assertThat(bookHoldService.getHold(bob.getId(), "bob").getStatus()).isEqualTo("FULFILLED");
+        assertThat(bookHoldService.getHold(carol.getId(), "carol").getStatus()).isEqualTo("FULFILLED");
+        assertThat(bookHoldService.getHold(dave.getId(), "dave").getPosition()).isEqualTo(1);
+        assertThatThrownBy(() -> borrowService.borrowBook("erin", bookId)).hasMessage("图书库存不足");
+        assertThat(bookHoldService.placeHold("erin", bookId).getPosition()).isEqualTo(2);
+
+        // 新增的比排队的人多：队列分配完后剩余的留在库存中
+        assertThat(bookService.updateBook(bookId, BookDTO.builder().stock(5).build()).getStock()).isEqualTo(3);
+        assertThat(bookHoldService.getHold(dave.getId(), "dave").getStatus()).isEqualTo("FULFILLED");
+        assertThat(bookHoldRepository.findAll()).extracting(BookHold::getStatus).containsOnly("FULFILLED");
+        assertThat(stock(bookId)).isEqualTo(3);
+        assertThat(borrowRecordRepository.countByBookId(bookId)).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentHoldsAndReturnsNeverStrandCopies() throws Exception {
+        int copies = 8;
+        Long bookId = addBook(copies);
+        List<Long> borrowIds = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            addUser("reader" + i);
+            Long id = borrowService.borrowBook("reader" + i, bookId).getId();
+            borrowService.approveBorrow(id);
+            borrowIds.add(id);
+        }
+        int waiting = 12;
+        for (int i = 0; i < waiting; i++) {
+            addUser("waiter" + i);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(copies + waiting);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            Long borrowId = borrowIds.get(i);
+            workers.add(pool.submit(() -> {
+                start.await();
+                return borrowService.adminReturnBook(borrowId);
+            }));
+        }
+        for (int i = 0; i < waiting; i++) {
+            String username = "waiter" + i;
+            workers.add(pool.submit(() -> {
+                start.await();
+                return bookHoldService.placeHold(username, bookId);
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        // 每本归还的图书要么分配给了预约，要么回到库存；有库存时不能还有人在等待
+        List<BookHold> holds = bookHoldRepository.findAll();
+        long fulfilled = holds.stream().filter(hold -> hold.getStatus().equals("FULFILLED")).count();
+        long stillWaiting = holds.stream().filter(hold -> hold.getStatus().equals("WAITING")).count();
+        assertThat(fulfilled).isEqualTo(copies);
+        assertThat(stillWaiting).isEqualTo(waiting - copies);
+        assertThat(stock(bookId)).isZero();
+        assertThat(borrowRecordRepository.countByBookId(bookId)).isEqualTo(copies * 2L);
+    }
+
+    private Long addBook(int stock) {
+        Book book = new Book();
+        book.setTitle("三体");
+        book.setAuthor("刘慈欣");
+        book.setIsbn("HOLD-1");
+        book.setPublisher("重庆出版社");
+        book.setPublishDate(LocalDate.of(2008, 1, 1));
+        book.setCategory("科学");
+        book.setStock(stock);
+        return bookRepository.save(book).getId();
+    }
+
+    private void addUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setEmail(username + "@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+    }
+
+    private int stock(Long bookId) {
+        return bookRepository.findById(bookId).orElseThrow().getStock();
+    }
+}
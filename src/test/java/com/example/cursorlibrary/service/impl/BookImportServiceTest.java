@@ -0,0 +1,126 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.dto.BookImportProgress;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 图书批量导入：十万行CSV的导入耗时、去重与逐行错误报告
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({BookImportServiceImpl.class, StatisticsServiceImpl.class, BookSearchIndex.class, AsyncConfig.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookImportServiceTest {
+
+    private static final int ROWS = 100_000;
+
+    @Autowired
+    private BookImportServiceImpl bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void importsHundredThousandCsvRows() throws Exception {
+        Book existing = new Book();
+        existing.setTitle("已存在的图书");
+        existing.setAuthor("作者");
+        existing.setIsbn("CSV-0000007");
+        existing.setPublisher("出版社");
+        existing.setPublishDate(LocalDate.of(2020, 1, 1));
+        existing.setCategory("文学");
+        existing.setStock(1);
+        bookRepository.save(existing);
+
+        StringBuilder csv = new StringBuilder("title,author,isbn,publisher,publish_date,category,description,stock\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("图书").append(i).append(",作者").append(i % 1000)
+                    .append(",CSV-").append(String.format("%07d", i))
+                    .append(",出版社,2021-05-01,计算机,\"简介, 第").append(i).append("册\",").append(i % 20).append('\n');
+        }
+        // 本文件内重复的ISBN
+        csv.append("重复图书,作者,CSV-0000001,出版社,2021-05-01,计算机,,1\n");
+        // 校验失败的行
+        csv.append(",作者,CSV-BAD-1,出版社,2021-05-01,计算机,,1\n");
+        csv.append("坏日期,作者,CSV-BAD-2,出版社,2021/05/01,计算机,,1\n");
+        csv.append("负库存,作者,CSV-BAD-3,出版社,2021-05-01,计算机,,-1\n");
+        // 引号内含换行的描述
+        csv.append("多行描述,作者,CSV-MULTI,出版社,2021-05-01,计算机,\"第一行\n第二行\",2\n");
+
+        MockMultipartFile file = new MockMultipartFile("file", "books.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        BookImportProgress progress = awaitCompletion(bookImportService.startImport(file, null).getJobId());
+
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getProcessed()).isEqualTo(ROWS + 5);
+        // 十万行中一行与库中已有图书重复（少导入一本），再加上多行描述的一本
+        assertThat(progress.getImported()).isEqualTo(ROWS);
+        assertThat(progress.getDuplicates()).isEqualTo(2);
+        assertThat(progress.getFailed()).isEqualTo(3);
+        assertThat(progress.getErrors()).extracting(BookImportProgress.RowError::getLine)
+                .containsExactly((long) ROWS + 3, (long) ROWS + 4, (long) ROWS + 5);
+        assertThat(progress.getErrors()).extracting(BookImportProgress.RowError::getMessage)
+                .containsExactly("书名不能为空", "出版日期格式错误，应为 yyyy-MM-dd: 2021/05/01", "库存不能为负数");
+
+        List<Book> imported = bookRepository.findByIsbnIn(List.of("CSV-0000042", "CSV-MULTI"));
+        assertThat(imported).extracting(Book::getDescription)
+                .containsExactlyInAnyOrder("简介, 第42册", "第一行\n第二行");
+    }
+
+    @Test
+    void importsJsonLines() throws Exception {
+        String ndjson = """
+                {"title":"百年孤独","author":"加西亚·马尔克斯","isbn":"JSONL-1","publisher":"南海出版公司","publishDate":"2011-06-01","category":"文学","stock":3}
+                {"title":"红楼梦","author":"曹雪芹","isbn":"JSONL-2","publisher":"人民文学出版社","publishDate":"1996-12-01","category":"文学"}
+                not json
+                {"title":"缺少作者","isbn":"JSONL-3","publisher":"出版社","publishDate":"2020-01-01","category":"文学"}
+                """;
+        MockMultipartFile file = new MockMultipartFile("file", "books.jsonl", "application/x-ndjson",
+                ndjson.getBytes(StandardCharsets.UTF_8));
+
+        BookImportProgress progress = awaitCompletion(bookImportService.startImport(file, null).getJobId());
+
+        assertThat(progress.getFormat()).isEqualTo("NDJSON");
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getImported()).isEqualTo(2);
+        assertThat(progress.getFailed()).isEqualTo(2);
+        assertThat(progress.getErrors()).extracting(BookImportProgress.RowError::getLine).containsExactly(3L, 4L);
+        assertThat(bookRepository.findByIsbnIn(List.of("JSONL-2")).get(0).getStock()).isZero();
+    }
+
+    private BookImportProgress awaitCompletion(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        BookImportProgress progress = bookImportService.getProgress(jobId);
+        while (!progress.getStatus().equals("COMPLETED") && !progress.getStatus().equals("FAILED")
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            progress = bookImportService.getProgress(jobId);
+        }
+        return progress;
+    }
+}
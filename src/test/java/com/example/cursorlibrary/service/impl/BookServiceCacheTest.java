@@ -0,0 +1,179 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.cache.TwoLevelCacheManager;
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.dto.BookDTO;
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.BorrowService;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 图书目录两级缓存：命中时不访问数据库，写操作和库存变化提交后失效，过期时并发请求只回源一次
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "cache.shared.enabled=true"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookServiceImpl.class, BorrowServiceImpl.class, BorrowHistoryPurger.class, StatisticsServiceImpl.class,
+        BookSearchIndex.class, AsyncConfig.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookServiceCacheTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("reader");
+        user.setPassword("password");
+        user.setEmail("reader@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        Book book = new Book();
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("CACHE-1");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(5);
+        bookId = bookRepository.save(book).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void servesRepeatedReadsFromCacheAndInvalidatesOnWrites() {
+        Statistics statistics = statistics();
+        bookService.findById(bookId);
+        bookService.findBooks(null, 0, 10);
+        statistics.clear();
+        assertThat(bookService.findById(bookId).getTitle()).isEqualTo("活着");
+        assertThat(bookService.findBooks(null, 0, 10).getContent()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        BookDTO update = new BookDTO();
+        update.setTitle("活着（新版）");
+        bookService.updateBook(bookId, update);
+        assertThat(bookService.findById(bookId).getTitle()).isEqualTo("活着（新版）");
+        assertThat(bookService.findBooks(null, 0, 10).getContent().get(0).getTitle()).isEqualTo("活着（新版）");
+
+        // 借阅扣减库存后详情和列表都能看到新库存
+        BorrowRecordDTO borrow = borrowService.borrowBook("reader", bookId);
+        assertThat(bookService.findById(bookId).getStock()).isEqualTo(4);
+        assertThat(bookService.findBooks(null, 0, 10).getContent().get(0).getStock()).isEqualTo(4);
+        borrowService.rejectBorrow(borrow.getId());
+        assertThat(bookService.findById(bookId).getStock()).isEqualTo(5);
+
+        Map<String, Object> stats = cacheManager.getStatistics().get(CacheConfig.BOOKS);
+        assertThat((long) stats.get("localHits")).isPositive();
+        assertThat((double) stats.get("hitRatio")).isBetween(0.0, 1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fallsBackToSharedTierWhenLocalEntryIsGone() {
+        Book cached = bookService.findById(bookId);
+        // 模拟另一个实例：本地缓存为空，共享缓存中已有数据
+        ((Cache<Object, Object>) cacheManager.getCache(CacheConfig.BOOKS).getNativeCache()).invalidateAll();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        Book fromShared = bookService.findById(bookId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(fromShared).isNotSameAs(cached).isEqualTo(cached);
+        assertThat((long) cacheManager.getStatistics().get(CacheConfig.BOOKS).get("sharedHits")).isEqualTo(1);
+    }
+
+    @Test
+    void loadsExpiredEntryOnceUnderConcurrentReads() throws Exception {
+        int threads = 16;
+        Statistics statistics = statistics();
+        statistics.clear();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Book>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return bookService.findById(bookId);
+                }));
+            }
+            start.countDown();
+            for (Future<Book> future : futures) {
+                assertThat(future.get().getIsbn()).isEqualTo("CACHE-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
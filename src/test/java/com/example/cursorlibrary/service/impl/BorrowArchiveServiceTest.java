@@ -0,0 +1,164 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.dto.CursorPage;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.service.BorrowArchiveService;
+import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.service.StatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 借阅记录归档：到期的已结束记录分批移入归档表，历史视图合并两张表，未完成借阅的查询只访问热表
+ */
+@DataJpaTest(showSql = false, properties = {"borrow-archive.batch-size=2", "borrow-archive.retention-days=365"})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BorrowArchiveServiceImpl.class, BorrowServiceImpl.class, StatisticsServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowArchiveServiceTest {
+
+    @Autowired
+    private BorrowArchiveService borrowArchiveService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("reader");
+        user.setPassword("password");
+        user.setEmail("reader@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        book = new Book();
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("ARCHIVE-1");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(5);
+        bookRepository.save(book);
+
+        LocalDateTime old = LocalDateTime.now().minusYears(2);
+        for (int i = 0; i < 5; i++) {
+            addBorrow("RETURNED", old.plusDays(i));
+        }
+        addBorrow("REJECTED", old.plusDays(10));
+        addBorrow("REJECTED", old.plusDays(11));
+        // 很早借出但仍未归还的记录和近期的记录都留在热表
+        addBorrow("BORROWED", old.plusDays(12));
+        addBorrow("RETURNED", LocalDateTime.now().minusDays(3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM borrow_records_archive");
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void movesExpiredClosedRecordsInBatches() {
+        assertThat(borrowArchiveService.archiveClosedRecords()).isEqualTo(7);
+
+        assertThat(borrowRecordRepository.findAll()).extracting(BorrowRecord::getStatus)
+                .containsExactlyInAnyOrder("BORROWED", "RETURNED");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM borrow_records_archive", Long.class)).isEqualTo(7);
+        // 再次执行没有新的到期记录
+        assertThat(borrowArchiveService.archiveClosedRecords()).isZero();
+    }
+
+    @Test
+    void historyViewsIncludeArchivedRecords() {
+        List<Long> allIds = borrowRecordRepository.findAll().stream().map(BorrowRecord::getId).sorted().toList();
+        borrowArchiveService.archiveClosedRecords();
+
+        // 分页跨越两张表，顺序和总数与归档前一致
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            Page<BorrowRecordDTO> result = borrowService.getAllBorrows(null, PageRequest.of(page, 4));
+            assertThat(result.getTotalElements()).isEqualTo(9);
+            result.getContent().forEach(record -> paged.add(record.getId()));
+        }
+        assertThat(paged).isEqualTo(allIds);
+
+        List<BorrowRecordDTO> scrolled = new ArrayList<>();
+        String after = null;
+        do {
+            CursorPage<BorrowRecordDTO> page = borrowService.scrollBorrows("reader", null, after, 2);
+            scrolled.addAll(page.getContent());
+            after = page.getNextCursor();
+        } while (after != null);
+        assertThat(scrolled).hasSize(9).isSortedAccordingTo(
+                Comparator.comparing(BorrowRecordDTO::getBorrowDate).reversed());
+        assertThat(scrolled).allSatisfy(record -> assertThat(record.getBook().getTitle()).isEqualTo("活着"));
+
+        assertThat(borrowService.getAllBorrows("REJECTED", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+        assertThat(borrowService.getAllBorrows("BORROWED", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+
+        statisticsService.reconcile();
+        assertThat(statisticsService.getStatistics().get("totalBorrows")).isEqualTo(9L);
+    }
+
+    private void addBorrow(String status, LocalDateTime borrowDate) {
+        BorrowRecord record = new BorrowRecord();
+        record.setUser(user);
+        record.setBook(book);
+        record.setBorrowDate(borrowDate);
+        record.setDueDate(borrowDate.plusDays(30));
+        if (status.equals("RETURNED")) {
+            record.setReturnDate(borrowDate.plusDays(7));
+        }
+        record.setStatus(status);
+        borrowRecordRepository.save(record);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.BorrowExportFilter;
+import com.example.cursorlibrary.service.BorrowExportService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 借阅记录流式导出：在很小的堆（见pom中 streaming-export 执行的 -Xmx）下导出数百万行。
+ * 使用文件模式的H2，数据保存在磁盘上，不占用测试进程的堆内存。
+ */
+class BorrowExportStreamingTest {
+
+    private static final int ROWS = 3_000_000;
+    private static final int BATCH = 100_000;
+
+    private static BorrowExportServiceImpl exportService;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of("target", "h2-export"));
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:file:./target/h2-export/library;MODE=MySQL;CACHE_SIZE=4096;LAZY_QUERY_EXECUTION=TRUE");
+        dataSource.setUser("sa");
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50))");
+        jdbc.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, title VARCHAR(100), isbn VARCHAR(20))");
+        jdbc.execute("INSERT INTO users SELECT X, CONCAT('reader', X) FROM SYSTEM_RANGE(1, 100)");
+        jdbc.execute("INSERT INTO books SELECT X, CONCAT('图书, 第', X, '卷'), CONCAT('978', LPAD(X, 10, '0')) FROM SYSTEM_RANGE(1, 50)");
+        jdbc.execute("CREATE TABLE borrow_records (id BIGINT PRIMARY KEY, user_id BIGINT, book_id BIGINT, "
+                + "borrow_date TIMESTAMP, due_date TIMESTAMP, return_date TIMESTAMP, status VARCHAR(20))");
+        jdbc.execute("CREATE TABLE borrow_records_archive (id BIGINT PRIMARY KEY, user_id BIGINT, book_id BIGINT, "
+                + "borrow_date TIMESTAMP, due_date TIMESTAMP, return_date TIMESTAMP, status VARCHAR(20), archived_at TIMESTAMP)");
+        // 分批写入，避免单个大事务占用内存
+        for (int start = 1; start <= ROWS; start += BATCH) {
+            jdbc.execute("INSERT INTO borrow_records SELECT X, MOD(X, 100) + 1, MOD(X, 50) + 1, "
+                    + "DATEADD('MINUTE', X, TIMESTAMP '2020-01-01 00:00:00'), "
+                    + "DATEADD('MINUTE', X + 43200, TIMESTAMP '2020-01-01 00:00:00'), "
+                    + "CASE WHEN MOD(X, 4) = 2 THEN DATEADD('MINUTE', X + 1440, TIMESTAMP '2020-01-01 00:00:00') END, "
+                    + "CASE MOD(X, 4) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'BORROWED' WHEN 2 THEN 'RETURNED' ELSE 'REJECTED' END "
+                    + "FROM SYSTEM_RANGE(" + start + ", " + Math.min(ROWS, start + BATCH - 1) + ")");
+        }
+
+        exportService = new BorrowExportServiceImpl(dataSource, 1000);
+    }
+
+    @Test
+    void exportsMillionsOfRowsAsCsvWithConstantHeap() throws IOException {
+        CountingOutputStream out = new CountingOutputStream(2);
+
+        long exported = exportService.export(new BorrowExportFilter(), BorrowExportService.Format.CSV, out);
+
+        assertThat(exported).isEqualTo(ROWS);
+        // 表头 + 每行一条记录
+        assertThat(out.lines).isEqualTo(ROWS + 1);
+        String head = out.head.toString(StandardCharsets.UTF_8);
+        assertThat(head).startsWith("\uFEFFid,userId,username,bookId,title,isbn,borrowDate,dueDate,returnDate,status\r\n");
+        // 含逗号的书名需要加引号
+        assertThat(head).endsWith("1,2,reader2,2,\"图书, 第2卷\",9780000000002,2020-01-01T00:01,2020-01-31T00:01,,BORROWED\r\n");
+    }
+
+    @Test
+    void exportsFilteredRowsAsGzippedNdjson() throws IOException {
+        BorrowExportFilter filter = BorrowExportFilter.builder()
+                .status("RETURNED")
+                .from(LocalDate.of(2020, 3, 1))
+                .to(LocalDate.of(2021, 2, 28))
+                .userId(3L)
+                .build();
+        CountingOutputStream out = new CountingOutputStream(1);
+        long exported;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            exported = exportService.export(filter, BorrowExportService.Format.NDJSON, gzip);
+        }
+
+        // user_id = 3 即 MOD(X, 100) = 2，恰好都满足 MOD(X, 4) = 2（RETURNED），每100分钟一条
+        long minutes = Duration.between(LocalDate.of(2020, 3, 1).atStartOfDay(),
+                LocalDate.of(2021, 3, 1).atStartOfDay()).toMinutes();
+        assertThat(exported).isEqualTo(minutes / 100);
+        assertThat(out.bytes).isPositive();
+    }
+
+    /**
+     * 只统计字节数和行数，并保留开头若干行用于校验，不缓存导出内容
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private final int headLines;
+        private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        private long bytes;
+        private long lines;
+
+        CountingOutputStream(int headLines) {
+            this.headLines = headLines;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (lines < headLines) {
+                head.write(b);
+            }
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
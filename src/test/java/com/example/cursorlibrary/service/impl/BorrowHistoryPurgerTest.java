@@ -0,0 +1,151 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.dto.PurgeProgress;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.StatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 删除图书时分块清理借阅历史：未完成借阅阻止删除，分块删除后统计计数与数据库一致，支持后台执行
+ */
+@DataJpaTest(showSql = false, properties = "borrow-purge.chunk-size=3")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookServiceImpl.class, BorrowServiceImpl.class, BorrowHistoryPurger.class, StatisticsServiceImpl.class, BookSearchIndex.class,
+        AsyncConfig.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowHistoryPurgerTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowHistoryPurger borrowHistoryPurger;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("reader");
+        user.setPassword("password");
+        user.setEmail("reader@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        book = new Book();
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("PURGE-1");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(5);
+        bookRepository.save(book);
+
+        // 10 条已结束的记录，每块 3 条，需要多个分块
+        for (int i = 0; i < 10; i++) {
+            addBorrow(i < 7 ? "RETURNED" : "REJECTED");
+        }
+        statisticsService.reconcile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void deletesHistoryInChunksAndKeepsCountersInSync() {
+        bookService.deleteBook(book.getId());
+
+        assertThat(bookRepository.existsById(book.getId())).isFalse();
+        assertThat(borrowRecordRepository.count()).isZero();
+        Map<String, Object> stats = statisticsService.getStatistics();
+        assertThat(stats.get("totalBooks")).isEqualTo(0L);
+        assertThat(stats.get("totalBorrows")).isEqualTo(0L);
+    }
+
+    @Test
+    void refusesWhileBorrowIsActive() {
+        addBorrow("BORROWED");
+
+        assertThatThrownBy(() -> bookService.deleteBook(book.getId()))
+                .hasMessageContaining("未完成的借阅记录");
+        assertThat(bookRepository.existsById(book.getId())).isTrue();
+        assertThat(borrowRecordRepository.count()).isEqualTo(11);
+    }
+
+    @Test
+    void runsAsBackgroundJob() throws InterruptedException {
+        PurgeProgress progress = awaitCompletion(bookService.deleteBookAsync(book.getId()).getJobId());
+
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getTarget()).isEqualTo("BOOK");
+        assertThat(progress.getDeleted()).isEqualTo(10);
+        assertThat(bookRepository.existsById(book.getId())).isFalse();
+    }
+
+    private void addBorrow(String status) {
+        BorrowRecord record = new BorrowRecord();
+        record.setUser(user);
+        record.setBook(book);
+        record.setBorrowDate(LocalDateTime.now());
+        record.setDueDate(LocalDateTime.now().plusDays(30));
+        record.setStatus(status);
+        borrowRecordRepository.save(record);
+    }
+
+    private PurgeProgress awaitCompletion(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        PurgeProgress progress = borrowHistoryPurger.getProgress(jobId);
+        while (!progress.getStatus().equals("COMPLETED") && !progress.getStatus().equals("FAILED")
+                && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            progress = borrowHistoryPurger.getProgress(jobId);
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热门图书并发借阅：大量线程同时借同一本书时不能超卖，成功数等于库存，其余都因库存不足被拒绝
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BorrowServiceImpl.class, StatisticsServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS = 5000;
+    private static final int STOCK = 1000;
+
+    @Autowired
+    private BorrowServiceImpl borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Test
+    void concurrentBorrowsNeverOversellHotBook() throws Exception {
+        User user = new User();
+        user.setUsername("stress");
+        user.setPassword("123456");
+        user.setEmail("stress@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        Book book = new Book();
+        book.setTitle("三体");
+        book.setAuthor("刘慈欣");
+        book.setIsbn("9787536692930");
+        book.setPublisher("重庆出版社");
+        book.setPublishDate(LocalDate.of(2008, 1, 1));
+        book.setCategory("科学");
+        book.setStock(STOCK);
+        Long bookId = bookRepository.save(book).getId();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(ATTEMPTS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                while (remaining.getAndDecrement() > 0) {
+                    try {
+                        borrowService.borrowBook("stress", bookId);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e.getMessage()).isEqualTo("图书库存不足");
+                        outOfStock.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(outOfStock.get()).isEqualTo(ATTEMPTS - STOCK);
+        assertThat(bookRepository.findById(bookId).orElseThrow().getStock()).isZero();
+        assertThat(borrowRecordRepository.countByBookId(bookId)).isEqualTo(STOCK);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 借阅记录列表的查询计划：每页的SQL语句数固定，响应中不包含用户密码和图书简介，
+ * 且在事务（会话）之外也能直接序列化
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BorrowServiceImpl.class, StatisticsServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowServiceFetchPlanTest {
+
+    private static final int USERS = 20;
+    private static final int BOOKS = 40;
+    private static final int RECORDS = 200;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Autowired
+    private BorrowServiceImpl borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        User[] users = new User[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("fetch" + i);
+            user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2oDHRrsmc2nJbE6jHI3VXIu");
+            user.setEmail("fetch" + i + "@example.com");
+            user.setRole("USER");
+            user.setStatus("ACTIVE");
+            users[i] = userRepository.save(user);
+        }
+        Book[] books = new Book[BOOKS];
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("图书" + i);
+            book.setAuthor("作者" + i);
+            book.setIsbn("FETCH-" + i);
+            book.setPublisher("出版社");
+            book.setPublishDate(LocalDate.of(2020, 1, 1));
+            book.setCategory("文学");
+            book.setDescription("简介".repeat(500));
+            book.setStock(10);
+            books[i] = bookRepository.save(book);
+        }
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < RECORDS; i++) {
+            BorrowRecord record = new BorrowRecord();
+            record.setUser(users[i % USERS]);
+            record.setBook(books[i % BOOKS]);
+            record.setBorrowDate(base.plusHours(i));
+            record.setDueDate(base.plusHours(i).plusDays(30));
+            record.setStatus(i % 2 == 0 ? "BORROWED" : "RETURNED");
+            borrowRecordRepository.save(record);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void borrowPagesUseFixedNumberOfStatements() throws Exception {
+        for (int size : new int[]{10, 50}) {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            // 未完成借阅的列表只查询热表，经由JPA投影查询
+            Page<?> page = borrowService.getAllBorrows("BORROWED", PageRequest.of(0, size));
+            long statements = statistics.getPrepareStatementCount();
+            // 在会话之外序列化，与关闭 open-in-view 后控制器的情况一致
+            byte[] json = objectMapper.writeValueAsBytes(page);
+
+            // 分页查询 + 总数查询
+            assertThat(statements).isEqualTo(2);
+            assertThat(page.getNumberOfElements()).isEqualTo(size);
+            // 每条记录只含借阅、图书和用户的摘要字段；带上图书简介时每条就超过3000字节
+            assertThat(json.length).isLessThan(size * 600);
+            JsonNode first = objectMapper.readTree(json).get("content").get(0);
+            assertThat(first.get("book").get("title").asText()).startsWith("图书");
+            assertThat(first.get("user").get("username").asText()).startsWith("fetch");
+            assertThat(first.get("user").has("password")).isFalse();
+            assertThat(first.get("book").has("description")).isFalse();
+        }
+    }
+}
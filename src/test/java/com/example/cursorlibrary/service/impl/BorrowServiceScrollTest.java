@@ -0,0 +1,128 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.dto.BorrowRecordDTO;
+import com.example.cursorlibrary.dto.CursorPage;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 借阅记录游标分页：逐页读取的结果与一次性排序的结果完全一致
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BorrowServiceImpl.class, StatisticsServiceImpl.class})
+class BorrowServiceScrollTest {
+
+    private static final int RECORDS = 57;
+
+    @Autowired
+    private BorrowServiceImpl borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("scroll");
+        user.setPassword("123456");
+        user.setEmail("scroll@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        Book book = new Book();
+        book.setTitle("围城");
+        book.setAuthor("钱钟书");
+        book.setIsbn("9787020090006");
+        book.setPublisher("人民文学出版社");
+        book.setPublishDate(LocalDate.of(1991, 2, 1));
+        book.setCategory("文学");
+        book.setStock(10);
+        bookRepository.save(book);
+
+        // 每三条记录共用一个借阅时间，验证相同时间时按id区分先后
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < RECORDS; i++) {
+            BorrowRecord record = new BorrowRecord();
+            record.setUser(user);
+            record.setBook(book);
+            record.setBorrowDate(base.plusHours(i / 3));
+            record.setDueDate(base.plusDays(30));
+            record.setStatus(i % 2 == 0 ? "RETURNED" : "BORROWED");
+            borrowRecordRepository.save(record);
+        }
+    }
+
+    @Test
+    void scrollingVisitsEveryRecordOnceInOrder() {
+        List<Long> expected = borrowRecordRepository.findAll().stream()
+                .sorted(Comparator.comparing(BorrowRecord::getBorrowDate).thenComparing(BorrowRecord::getId).reversed())
+                .map(BorrowRecord::getId)
+                .toList();
+
+        List<Long> scrolled = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            CursorPage<BorrowRecordDTO> page = borrowService.scrollBorrows("scroll", null, after, 10);
+            page.getContent().forEach(record -> scrolled.add(record.getId()));
+            after = page.getNextCursor();
+            assertThat(page.isHasNext()).isEqualTo(after != null);
+            pages++;
+        } while (after != null);
+
+        assertThat(scrolled).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo((RECORDS + 9) / 10);
+    }
+
+    @Test
+    void scrollingFiltersByStatus() {
+        List<Long> scrolled = new ArrayList<>();
+        String after = null;
+        do {
+            CursorPage<BorrowRecordDTO> page = borrowService.scrollAllBorrows("BORROWED", after, 7);
+            page.getContent().forEach(record -> {
+                assertThat(record.getStatus()).isEqualTo("BORROWED");
+                scrolled.add(record.getId());
+            });
+            after = page.getNextCursor();
+        } while (after != null);
+
+        assertThat(scrolled).hasSize(RECORDS / 2).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> borrowService.scrollAllBorrows(null, "not-a-cursor", 10))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("无效的分页游标");
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.ProfileVersion;
+import com.example.cursorlibrary.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 最后登录时间写缓冲：登录时不写数据库，同一用户只保留最新时间，一条语句批量写入，不递增版本号
+ */
+@DataJpaTest(showSql = false, properties = "last-login.flush-size=2")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LastLoginBuffer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LastLoginBufferTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 9, 1, 8, 0);
+
+    @Autowired
+    private LastLoginBuffer buffer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        buffer.flush();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void coalescesLoginsAndFlushesInBatches() {
+        User reader1 = saveUser("reader1");
+        User reader2 = saveUser("reader2");
+        User reader3 = saveUser("reader3");
+
+        buffer.record("reader1", T0);
+        buffer.record("reader1", T0.plusMinutes(5));
+        buffer.record("reader1", T0.plusMinutes(1));
+        buffer.record("reader2", T0.plusMinutes(2));
+        buffer.record("reader3", T0.plusMinutes(3));
+        buffer.record("removed", T0);
+        assertThat(buffer.pendingCount()).isEqualTo(4);
+        User before = reload(reader1);
+        assertThat(before.getLastLogin()).isNull();
+
+        assertThat(buffer.flush()).isEqualTo(3);
+        assertThat(buffer.pendingCount()).isZero();
+
+        User flushed = reload(reader1);
+        assertThat(flushed.getLastLogin()).isEqualTo(T0.plusMinutes(5));
+        assertThat(flushed.getVersion()).isEqualTo(before.getVersion());
+        assertThat(flushed.getUpdatedAt()).isEqualTo(before.getUpdatedAt());
+        assertThat(reload(reader2).getLastLogin()).isEqualTo(T0.plusMinutes(2));
+        assertThat(reload(reader3).getLastLogin()).isEqualTo(T0.plusMinutes(3));
+    }
+
+    @Test
+    void flushKeepsUpdatedAtUnderOnUpdateTimestamp() {
+        // 与 init.sql 中 MySQL 的列定义一致：不显式赋值时 updated_at 随任何更新变化
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN updated_at SET ON UPDATE CURRENT_TIMESTAMP");
+        try {
+            User reader = saveUser("reader");
+            jdbcTemplate.update("UPDATE users SET updated_at = ? WHERE id = ?",
+                    Timestamp.valueOf(T0.minusDays(1)), reader.getId());
+            buffer.record("reader", T0);
+
+            buffer.flush();
+
+            User flushed = reload(reader);
+            assertThat(flushed.getLastLogin()).isEqualTo(T0);
+            assertThat(flushed.getUpdatedAt()).isEqualTo(T0.minusDays(1));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN updated_at DROP ON UPDATE");
+        }
+    }
+
+    @Test
+    void flushDoesNotBreakOptimisticLockOfLoadedUser() {
+        User reader = saveUser("reader");
+        User loaded = reload(reader);
+        buffer.record("reader", T0);
+        buffer.flush();
+
+        loaded.setEmail("reader-new@example.com");
+        userRepository.save(loaded);
+
+        assertThat(reload(reader).getEmail()).isEqualTo("reader-new@example.com");
+        ProfileVersion profile = userRepository.findProfileVersionByUsername("reader").orElseThrow();
+        assertThat(profile.getLastLogin()).isEqualTo(T0);
+    }
+
+    @Test
+    void flushesRemainingLoginsOnShutdown() {
+        User reader = saveUser("reader");
+        buffer.record("reader", T0);
+
+        buffer.flushOnShutdown();
+
+        assertThat(reload(reader).getLastLogin()).isEqualTo(T0);
+        assertThat(buffer.pendingCount()).isZero();
+    }
+
+    private User reload(User user) {
+        return userRepository.findById(user.getId()).orElseThrow();
+    }
+
+    private User saveUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}123456");
+        user.setEmail(username + "@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        return userRepository.save(user);
+    }
+}
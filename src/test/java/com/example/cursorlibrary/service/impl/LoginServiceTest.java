@@ -0,0 +1,146 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.SecurityConfig;
+import com.example.cursorlibrary.config.UserDetailsServiceImpl;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.exception.LoginOverloadedException;
+import com.example.cursorlibrary.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 登录流程：旧明文密码登录成功后升级为 bcrypt；禁用的用户不能登录；登录线程池已满时快速拒绝
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserDetailsServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoginServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    private final PasswordEncoder encoder = SecurityConfig.delegatingPasswordEncoder(4);
+    private ThreadPoolTaskExecutor executor;
+    private AuthenticationManager authenticationManager;
+
+    @BeforeEach
+    void setUp() {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        authenticationManager = new ProviderManager(provider);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void upgradesLegacyPlaintextPasswordOnLogin() {
+        saveUser("legacy", "123456");
+        LoginServiceImpl loginService = new LoginServiceImpl(authenticationManager, executor, 60000);
+
+        assertThatThrownBy(() -> loginService.authenticate("legacy", "wrong").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(BadCredentialsException.class);
+        assertThat(userRepository.findByUsername("legacy").orElseThrow().getPassword()).isEqualTo("123456");
+
+        assertThat(loginService.authenticate("legacy", "123456").join().getName()).isEqualTo("legacy");
+        String upgraded = userRepository.findByUsername("legacy").orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}");
+        assertThat(loginService.authenticate("legacy", "123456").join().getName()).isEqualTo("legacy");
+    }
+
+    @Test
+    void rejectsDisabledUsers() {
+        saveUser("reader", encoder.encode("123456"));
+        User reader = userRepository.findByUsername("reader").orElseThrow();
+        reader.setStatus("DISABLED");
+        userRepository.save(reader);
+        LoginServiceImpl loginService = new LoginServiceImpl(authenticationManager, executor, 60000);
+
+        // 密码正确也不能登录，拿不到新令牌
+        assertThatThrownBy(() -> loginService.authenticate("reader", "123456").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(DisabledException.class);
+
+        reader = userRepository.findByUsername("reader").orElseThrow();
+        reader.setStatus("ACTIVE");
+        userRepository.save(reader);
+        assertThat(loginService.authenticate("reader", "123456").join().getName()).isEqualTo("reader");
+    }
+
+    @Test
+    void rejectsLoginsWhenPoolIsFull() throws InterruptedException {
+        saveUser("reader", encoder.encode("123456"));
+        LoginServiceImpl loginService = new LoginServiceImpl(authenticationManager, executor, 60000);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<?> queued = loginService.authenticate("reader", "123456");
+        CompletableFuture<?> rejected = loginService.authenticate("reader", "123456");
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(LoginOverloadedException.class);
+
+        release.countDown();
+        assertThat(queued.join()).isNotNull();
+
+        // 排队超时的请求出队后不再计算哈希
+        LoginServiceImpl impatient = new LoginServiceImpl(authenticationManager, executor, 0);
+        assertThatThrownBy(() -> impatient.authenticate("reader", "123456").join())
+                .hasCauseInstanceOf(LoginOverloadedException.class);
+    }
+
+    private void saveUser(String username, String password) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(password);
+        user.setEmail(username + "@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(user);
+    }
+}
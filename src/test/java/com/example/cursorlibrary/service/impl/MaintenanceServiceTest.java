@@ -0,0 +1,195 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.dto.MaintenanceJobDTO;
+import com.example.cursorlibrary.entity.MaintenanceJob;
+import com.example.cursorlibrary.repository.MaintenanceJobRepository;
+import com.example.cursorlibrary.service.MaintenanceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 后台维护任务引擎：按块记录断点和进度，失败后从断点继续，执行中可调整限速和取消
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({MaintenanceServiceImpl.class, AsyncConfig.class, MaintenanceServiceTest.TaskConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MaintenanceServiceTest {
+
+    @Autowired
+    private MaintenanceService maintenanceService;
+
+    @Autowired
+    private MaintenanceServiceImpl maintenanceServiceImpl;
+
+    @Autowired
+    private MaintenanceJobRepository jobRepository;
+
+    @Autowired
+    private CountingTask task;
+
+    /**
+     * 把 1..rows 按块“处理”一遍，记录每次执行的起点和每块的大小；failAt 处失败一次
+     */
+    static class CountingTask implements MaintenanceTask {
+        final List<Long> starts = new CopyOnWriteArrayList<>();
+        final List<Integer> chunks = new CopyOnWriteArrayList<>();
+        final List<String> cleanups = new CopyOnWriteArrayList<>();
+        volatile long rows = 20;
+        volatile long failAt = -1;
+
+        @Override
+        public String type() {
+            return "COUNT";
+        }
+
+        @Override
+        public void validate(String target) {
+            if (!target.equals("numbers")) {
+                throw new RuntimeException("不支持的表");
+            }
+        }
+
+        @Override
+        public void run(Context context) {
+            long from = context.checkpoint() == null ? 0 : context.checkpoint();
+            starts.add(from);
+            context.total(rows);
+            context.phase("COPY");
+            while (from < rows) {
+                if (from == failAt) {
+                    failAt = -1;
+                    throw new RuntimeException("模拟失败");
+                }
+                int chunk = context.chunkSize();
+                long upper = Math.min(from + chunk, rows);
+                chunks.add((int) (upper - from));
+                context.checkpoint(upper, upper - from);
+                from = upper;
+            }
+        }
+
+        @Override
+        public void cleanup(String target) {
+            cleanups.add(target);
+        }
+    }
+
+    @TestConfiguration
+    static class TaskConfig {
+        @Bean
+        CountingTask countingTask() {
+            return new CountingTask();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteAllInBatch();
+        task.starts.clear();
+        task.chunks.clear();
+        task.cleanups.clear();
+    }
+
+    @Test
+    void resumesFailedJobFromCheckpoint() throws InterruptedException {
+        task.rows = 20;
+        task.failAt = 12;
+        MaintenanceJobDTO request = MaintenanceJobDTO.builder().type("COUNT").target("numbers").chunkSize(4).build();
+        String jobId = maintenanceService.start(request).getJobId();
+
+        MaintenanceJobDTO failed = awaitFinished(jobId);
+        assertThat(failed.getStatus()).isEqualTo("FAILED");
+        assertThat(failed.getMessage()).isEqualTo("模拟失败");
+        assertThat(failed.getCheckpoint()).isEqualTo(12);
+        assertThat(failed.getProcessed()).isEqualTo(12);
+        assertThatThrownBy(() -> maintenanceService.start(MaintenanceJobDTO.builder()
+                .type("COUNT").target("other").build()))
+                .hasMessage("不支持的表");
+
+        MaintenanceJobDTO completed = awaitFinished(maintenanceService.resume(jobId).getJobId());
+        assertThat(completed.getStatus()).isEqualTo("COMPLETED");
+        assertThat(completed.getProcessed()).isEqualTo(20);
+        assertThat(completed.getTotal()).isEqualTo(20);
+        assertThat(task.starts).containsExactly(0L, 12L);
+        assertThatThrownBy(() -> maintenanceService.resume(jobId)).hasMessage("只有失败的任务可以继续执行");
+    }
+
+    @Test
+    void appliesThrottleChangesAndCancelsBetweenChunks() throws InterruptedException {
+        task.rows = 1_000_000;
+        String jobId = maintenanceService.start(MaintenanceJobDTO.builder()
+                .type("COUNT").target("numbers").chunkSize(10).pauseMillis(20L).build()).getJobId();
+        assertThatThrownBy(() -> maintenanceService.start(MaintenanceJobDTO.builder()
+                .type("COUNT").target("numbers").build()))
+                .hasMessageContaining("已有进行中的维护任务");
+
+        awaitProcessed(jobId, 30);
+        maintenanceService.updateThrottle(jobId, 100, null);
+        awaitProcessed(jobId, 300);
+        assertThat(task.chunks).contains(10, 100);
+
+        maintenanceService.cancel(jobId);
+        MaintenanceJobDTO cancelled = awaitFinished(jobId);
+        assertThat(cancelled.getStatus()).isEqualTo("CANCELLED");
+        assertThat(cancelled.getChunkSize()).isEqualTo(100);
+        assertThat(cancelled.getProcessed()).isLessThan(task.rows);
+        assertThat(task.cleanups).containsExactly("numbers");
+    }
+
+    @Test
+    void marksJobsInterruptedByRestartAsFailed() {
+        MaintenanceJob job = new MaintenanceJob();
+        job.setId("interrupted");
+        job.setType("COUNT");
+        job.setTarget("numbers");
+        job.setStatus("RUNNING");
+        job.setCheckpoint(8L);
+        job.setChunkSize(4);
+        job.setCreatedAt(LocalDateTime.now());
+        jobRepository.save(job);
+
+        maintenanceServiceImpl.markInterruptedJobs();
+
+        MaintenanceJobDTO interrupted = maintenanceService.getJob("interrupted");
+        assertThat(interrupted.getStatus()).isEqualTo("FAILED");
+        assertThat(interrupted.getCheckpoint()).isEqualTo(8);
+    }
+
+    private MaintenanceJobDTO awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        MaintenanceJobDTO job = maintenanceService.getJob(jobId);
+        while (!Set.of("COMPLETED", "FAILED", "CANCELLED").contains(job.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            job = maintenanceService.getJob(jobId);
+        }
+        return job;
+    }
+
+    private void awaitProcessed(String jobId, long processed) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (maintenanceService.getJob(jobId).getProcessed() < processed && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.service.BorrowService;
+import com.example.cursorlibrary.service.OverdueService;
+import com.example.cursorlibrary.service.StatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 逾期检查：按索引分批标记新到期的借阅中记录，逾期计数随标记和归还更新，与数据库校准结果一致
+ */
+@DataJpaTest(showSql = false, properties = "overdue.batch-size=2")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OverdueServiceImpl.class, BorrowServiceImpl.class, StatisticsServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OverdueServiceTest {
+
+    @Autowired
+    private OverdueService overdueService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("reader");
+        user.setPassword("password");
+        user.setEmail("reader@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        book = new Book();
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("OVERDUE-1");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(5);
+        bookRepository.save(book);
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void marksNewlyOverdueBorrowsAndKeepsCountInSync() {
+        LocalDateTime now = LocalDateTime.now();
+        BorrowRecord first = addBorrow("BORROWED", now.minusDays(3));
+        addBorrow("BORROWED", now.minusDays(2));
+        addBorrow("BORROWED", now.minusDays(1));
+        addBorrow("BORROWED", now.plusDays(5));
+        addBorrow("RETURNED", now.minusDays(10));
+        // 审批晚于应还日期的申请
+        BorrowRecord pending = addBorrow("PENDING", now.minusDays(4));
+        statisticsService.reconcile();
+
+        assertThat(overdueService.markOverdue()).isEqualTo(3);
+        BorrowRecord marked = borrowRecordRepository.findById(first.getId()).orElseThrow();
+        assertThat(marked.getOverdueSince()).isEqualTo(marked.getDueDate());
+        assertThat(statisticsService.getStatistics().get("overdueBorrows")).isEqualTo(3L);
+        // 已标记的记录不再被扫描
+        assertThat(overdueService.markOverdue()).isZero();
+
+        borrowService.approveBorrow(pending.getId());
+        assertThat(overdueService.markOverdue()).isEqualTo(1);
+        assertThat(statisticsService.getStatistics().get("overdueBorrows")).isEqualTo(4L);
+
+        borrowService.adminReturnBook(first.getId());
+        assertThat(statisticsService.getStatistics().get("overdueBorrows")).isEqualTo(3L);
+        // 归还后保留逾期记录
+        assertThat(borrowRecordRepository.findById(first.getId()).orElseThrow().getOverdueSince()).isNotNull();
+
+        statisticsService.reconcile();
+        assertThat(statisticsService.getStatistics().get("overdueBorrows")).isEqualTo(3L);
+    }
+
+    @Test
+    void scansNewlyOverdueBorrowsByIndexRange() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + OverdueServiceImpl.SELECT_NEWLY_OVERDUE, String.class,
+                Timestamp.valueOf(LocalDateTime.now()), 1000);
+        assertThat(plan).contains("idx_status_overdue_due_date").doesNotContain("tableScan");
+    }
+
+    private BorrowRecord addBorrow(String status, LocalDateTime dueDate) {
+        BorrowRecord record = new BorrowRecord();
+        record.setUser(user);
+        record.setBook(book);
+        record.setBorrowDate(dueDate.minusDays(14));
+        record.setDueDate(dueDate);
+        if (status.equals("RETURNED")) {
+            record.setReturnDate(dueDate.minusDays(1));
+        }
+        record.setStatus(status);
+        return borrowRecordRepository.save(record);
+    }
+}
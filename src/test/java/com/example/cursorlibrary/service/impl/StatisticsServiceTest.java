@@ -0,0 +1,240 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.config.CacheConfig;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import com.example.cursorlibrary.search.BookSearchIndex;
+import com.example.cursorlibrary.service.BookService;
+import com.example.cursorlibrary.service.BorrowService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 统计计数器：借阅、审批、归还、拒绝和删除图书提交后计数随之变化；
+ * 回滚的变更不计数；校准以数据库为准，不会把已提交、计数尚未更新的变更重复计入
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BorrowServiceImpl.class, BookServiceImpl.class, BorrowHistoryPurger.class, StatisticsServiceImpl.class,
+        BookSearchIndex.class, AsyncConfig.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatisticsServiceTest {
+
+    @Autowired
+    private StatisticsServiceImpl statisticsService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("reader");
+        user.setPassword("password");
+        user.setEmail("reader@example.com");
+        user.setRole("USER");
+        user.setStatus("ACTIVE");
+        userRepository.save(user);
+
+        book = new Book();
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("STATS-1");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(5);
+        bookRepository.save(book);
+        statisticsService.reconcile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        statisticsService.reconcile();
+    }
+
+    @Test
+    void countersFollowBorrowLifecycle() {
+        assertThat(statisticsService.getStatistics())
+                .containsEntry("totalBooks", 1L)
+                .containsEntry("totalUsers", 1L)
+                .containsEntry("totalBorrows", 0L);
+
+        Long returned = borrowService.borrowBook("reader", book.getId()).getId();
+        assertThat(byStatus()).containsEntry("PENDING", 1L);
+        assertThat(statisticsService.getStatistics()).containsEntry("pendingRequests", 1L);
+
+        borrowService.approveBorrow(returned);
+        assertThat(byStatus()).containsEntry("PENDING", 0L).containsEntry("BORROWED", 1L);
+
+        borrowService.returnBook(returned, "reader");
+        assertThat(byStatus()).containsEntry("BORROWED", 0L).containsEntry("RETURNED", 1L);
+
+        Long rejected = borrowService.borrowBook("reader", book.getId()).getId();
+        borrowService.rejectBorrow(rejected);
+        assertThat(byStatus()).containsEntry("PENDING", 0L).containsEntry("REJECTED", 1L);
+        assertThat(statisticsService.getStatistics()).containsEntry("totalBorrows", 2L);
+
+        bookService.deleteBook(book.getId());
+        assertThat(statisticsService.getStatistics())
+                .containsEntry("totalBooks", 0L)
+                .containsEntry("totalBorrows", 0L);
+        assertThat(byStatus()).containsEntry("RETURNED", 0L).containsEntry("REJECTED", 0L);
+
+        // 计数与数据库一致，校准后不变
+        Map<String, Object> before = statisticsService.getStatistics();
+        statisticsService.reconcile();
+        assertThat(statisticsService.getStatistics()).isEqualTo(before);
+    }
+
+    @Test
+    void reconcileCorrectsDriftFromDirectWrites() {
+        // 绕过服务直接写库，计数器不知道这些记录
+        addBorrow("BORROWED");
+        addBorrow("RETURNED");
+        assertThat(statisticsService.getStatistics()).containsEntry("totalBorrows", 0L);
+
+        statisticsService.reconcile();
+
+        assertThat(statisticsService.getStatistics()).containsEntry("totalBorrows", 2L);
+        assertThat(byStatus()).containsEntry("BORROWED", 1L).containsEntry("RETURNED", 1L);
+    }
+
+    @Test
+    void reconcileWaitsForCommittedChangesToBeCounted() throws Exception {
+        addBorrow("PENDING");
+        BorrowRecordRepository slowRepository = mock(BorrowRecordRepository.class, delegatesTo(borrowRecordRepository));
+        StatisticsServiceImpl reconciling = new StatisticsServiceImpl(bookRepository, userRepository, slowRepository);
+        reconciling.reconcile();
+        assertThat(reconciling.getStatistics()).containsEntry("pendingRequests", 1L);
+
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch queried = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            queried.countDown();
+            return borrowRecordRepository.countAllGroupByStatus();
+        }).when(slowRepository).countAllGroupByStatus();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 借阅申请已提交，但提交后的计数更新被拖慢
+            Future<?> borrow = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+                addBorrow("PENDING");
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        committed.countDown();
+                        awaitQuietly(release);
+                    }
+                });
+                reconciling.onBorrowCreated("PENDING");
+            }));
+            assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<?> reconcile = executor.submit(reconciling::reconcile);
+            // 计数更新完成之前，校准不会查询数据库
+            assertThat(queried.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            release.countDown();
+            borrow.get(5, TimeUnit.SECONDS);
+            reconcile.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(queried.getCount()).isZero();
+        assertThat(borrowRecordRepository.count()).isEqualTo(2);
+        assertThat(reconciling.getStatistics())
+                .containsEntry("pendingRequests", 2L)
+                .containsEntry("totalBorrows", 2L);
+    }
+
+    @Test
+    void rolledBackChangesAreNotCounted() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            addBorrow("PENDING");
+            statisticsService.onBorrowCreated("PENDING");
+            tx.setRollbackOnly();
+        });
+
+        assertThat(statisticsService.getStatistics()).containsEntry("pendingRequests", 0L);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> byStatus() {
+        return (Map<String, Long>) statisticsService.getStatistics().get("borrowsByStatus");
+    }
+
+    private void addBorrow(String status) {
+        BorrowRecord record = new BorrowRecord();
+        record.setUser(user);
+        record.setBook(book);
+        record.setBorrowDate(LocalDateTime.now());
+        record.setDueDate(LocalDateTime.now().plusDays(30));
+        record.setStatus(status);
+        borrowRecordRepository.save(record);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.PrincipalCache;
+import com.example.cursorlibrary.entity.RevokedToken;
+import com.example.cursorlibrary.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 令牌撤销名单：单个令牌和按用户撤销、撤销后移出认证主体缓存、重启后从数据库恢复、过期清理
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TokenRevocationServiceImpl.class, PrincipalCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationServiceTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Autowired
+    private TokenRevocationServiceImpl revocationService;
+
+    @Autowired
+    private RevokedTokenRepository repository;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAllInBatch();
+        principalCache.clear();
+    }
+
+    @Test
+    void revokesSingleTokensAndSurvivesRestart() {
+        String jti = UUID.randomUUID().toString();
+        Date issuedAt = new Date();
+        principalCache.put("token", new User("reader1", "", List.of(new SimpleGrantedAuthority("ROLE_USER"))),
+                new Date(System.currentTimeMillis() + HOUR), principalCache.currentGeneration());
+
+        revocationService.revokeToken(jti, "reader1", new Date(System.currentTimeMillis() + HOUR));
+        assertThat(revocationService.isRevoked(jti, "reader1", issuedAt)).isTrue();
+        assertThat(revocationService.isRevoked(UUID.randomUUID().toString(), "reader1", issuedAt)).isFalse();
+        assertThat(principalCache.get("token")).isNull();
+
+        // 重启（或其他节点）从数据库加载
+        TokenRevocationServiceImpl restarted = newService();
+        restarted.afterSingletonsInstantiated();
+        assertThat(restarted.isRevoked(jti, "reader1", issuedAt)).isTrue();
+
+        // 增量拉取其他节点新增的记录
+        String remoteJti = UUID.randomUUID().toString();
+        restarted.revokeToken(remoteJti, "reader2", new Date(System.currentTimeMillis() + HOUR));
+        assertThat(revocationService.isRevoked(remoteJti, "reader2", issuedAt)).isFalse();
+        revocationService.refresh();
+        assertThat(revocationService.isRevoked(remoteJti, "reader2", issuedAt)).isTrue();
+    }
+
+    @Test
+    void revokesTokensIssuedBeforeUserRevocation() {
+        Date before = new Date(System.currentTimeMillis() - 5_000);
+        revocationService.revokeUser("reader1", "PASSWORD");
+        long cutoff = repository.findAll().get(0).getRevokedAt()
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        assertThat(revocationService.isRevoked(UUID.randomUUID().toString(), "reader1", before)).isTrue();
+        // 按毫秒为界：同一秒内、撤销之前签发的令牌同样失效，撤销之后重新登录签发的令牌仍然有效
+        assertThat(revocationService.isRevoked(UUID.randomUUID().toString(), "reader1", new Date(cutoff - 1))).isTrue();
+        assertThat(revocationService.isRevoked(UUID.randomUUID().toString(), "reader1", new Date(cutoff))).isTrue();
+        assertThat(revocationService.isRevoked(UUID.randomUUID().toString(), "reader1", new Date(cutoff + 1))).isFalse();
+        assertThat(revocationService.isRevoked(UUID.randomUUID().toString(), "reader2", before)).isFalse();
+
+        // 重启后从数据库加载，截止时间不变
+        TokenRevocationServiceImpl restarted = newService();
+        restarted.afterSingletonsInstantiated();
+        assertThat(restarted.isRevoked(UUID.randomUUID().toString(), "reader1", new Date(cutoff))).isTrue();
+        assertThat(restarted.isRevoked(UUID.randomUUID().toString(), "reader1", new Date(cutoff + 1))).isFalse();
+    }
+
+    @Test
+    void purgesExpiredRevocations() {
+        String expired = UUID.randomUUID().toString();
+        RevokedToken old = new RevokedToken();
+        old.setJti(expired);
+        old.setUsername("reader1");
+        old.setReason("LOGOUT");
+        old.setRevokedAt(LocalDateTime.now().minusDays(2));
+        old.setExpiresAt(LocalDateTime.now().minusDays(1));
+        repository.save(old);
+        String active = UUID.randomUUID().toString();
+        revocationService.revokeToken(active, "reader1", new Date(System.currentTimeMillis() + HOUR));
+
+        revocationService.purgeExpired();
+
+        assertThat(repository.findAll()).extracting(RevokedToken::getJti).containsExactly(active);
+        assertThat(revocationService.isRevoked(active, "reader1", new Date())).isTrue();
+    }
+
+    private TokenRevocationServiceImpl newService() {
+        return new TokenRevocationServiceImpl(repository, new PrincipalCache(100, HOUR), transactionManager, HOUR, 1000);
+    }
+}
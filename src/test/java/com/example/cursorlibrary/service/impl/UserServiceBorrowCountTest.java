@@ -0,0 +1,141 @@
+package com.example.cursorlibrary.service.impl;
+
+import com.example.cursorlibrary.config.AsyncConfig;
+import com.example.cursorlibrary.config.PrincipalCache;
+import com.example.cursorlibrary.dto.UserDTO;
+import com.example.cursorlibrary.entity.Book;
+import com.example.cursorlibrary.entity.BorrowRecord;
+import com.example.cursorlibrary.entity.User;
+import com.example.cursorlibrary.repository.BookRepository;
+import com.example.cursorlibrary.repository.BorrowRecordRepository;
+import com.example.cursorlibrary.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 管理员用户列表的借阅统计：每页的SQL语句数不随页大小增长
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserServiceImpl.class, BorrowHistoryPurger.class, PrincipalCache.class, StatisticsServiceImpl.class,
+        TokenRevocationServiceImpl.class, LastLoginBuffer.class, AsyncConfig.class})
+class UserServiceBorrowCountTest {
+
+    private static final int USERS = 100;
+    private static final String[] STATUSES = {"PENDING", "BORROWED", "RETURNED", "REJECTED"};
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        book.setTitle("活着");
+        book.setAuthor("余华");
+        book.setIsbn("9787506365437");
+        book.setPublisher("作家出版社");
+        book.setPublishDate(LocalDate.of(2012, 8, 1));
+        book.setCategory("文学");
+        book.setStock(10);
+        bookRepository.save(book);
+
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername(String.format("reader%03d", i));
+            user.setPassword("123456");
+            user.setEmail("reader" + i + "@example.com");
+            user.setRole("USER");
+            user.setStatus("ACTIVE");
+            userRepository.save(user);
+
+            // 第i个用户有 i % 5 条借阅记录，状态轮流分布
+            for (int j = 0; j < i % 5; j++) {
+                BorrowRecord record = new BorrowRecord();
+                record.setUser(user);
+                record.setBook(book);
+                record.setBorrowDate(LocalDateTime.now());
+                record.setDueDate(LocalDateTime.now().plusDays(30));
+                record.setStatus(STATUSES[j % STATUSES.length]);
+                borrowRecordRepository.save(record);
+            }
+        }
+        borrowRecordRepository.flush();
+    }
+
+    @Test
+    void statementCountStaysConstantAsPageSizeGrows() {
+        long small = statementsFor(5);
+        long medium = statementsFor(20);
+        long large = statementsFor(USERS / 2);
+
+        // 用户分页查询 + 总数查询 + 热表和归档表各一次借阅聚合查询
+        assertThat(small).isEqualTo(4);
+        assertThat(medium).isEqualTo(small);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void borrowCountsMatchPerUserQueries() {
+        Page<UserDTO> page = userService.findUsersWithBorrowCounts(null, PageRequest.of(0, USERS));
+
+        assertThat(page.getContent()).hasSize(USERS);
+        for (UserDTO dto : page.getContent()) {
+            assertThat(dto.getBorrowCount()).isEqualTo(borrowRecordRepository.countByUserId(dto.getId()));
+            assertThat(dto.getBorrowCountsByStatus()).containsOnlyKeys(List.of(STATUSES));
+            assertThat(dto.getBorrowCountsByStatus().values().stream().mapToLong(Long::longValue).sum())
+                    .isEqualTo(dto.getBorrowCount());
+        }
+
+        UserDTO fourRecords = page.getContent().stream()
+                .filter(dto -> dto.getUsername().equals("reader004"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(fourRecords.getBorrowCountsByStatus())
+                .containsEntry("PENDING", 1L)
+                .containsEntry("BORROWED", 1L)
+                .containsEntry("RETURNED", 1L)
+                .containsEntry("REJECTED", 1L);
+    }
+
+    private long statementsFor(int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Page<UserDTO> page = userService.findUsersWithBorrowCounts(null, PageRequest.of(0, pageSize));
+        assertThat(page.getContent()).hasSize(pageSize);
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.cursorlibrary.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 密钥环：按 kid 验证、轮换后旧令牌仍有效、只有公钥的节点可以验证、没有 kid 的旧令牌按共享密钥验证；
+ * 签发时间精确到毫秒
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = "SsGX3iYykKUxwp+jMgcuu0YzFOoampjZEgsp0HiIFiw=";
+
+    @Test
+    void verifiesTokensSignedWithRotatedKeys() {
+        JwtKeyring keyring = new JwtKeyring();
+        JwtKeyring.SigningKey first = keyring.generate("k1", SignatureAlgorithm.ES256);
+        keyring.activate("k1");
+        JwtUtil jwtUtil = new JwtUtil(keyring, 60000L);
+        String oldToken = jwtUtil.generateToken("reader1", "USER");
+
+        keyring.generate("k2", SignatureAlgorithm.ES256);
+        keyring.activate("k2");
+        String newToken = jwtUtil.generateToken("reader1", "USER");
+        assertThat(jwtUtil.validateToken(oldToken)).isTrue();
+        assertThat(jwtUtil.validateToken(newToken)).isTrue();
+        assertThat(jwtUtil.extractAllClaims(newToken).get(JwtUtil.ROLE_CLAIM, String.class)).isEqualTo("USER");
+
+        // 只有公钥的节点可以验证，但不能签发
+        JwtKeyring verifier = new JwtKeyring();
+        verifier.add(new JwtKeyring.SigningKey("k1", SignatureAlgorithm.ES256, null, first.verificationKey()));
+        JwtUtil verifierUtil = new JwtUtil(verifier, 60000L);
+        assertThat(verifierUtil.extractUsername(oldToken)).isEqualTo("reader1");
+        assertThat(verifierUtil.validateToken(newToken)).isFalse();
+
+        keyring.remove("k1");
+        assertThat(jwtUtil.validateToken(oldToken)).isFalse();
+    }
+
+    @Test
+    void carriesMillisecondIssuedAt() {
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyring.hmac("k1", SECRET), 60000L);
+        long before = System.currentTimeMillis();
+        Claims claims = jwtUtil.extractAllClaims(jwtUtil.generateToken("reader1", "USER"));
+        long after = System.currentTimeMillis();
+
+        assertThat(JwtUtil.issuedAt(claims).getTime()).isBetween(before, after);
+        // 标准 iat 只到秒，取该秒的开始
+        assertThat(claims.getIssuedAt().getTime()).isEqualTo(JwtUtil.issuedAt(claims).getTime() / 1000 * 1000);
+    }
+
+    @Test
+    void acceptsLegacyTokensWithoutKeyIdAndRejectsAlgorithmMismatch() {
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyring.hmac("k1", SECRET), 60000L);
+        String legacy = Jwts.builder()
+                .setSubject("reader1")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(JwtKeyring.hmacKey(SECRET), SignatureAlgorithm.HS256)
+                .compact();
+        assertThat(jwtUtil.extractUsername(legacy)).isEqualTo("reader1");
+        assertThat(JwtUtil.issuedAt(jwtUtil.extractAllClaims(legacy))).isNull();
+
+        String otherAlgorithm = Jwts.builder()
+                .setHeaderParam("kid", "k1")
+                .setSubject("reader1")
+                .signWith(JwtKeyring.hmacKey(SECRET + SECRET), SignatureAlgorithm.HS512)
+                .compact();
+        assertThat(jwtUtil.validateToken(otherAlgorithm)).isFalse();
+    }
+}